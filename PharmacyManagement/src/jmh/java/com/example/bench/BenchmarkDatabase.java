@@ -0,0 +1,61 @@
+package com.example.bench;
+
+import com.example.dao.MedicineDAOImpl;
+import com.example.model.Medicine;
+import com.example.util.ConnectionPool;
+import com.example.util.PoolConfig;
+import com.example.util.SchemaManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+final class BenchmarkDatabase implements AutoCloseable { // Fresh in-memory H2 (Oracle mode) seeded with deterministic synthetic rows
+    private static final String[] STEMS = {"Paracetamol", "Ibuprofen", "Amoxicillin", "Cetirizine", "Metformin",
+            "Omeprazole", "Salbutamol", "Atorvastatin", "Loratadine", "Azithromycin"};
+    private static final LocalDate BASE_DATE = LocalDate.of(2026, 1, 1);
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+    final ConnectionPool pool;
+    final MedicineDAOImpl dao;
+    int firstId;
+    int lastId;
+
+    BenchmarkDatabase(int poolSize) throws Exception {
+        PoolConfig cfg = new PoolConfig("jdbc:h2:mem:bench" + INSTANCES.incrementAndGet() + ";MODE=Oracle;DB_CLOSE_DELAY=-1", "sa", "");
+        cfg.setMinSize(1);
+        cfg.setMaxSize(poolSize);
+        pool = new ConnectionPool(cfg);
+        SchemaManager.ensureSchema(pool);
+        dao = new MedicineDAOImpl(pool);
+        dao.setBatchSize(5_000);
+    }
+
+    void seed(int rows) throws Exception { // same rows for the same count, every run
+        Random rnd = new Random(42);
+        List<Medicine> batch = new ArrayList<>(10_000);
+        for (int i = 0; i < rows; i++) {
+            batch.add(syntheticMedicine(rnd, i));
+            if (batch.size() == 10_000 || i == rows - 1) {
+                dao.addMedicines(batch);
+                if (firstId == 0) firstId = batch.get(0).getId();
+                lastId = batch.get(batch.size() - 1).getId();
+                batch.clear();
+            }
+        }
+    }
+
+    static Medicine syntheticMedicine(Random rnd, int i) {
+        String name = STEMS[rnd.nextInt(STEMS.length)] + " " + (50 * (1 + rnd.nextInt(20))) + "mg #" + i;
+        LocalDate expiry = rnd.nextInt(20) == 0 ? null : BASE_DATE.plusDays(rnd.nextInt(1_460) - 365); // ~5% undated, ~25% expired
+        double price = Math.round(rnd.nextDouble() * 50_000) / 100.0;
+        return new Medicine(name, expiry, price, rnd.nextInt(200));
+    }
+
+    @Override
+    public void close() {
+        pool.close();
+    }
+}
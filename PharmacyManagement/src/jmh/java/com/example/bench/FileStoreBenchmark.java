@@ -0,0 +1,76 @@
+package com.example.bench;
+
+import com.example.dao.FileMedicineDAO;
+import com.example.exceptions.DatabaseOperationException;
+import com.example.model.Medicine;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileStoreBenchmark { // Start-up and point reads of the embedded file store
+    @Param({"1000000"})
+    public int rows;
+
+    private Path dir;
+    private FileMedicineDAO store;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, DatabaseOperationException {
+        dir = Files.createTempDirectory("file-store-bench");
+        SplittableRandom rnd = new SplittableRandom(11);
+        try (FileMedicineDAO seed = new FileMedicineDAO(dir)) {
+            seed.setSyncWrites(false);
+            List<Medicine> chunk = new ArrayList<>(10_000);
+            for (int i = 0; i < rows; i++) {
+                LocalDate expiry = rnd.nextInt(10) == 0 ? null : LocalDate.of(2026, 1, 1).plusDays(rnd.nextInt(-200, 800));
+                chunk.add(new Medicine("Med " + rnd.nextInt(50_000), expiry, rnd.nextInt(1, 10_000) / 100.0, rnd.nextInt(500)));
+                if (chunk.size() == 10_000) {
+                    seed.addMedicines(chunk);
+                    chunk.clear();
+                }
+            }
+            seed.addMedicines(chunk);
+        } // close() leaves everything in the snapshot
+        store = new FileMedicineDAO(dir);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, DatabaseOperationException {
+        store.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) Files.delete(p);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public int startUp() throws DatabaseOperationException { // map the snapshot and rebuild the indexes
+        store.close();
+        store = new FileMedicineDAO(dir);
+        return store.size();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Medicine getById() {
+        return store.getMedicineById(ThreadLocalRandom.current().nextInt(1, rows + 1));
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.bench;
+
+import com.example.analytics.ExpiryBucket;
+import com.example.analytics.InventoryAnalytics;
+import com.example.analytics.InventorySnapshot;
+import com.example.model.Medicine;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InventoryAnalyticsBenchmark { // Reports over the columnar snapshot versus the same loop over Medicine objects
+    private static final LocalDate TODAY = LocalDate.of(2026, 1, 15);
+
+    @Param({"1000000", "5000000"})
+    public int rows;
+
+    private List<Medicine> objects;
+    private InventoryAnalytics analytics;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom rnd = new SplittableRandom(5);
+        objects = new ArrayList<>(rows);
+        for (int id = 1; id <= rows; id++) {
+            LocalDate expiry = rnd.nextInt(10) == 0 ? null : TODAY.plusDays(rnd.nextInt(-200, 800));
+            objects.add(new Medicine(id, "Med " + rnd.nextInt(50_000), expiry, rnd.nextInt(1, 10_000) / 100.0, rnd.nextInt(500)));
+        }
+        analytics = new InventoryAnalytics(InventorySnapshot.of(objects.iterator()));
+    }
+
+    @Benchmark
+    public double totalValue() {
+        return analytics.totalValue();
+    }
+
+    @Benchmark
+    public double valueAtRisk() {
+        return analytics.valueAtRisk(TODAY, 90);
+    }
+
+    @Benchmark
+    public SortedMap<YearMonth, ExpiryBucket> expiringByMonth() {
+        return analytics.expiringByMonth(YearMonth.from(TODAY), YearMonth.from(TODAY).plusMonths(23));
+    }
+
+    @Benchmark
+    public double valueAtRiskOverObjects() { // baseline: what the report costs over getAllMedicines-style objects
+        LocalDate to = TODAY.plusDays(90);
+        double sum = 0;
+        for (Medicine m : objects) {
+            LocalDate e = m.getExpiryDate();
+            if (e != null && !e.isBefore(TODAY) && !e.isAfter(to)) sum += m.getPrice() * m.getStock();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.bench;
+
+import com.example.model.Medicine;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MedicineReadBenchmark { // Point lookups and the full listing at several catalog sizes
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private BenchmarkDatabase db;
+
+    @State(Scope.Thread)
+    public static class Ids { // per-thread generator so threads don't contend on it
+        final SplittableRandom rnd = new SplittableRandom(7);
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        db = new BenchmarkDatabase(4);
+        db.seed(rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        db.close();
+    }
+
+    @Benchmark
+    public Medicine getMedicineById(Ids ids) throws Exception {
+        return db.dao.getMedicineById(ids.rnd.nextInt(db.firstId, db.lastId + 1));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public ArrayList<Medicine> getAllMedicines() throws Exception {
+        return db.dao.getAllMedicines();
+    }
+}
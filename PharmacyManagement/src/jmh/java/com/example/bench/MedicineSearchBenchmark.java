@@ -0,0 +1,69 @@
+package com.example.bench;
+
+import com.example.model.Medicine;
+import com.example.search.MedicineSearchIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MedicineSearchBenchmark { // Name search over a synthetic catalog; no database involved
+    private static final String[] STEMS = {"amoxi", "ibupro", "parace", "cetiri", "lorata", "omepra", "metfor", "atorva",
+            "simva", "amlodi", "lisino", "losar", "predni", "azithro", "doxy", "cipro", "fluco", "sertra", "citalo", "gaba"};
+    private static final String[] ENDINGS = {"cillin", "fen", "tamol", "zine", "dine", "zole", "min", "statin", "pine", "pril",
+            "tan", "solone", "mycin", "cycline", "floxacin", "nazole", "line", "pram", "pentin"};
+    private static final String[] FORMS = {"Tablets", "Capsules", "Syrup", "Gel", "Injection", "Drops", "Cream"};
+
+    @Param({"500000"})
+    public int names;
+
+    private MedicineSearchIndex index;
+
+    @State(Scope.Thread)
+    public static class Queries {
+        final SplittableRandom rnd = new SplittableRandom(11);
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        index = new MedicineSearchIndex();
+        SplittableRandom rnd = new SplittableRandom(3);
+        for (int id = 1; id <= names; id++) {
+            index.medicineAdded(new Medicine(id, name(rnd), null, 1.0, 10));
+        }
+    }
+
+    static String name(SplittableRandom rnd) {
+        return capitalize(STEMS[rnd.nextInt(STEMS.length)] + ENDINGS[rnd.nextInt(ENDINGS.length)])
+                + " " + (rnd.nextInt(20) + 1) * 50 + "mg " + FORMS[rnd.nextInt(FORMS.length)] + " " + rnd.nextInt(10_000);
+    }
+
+    private static String capitalize(String s) {
+        return Character.toUpperCase(s.charAt(0)) + s.substring(1);
+    }
+
+    @Benchmark
+    public List<Medicine> prefix(Queries q) {
+        String stem = STEMS[q.rnd.nextInt(STEMS.length)];
+        return index.searchByName(stem.substring(0, 4), 10);
+    }
+
+    @Benchmark
+    public List<Medicine> substring(Queries q) {
+        return index.searchByName(ENDINGS[q.rnd.nextInt(ENDINGS.length)] + " " + (q.rnd.nextInt(20) + 1) * 50 + "mg", 10);
+    }
+
+    @Benchmark
+    public List<Medicine> typo(Queries q) {
+        String word = STEMS[q.rnd.nextInt(STEMS.length)] + ENDINGS[q.rnd.nextInt(ENDINGS.length)];
+        int at = 2 + q.rnd.nextInt(word.length() - 3);
+        return index.searchByName(word.substring(0, at) + word.substring(at + 1), 10); // one letter dropped
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.bench;
+
+import com.example.model.Medicine;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MedicineWriteBenchmark { // Single-row vs batched inserts into a 10k-row table
+
+    @Param({"1000"})
+    public int batchRows;
+
+    private BenchmarkDatabase db;
+    private Random rnd;
+    private int counter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        db = new BenchmarkDatabase(4);
+        db.seed(10_000);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetData() throws Exception { // keep the table at its seeded size between iterations
+        try (Connection conn = db.pool.getConnection();
+             PreparedStatement ps = conn.prepareStatement("DELETE FROM medicines WHERE medicine_id > ?")) {
+            ps.setInt(1, db.lastId);
+            ps.executeUpdate();
+        }
+        rnd = new Random(99);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        db.close();
+    }
+
+    @Benchmark
+    public int addMedicine() throws Exception {
+        Medicine med = BenchmarkDatabase.syntheticMedicine(rnd, counter++);
+        db.dao.addMedicine(med);
+        return med.getId();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int addMedicinesBatch() throws Exception {
+        List<Medicine> batch = new ArrayList<>(batchRows);
+        for (int i = 0; i < batchRows; i++) batch.add(BenchmarkDatabase.syntheticMedicine(rnd, counter++));
+        return db.dao.addMedicines(batch);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.bench;
+
+import com.example.model.Medicine;
+import com.example.exceptions.StaleMedicineException;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class StockContentionBenchmark { // 8 counters hammering a handful of hot SKUs
+
+    private static final int HOT_SKUS = 4;
+
+    private BenchmarkDatabase db;
+
+    @State(Scope.Thread)
+    public static class Picker {
+        final SplittableRandom rnd = new SplittableRandom(Thread.currentThread().threadId());
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        db = new BenchmarkDatabase(8);
+        db.seed(1_000);
+        db.dao.setOptimisticLocking(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        db.close();
+    }
+
+    private int hotId(Picker p) {
+        return db.firstId + p.rnd.nextInt(HOT_SKUS);
+    }
+
+    @Benchmark
+    public void updateMedicineReadModifyWrite(Picker p, Blackhole bh) throws Exception { // the old path: load, edit, write every column
+        Medicine med = db.dao.getMedicineById(hotId(p));
+        med.setStock(med.getStock() + (p.rnd.nextBoolean() ? 1 : -1));
+        try {
+            db.dao.updateMedicine(med);
+        } catch (StaleMedicineException e) {
+            bh.consume(e); // lost the race; counted as a completed (wasted) operation
+        }
+    }
+
+    @Benchmark
+    public void restockAtomic(Picker p) throws Exception {
+        db.dao.restock(hotId(p), 1);
+    }
+}
@@ -1,23 +1,75 @@
 package com.example;
 
+import com.example.alerts.AlertService;
+import com.example.analytics.ExpiryBucket;
+import com.example.analytics.InventoryAnalytics;
+import com.example.analytics.InventorySnapshot;
+import com.example.batch.BatchRunner;
+import com.example.dao.CachingMedicineDAO;
+import com.example.dao.FileMedicineDAO;
 import com.example.dao.MedicineDAO;
+import com.example.dao.MedicineDAOFactory;
 import com.example.dao.MedicineDAOImpl;
+import com.example.dao.ObservableMedicineDAO;
+import com.example.dao.ShardedMedicineDAO;
+import com.example.dao.WriteBehindMedicineDAO;
+import com.example.inventory.InventoryIndex;
+import com.example.io.CsvMedicineExporter;
+import com.example.io.CsvMedicineImporter;
+import com.example.io.ImportResult;
+import com.example.metrics.DaoMetrics;
+import com.example.metrics.InstrumentedMedicineDAO;
 import com.example.model.Medicine;
+import com.example.search.MedicineSearchIndex;
 import com.example.exceptions.*;
+import com.example.util.DBConnection;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Duration;
 import java.time.LocalDate;
-import java.util.ArrayList;
+import java.time.YearMonth;
+import java.util.List;
 import java.util.Scanner;
 
 public class PharmacyApp {
-    private static MedicineDAO medDAO = new MedicineDAOImpl(); // Using the DAO implementation
+    private static DaoMetrics metrics; // the DAO chain and services are built in startInteractive(), so --batch skips them
+    private static MedicineDAO backend; // JDBC or the embedded file store, per pharmacy.dao.backend
+    private static ObservableMedicineDAO observedDAO; // times database calls, publishes writes to listeners
+    private static CachingMedicineDAO cachedDAO;
+    private static WriteBehindMedicineDAO writeBehind; // null unless -Dpharmacy.writeBehind.flushMillis is set
+    private static MedicineDAO medDAO; // DAO implementation behind a lookup cache
+    private static AlertService alerts; // low stock <= 5, expiry within 30 days
+    private static InventoryIndex inventory; // loaded on first report, then kept current by observedDAO
+    private static MedicineSearchIndex searchIndex; // loaded on first search, likewise
     private static Scanner sc = new Scanner(System.in);
+    private static final int PAGE_SIZE = 20;
+    private static final int IMPORT_BATCH_SIZE = 1_000;
 
      static void main(String[] args) { //
+        if (args.length > 0 && args[0].equals("--batch")) {
+            System.exit(runBatch(args));
+        }
+        startInteractive();
+        alerts.subscribe(alert -> System.out.println("\n[ALERT] " + alert));
+        observedDAO.addListener(alerts);
+        try {
+            metrics.register("pharmacy");
+        } catch (Exception e) {
+            System.err.println("JMX registration failed: " + e.getMessage());
+        }
         int choice;
         do {
             showMenu();
-            choice = sc.nextInt(); sc.nextLine();
+            choice = readInt(0); // end of input exits
             try {
                 switch (choice) { //
                     case 1 -> addMedicine();
@@ -25,6 +77,14 @@ public class PharmacyApp {
                     case 3 -> viewById();
                     case 4 -> updateMedicine();
                     case 5 -> deleteMedicine();
+                    case 6 -> inventoryReport();
+                    case 7 -> dispense();
+                    case 8 -> restock();
+                    case 9 -> showMetrics();
+                    case 10 -> importCsv();
+                    case 11 -> exportCsv();
+                    case 12 -> searchByName();
+                    case 13 -> valuationReport();
                     case 0 -> System.out.println("Exiting... Goodbye!");
                     default -> System.out.println("Invalid choice.");
                 }
@@ -32,9 +92,128 @@ public class PharmacyApp {
                 System.err.println("Error: " + e.getMessage());
             }
         } while (choice != 0);
+        if (writeBehind != null) {
+            try {
+                writeBehind.close(); // don't lose buffered stock changes on exit
+            } catch (DatabaseOperationException e) {
+                System.err.println("Could not write buffered stock changes: " + e.getMessage());
+            }
+        }
+        if (backend instanceof FileMedicineDAO store) {
+            try {
+                store.close(); // compacts the log so the next start is quick
+            } catch (DatabaseOperationException e) {
+                System.err.println("Could not close the medicine store: " + e.getMessage());
+            }
+        } else if (backend instanceof ShardedMedicineDAO stores) {
+            stores.close(); // one pool per store
+        }
+        alerts.close();
         sc.close();
     }
 
+    private static int runBatch(String[] args) { // --batch <script|-> [--parallel N]; exit status 0 = all ok, 1 = some failed, 2 = didn't run
+        if (args.length != 2 && !(args.length == 4 && args[2].equals("--parallel"))) {
+            System.err.println("Usage: PharmacyApp --batch <script|-> [--parallel N]");
+            return 2;
+        }
+        int parallel = Math.min(4, Runtime.getRuntime().availableProcessors());
+        if (args.length == 4) {
+            try {
+                parallel = Integer.parseInt(args[3]);
+            } catch (NumberFormatException e) {
+                System.err.println("--parallel needs a number: " + args[3]);
+                return 2;
+            }
+        }
+        MedicineDAO dao;
+        try {
+            dao = MedicineDAOFactory.create();
+        } catch (DatabaseOperationException e) {
+            System.err.println("Could not open the medicine store: " + e.getMessage());
+            return 2;
+        }
+        try (BufferedReader in = args[1].equals("-")
+                     ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                     : Files.newBufferedReader(Path.of(args[1]));
+             BatchRunner runner = new BatchRunner(dao, parallel)) {
+            Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+            return runner.run(in, out).failed() == 0 ? 0 : 1;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Batch failed: " + e.getMessage());
+            return 2;
+        } finally {
+            if (dao instanceof FileMedicineDAO store) {
+                try {
+                    store.close();
+                } catch (DatabaseOperationException e) {
+                    System.err.println("Could not close the medicine store: " + e.getMessage());
+                }
+            } else if (dao instanceof ShardedMedicineDAO stores) {
+                stores.close();
+            } else {
+                DBConnection.shutdown();
+            }
+        }
+    }
+
+    private static void startInteractive() {
+        metrics = new DaoMetrics();
+        backend = createBackend();
+        observedDAO = new ObservableMedicineDAO(new InstrumentedMedicineDAO(backend, metrics));
+        cachedDAO = new CachingMedicineDAO(observedDAO, 10_000, Duration.ofMinutes(5));
+        writeBehind = createWriteBehind();
+        medDAO = writeBehind != null ? writeBehind : cachedDAO;
+        alerts = new AlertService(1_000, 5, 30, Duration.ofMinutes(10));
+    }
+
+    private static MedicineDAO createBackend() { // optimistic locking is on in db.properties: the update prompts can take a while
+        try {
+            return MedicineDAOFactory.create();
+        } catch (DatabaseOperationException e) {
+            throw new IllegalStateException("Could not open the medicine store: " + e.getMessage(), e);
+        }
+    }
+
+    private static WriteBehindMedicineDAO createWriteBehind() { // buffers dispense/restock for up to flushMillis
+        long flushMillis = Long.getLong("pharmacy.writeBehind.flushMillis", 0);
+        return flushMillis > 0 ? WriteBehindMedicineDAO.start(cachedDAO, Duration.ofMillis(flushMillis), 1_000) : null;
+    }
+
+    private static int readInt() { // re-prompts on a typo instead of leaving it in the scanner
+        while (true) {
+            String s = sc.nextLine().trim();
+            try {
+                return Integer.parseInt(s);
+            } catch (NumberFormatException e) {
+                System.out.print("Not a whole number, try again: ");
+            }
+        }
+    }
+
+    private static int readInt(int onEof) { // for the menu: piped input that runs out shouldn't end in a stack trace
+        while (sc.hasNextLine()) {
+            String s = sc.nextLine().trim();
+            try {
+                return Integer.parseInt(s);
+            } catch (NumberFormatException e) {
+                System.out.print("Not a whole number, try again: ");
+            }
+        }
+        return onEof;
+    }
+
+    private static double readDouble() {
+        while (true) {
+            String s = sc.nextLine().trim();
+            try {
+                return Double.parseDouble(s);
+            } catch (NumberFormatException e) {
+                System.out.print("Not a number, try again: ");
+            }
+        }
+    }
+
     private static void showMenu() { // Display menu options
         IO.println("\n--- Pharmacy Store ---");
         IO.println("1. Add Medicine");
@@ -42,6 +221,14 @@ public class PharmacyApp {
         IO.println("3. View Medicine By ID");
         IO.println("4. Update Medicine");
         IO.println("5. Delete Medicine");
+        IO.println("6. Expiry & Low-Stock Report");
+        IO.println("7. Dispense Medicine");
+        IO.println("8. Restock Medicine");
+        IO.println("9. Performance Metrics");
+        IO.println("10. Import CSV");
+        IO.println("11. Export CSV");
+        IO.println("12. Search by Name");
+        IO.println("13. Valuation & Expiry by Month");
         IO.println("0. Exit");
         IO.print("Enter choice: ");
     }
@@ -53,31 +240,44 @@ public class PharmacyApp {
         String date = sc.nextLine();
         LocalDate expiry = date.isEmpty() ? null : LocalDate.parse(date);
         System.out.print("Price: ");
-        double price = sc.nextDouble();
+        double price = readDouble();
         System.out.print("Stock: ");
-        int stock = sc.nextInt(); sc.nextLine();
+        int stock = readInt();
 
         Medicine med = new Medicine(name, expiry, price, stock);
         medDAO.addMedicine(med);
         System.out.println("Medicine added! ID = " + med.getId());
     }
 
-    private static void viewAll() throws DatabaseOperationException { // View all medicines
-        ArrayList<Medicine> meds = medDAO.getAllMedicines();
-        if (meds.isEmpty()) System.out.println("No medicines found.");
-        else meds.forEach(System.out::println);
+    private static void viewAll() throws DatabaseOperationException { // View medicines a page at a time
+        LocalDate afterExpiry = null;
+        int afterId = 0;
+        boolean any = false;
+        while (true) {
+            List<Medicine> page = medDAO.getMedicinesPage(afterExpiry, afterId, PAGE_SIZE);
+            if (page.isEmpty()) break;
+            any = true;
+            page.forEach(System.out::println);
+            Medicine last = page.get(page.size() - 1); // keyset for the next page
+            afterExpiry = last.getExpiryDate();
+            afterId = last.getId();
+            if (page.size() < PAGE_SIZE) break;
+            System.out.print("-- Enter for more, q to stop: ");
+            if (sc.nextLine().trim().equalsIgnoreCase("q")) break;
+        }
+        if (!any) System.out.println("No medicines found.");
     }
 
     private static void viewById() throws MedicineNotFoundException, DatabaseOperationException { // View medicine by ID
         System.out.print("Enter ID: ");
-        int id = sc.nextInt(); sc.nextLine();
+        int id = readInt();
         Medicine med = medDAO.getMedicineById(id);
         System.out.println(med);
     }
 
     private static void updateMedicine() throws MedicineNotFoundException, DatabaseOperationException { // Update existing medicine
         System.out.print("Enter ID to update: ");
-        int id = sc.nextInt(); sc.nextLine();
+        int id = readInt();
         Medicine med = medDAO.getMedicineById(id);
 
         System.out.print("New Name (" + med.getName() + "): ");
@@ -102,8 +302,96 @@ public class PharmacyApp {
 
     private static void deleteMedicine() throws MedicineNotFoundException, DatabaseOperationException { // Delete a medicine
         System.out.print("Enter ID to delete: ");
-        int id = sc.nextInt(); sc.nextLine();
+        int id = readInt();
         medDAO.deleteMedicine(id);
         System.out.println("Deleted successfully!");
     }
+
+    private static void inventoryReport() throws DatabaseOperationException { // Served from the in-memory index
+        if (inventory == null) {
+            inventory = new InventoryIndex();
+            inventory.attach(observedDAO);
+        }
+        LocalDate today = LocalDate.now();
+        System.out.println("Next to expire:");
+        inventory.nextToExpire(today, 10).forEach(System.out::println);
+        System.out.println("Expired:");
+        inventory.expiredAsOf(today).forEach(System.out::println);
+        System.out.println("Low stock (<= 5):");
+        inventory.lowStock(5).forEach(System.out::println);
+    }
+
+    private static void searchByName() throws DatabaseOperationException { // Partial or misspelt names, best matches first
+        if (searchIndex == null) {
+            searchIndex = new MedicineSearchIndex();
+            searchIndex.attach(observedDAO);
+        }
+        System.out.print("Name: ");
+        List<Medicine> found = searchIndex.searchByName(sc.nextLine(), PAGE_SIZE);
+        if (found.isEmpty()) System.out.println("No matching medicines.");
+        else found.forEach(System.out::println);
+    }
+
+    private static void valuationReport() throws DatabaseOperationException { // Columnar snapshot of the whole table, aggregated in parallel
+        long start = System.nanoTime();
+        InventorySnapshot snapshot = InventorySnapshot.load(medDAO);
+        InventoryAnalytics analytics = new InventoryAnalytics(snapshot);
+        LocalDate today = LocalDate.now();
+        System.out.printf("Medicines: %d (%d distinct names, ~%d KB)%n", snapshot.size(), snapshot.distinctNames(), snapshot.approximateBytes() / 1024);
+        System.out.printf("Total value:        %.2f%n", analytics.totalValue());
+        System.out.printf("Expired value:      %.2f%n", analytics.expiredValue(today));
+        System.out.printf("At risk (30 days):  %.2f%n", analytics.valueAtRisk(today, 30));
+        System.out.printf("At risk (90 days):  %.2f%n", analytics.valueAtRisk(today, 90));
+        System.out.println("Expiring by month:");
+        YearMonth now = YearMonth.from(today);
+        for (var month : analytics.expiringByMonth(now, now.plusMonths(11)).entrySet()) {
+            ExpiryBucket b = month.getValue();
+            System.out.printf("  %s  %5d SKUs  %8d units  %12.2f%n", month.getKey(), b.medicines(), b.units(), b.value());
+        }
+        System.out.printf("(%.1f ms)%n", (System.nanoTime() - start) / 1e6);
+    }
+
+    private static void dispense() throws MedicineNotFoundException, DatabaseOperationException { // Take units out of stock
+        System.out.print("Enter ID: ");
+        int id = readInt();
+        System.out.print("Quantity: ");
+        int qty = readInt();
+        medDAO.dispense(id, qty);
+        System.out.println("Dispensed " + qty + " units.");
+    }
+
+    private static void restock() throws MedicineNotFoundException, DatabaseOperationException { // Add delivered units to stock
+        System.out.print("Enter ID: ");
+        int id = readInt();
+        System.out.print("Quantity: ");
+        int qty = readInt();
+        medDAO.restock(id, qty);
+        System.out.println("Restocked " + qty + " units.");
+    }
+
+    private static void showMetrics() throws SQLException { // Plain-text dump of DAO, pool and cache counters
+        if (backend instanceof MedicineDAOImpl) metrics.setPool(DBConnection.getPool()); // the file store has no pool
+        System.out.print(metrics.dump());
+        System.out.println("cache: " + cachedDAO.getStats());
+        if (writeBehind != null) System.out.println("write-behind: " + writeBehind.getStats());
+    }
+
+    private static void importCsv() throws IOException, DatabaseOperationException { // Bulk load; rerun after a failure to resume
+        System.out.print("CSV file: ");
+        Path csv = Path.of(sc.nextLine().trim());
+        Path rejects = csv.resolveSibling(csv.getFileName() + ".rejects.csv");
+        if (Files.exists(CsvMedicineImporter.checkpointFor(csv))) System.out.println("Resuming previous import...");
+        CsvMedicineImporter importer = new CsvMedicineImporter(medDAO, IMPORT_BATCH_SIZE);
+        ImportResult result = importer.importFile(csv, rejects, (soFar, done, total) ->
+                System.out.printf("\r%d%% (%d imported, %d rejected)", total == 0 ? 100 : done * 100 / total, soFar.imported(), soFar.rejected()));
+        System.out.println("\nImport finished: " + result);
+        if (result.rejected() > 0) System.out.println("Rejected rows written to " + rejects);
+    }
+
+    private static void exportCsv() throws IOException, DatabaseOperationException { // Dump the whole catalog, expired rows included
+        System.out.print("Output file: ");
+        Path out = Path.of(sc.nextLine().trim());
+        long rows = new CsvMedicineExporter(medDAO).exportTo(out);
+        System.out.println("Exported " + rows + " medicines to " + out);
+    }
 }
@@ -0,0 +1,6 @@
+package com.example.alerts;
+
+@FunctionalInterface
+public interface AlertListener { // Receives alerts on the AlertService dispatcher thread
+    void onAlert(StockAlert alert);
+}
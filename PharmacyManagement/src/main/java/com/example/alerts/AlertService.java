@@ -0,0 +1,149 @@
+package com.example.alerts;
+
+import com.example.dao.MedicineChangeListener;
+import com.example.model.Medicine;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+public class AlertService implements MedicineChangeListener, AutoCloseable { // Raises low-stock/expiry alerts from write events and delivers them asynchronously
+    private static final StockAlert SHUTDOWN = new StockAlert(null, 0, null, 0, 0, null, null); // queue sentinel
+
+    private final BlockingQueue<StockAlert> queue;
+    private final List<AlertListener> listeners = new CopyOnWriteArrayList<>();
+    private final ConcurrentHashMap<Integer, Integer> thresholds = new ConcurrentHashMap<>(); // per-SKU overrides
+    private final ConcurrentHashMap<Integer, AlertState> states = new ConcurrentHashMap<>();
+    private final int defaultThreshold;
+    private final int expiryWarningDays;
+    private final long debounceMillis;
+    private final Clock clock;
+    private final Thread dispatcher;
+    private final LongAdder raised = new LongAdder();
+    private final LongAdder suppressed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean closed;
+
+    private static final class AlertState { // what we last told subscribers about one SKU, guarded by itself
+        boolean lowActive;
+        boolean expiringActive;
+        long lowSentAt = Long.MIN_VALUE;
+        long expiringSentAt = Long.MIN_VALUE;
+    }
+
+    public AlertService(int queueCapacity, int defaultThreshold, int expiryWarningDays, Duration debounce) {
+        this(queueCapacity, defaultThreshold, expiryWarningDays, debounce, Clock.systemDefaultZone());
+    }
+
+    public AlertService(int queueCapacity, int defaultThreshold, int expiryWarningDays, Duration debounce, Clock clock) {
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.defaultThreshold = defaultThreshold;
+        this.expiryWarningDays = expiryWarningDays;
+        this.debounceMillis = debounce.toMillis();
+        this.clock = clock;
+        this.dispatcher = new Thread(this::dispatch, "pharmacy-alerts");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    public void subscribe(AlertListener listener) { listeners.add(listener); }
+    public void unsubscribe(AlertListener listener) { listeners.remove(listener); }
+
+    public void setThreshold(int medicineId, int threshold) { thresholds.put(medicineId, threshold); }
+    public void clearThreshold(int medicineId) { thresholds.remove(medicineId); }
+
+    public int getThreshold(int medicineId) {
+        return thresholds.getOrDefault(medicineId, defaultThreshold);
+    }
+
+    @Override
+    public void medicineAdded(Medicine medicine) { evaluate(medicine); }
+
+    @Override
+    public void medicineUpdated(Medicine medicine) { evaluate(medicine); }
+
+    @Override
+    public void medicineDeleted(int id) {
+        states.remove(id);
+        thresholds.remove(id);
+    }
+
+    public long getRaisedCount() { return raised.sum(); }
+    public long getSuppressedCount() { return suppressed.sum(); } // duplicates and debounced repeats
+    public long getDroppedCount() { return dropped.sum(); }      // queue was full
+
+    @Override
+    public void close() { // deliver what is already queued, then stop
+        if (closed) return;
+        closed = true;
+        try {
+            queue.put(SHUTDOWN);
+            dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void evaluate(Medicine m) { // runs on the writer's thread, so it only decides and enqueues
+        if (closed) return;
+        int threshold = getThreshold(m.getId());
+        boolean low = m.getStock() <= threshold;
+        LocalDate today = LocalDate.now(clock);
+        boolean expiring = m.getExpiryDate() != null && !m.getExpiryDate().isAfter(today.plusDays(expiryWarningDays));
+        long now = clock.millis();
+        AlertState state = states.computeIfAbsent(m.getId(), id -> new AlertState());
+        boolean sendLow = false, sendExpiring = false;
+        synchronized (state) {
+            if (low && !state.lowActive) {
+                state.lowActive = true;
+                if (!recentlySent(state.lowSentAt, now)) {
+                    sendLow = true;
+                    state.lowSentAt = now;
+                } else suppressed.increment(); // flapped back under the threshold too quickly
+            } else if (low) suppressed.increment(); // still low, already reported
+            else state.lowActive = false;
+
+            if (expiring && !state.expiringActive) {
+                state.expiringActive = true;
+                if (!recentlySent(state.expiringSentAt, now)) {
+                    sendExpiring = true;
+                    state.expiringSentAt = now;
+                } else suppressed.increment();
+            } else if (!expiring) state.expiringActive = false;
+        }
+        Instant at = clock.instant();
+        if (sendLow) enqueue(new StockAlert(StockAlert.Type.LOW_STOCK, m.getId(), m.getName(), m.getStock(), threshold, m.getExpiryDate(), at));
+        if (sendExpiring) enqueue(new StockAlert(StockAlert.Type.EXPIRING, m.getId(), m.getName(), m.getStock(), threshold, m.getExpiryDate(), at));
+    }
+
+    private boolean recentlySent(long sentAt, long now) {
+        return sentAt != Long.MIN_VALUE && now - sentAt < debounceMillis;
+    }
+
+    private void enqueue(StockAlert alert) {
+        raised.increment();
+        if (!queue.offer(alert)) dropped.increment(); // never block a DAO write on slow subscribers
+    }
+
+    private void dispatch() {
+        try {
+            while (true) {
+                StockAlert alert = queue.take();
+                if (alert == SHUTDOWN) return;
+                for (AlertListener l : listeners) {
+                    try {
+                        l.onAlert(alert);
+                    } catch (RuntimeException e) {
+                        System.err.println("Alert listener " + l + " failed: " + e.getMessage());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.alerts;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+public record StockAlert(Type type, int medicineId, String name, int stock, int threshold,
+                         LocalDate expiryDate, Instant raisedAt) { // One low-stock or near-expiry notification
+
+    public enum Type { LOW_STOCK, EXPIRING }
+
+    @Override
+    public String toString() {
+        return switch (type) {
+            case LOW_STOCK -> "Low stock: " + name + " (ID " + medicineId + ") -> " + stock + " units left (threshold " + threshold + ")";
+            case EXPIRING -> "Expiring soon: " + name + " (ID " + medicineId + ") on " + expiryDate;
+        };
+    }
+}
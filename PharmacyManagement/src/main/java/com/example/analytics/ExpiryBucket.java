@@ -0,0 +1,4 @@
+package com.example.analytics;
+
+public record ExpiryBucket(int medicines, long units, double value) { // What expires in one month: SKUs, units and their price * stock
+}
@@ -0,0 +1,131 @@
+package com.example.analytics;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+public class InventoryAnalytics { // Valuation and expiry reports over an InventorySnapshot, as parallel fork/join scans
+    private static final int SPLIT_ROWS = 1 << 16; // below this a range is scanned on one thread
+
+    private final InventorySnapshot snapshot;
+    private final ForkJoinPool pool;
+
+    public InventoryAnalytics(InventorySnapshot snapshot) {
+        this(snapshot, ForkJoinPool.commonPool());
+    }
+
+    public InventoryAnalytics(InventorySnapshot snapshot, ForkJoinPool pool) {
+        this.snapshot = snapshot;
+        this.pool = pool;
+    }
+
+    private interface RangeScan<A> { // partial result for rows [from, to), merged pairwise up the fork tree
+        A scan(int from, int to);
+        A merge(A left, A right);
+    }
+
+    public double totalValue() { // sum of price * stock
+        return valueExpiringBetween(Integer.MIN_VALUE, InventorySnapshot.NO_EXPIRY);
+    }
+
+    public double valueAtRisk(LocalDate asOf, int days) { // stock expiring within `days` of asOf, expiry day included
+        return valueExpiringBetween((int) asOf.toEpochDay(), (int) asOf.plusDays(days).toEpochDay());
+    }
+
+    public double expiredValue(LocalDate asOf) { // expiry strictly before asOf
+        return valueExpiringBetween(Integer.MIN_VALUE, (int) asOf.toEpochDay() - 1);
+    }
+
+    public SortedMap<YearMonth, ExpiryBucket> expiringByMonth(YearMonth from, YearMonth to) { // one bucket per month in [from, to], empty months included
+        int months = (int) from.until(to, ChronoUnit.MONTHS) + 1;
+        if (months < 1) throw new IllegalArgumentException(from + " is after " + to);
+        int firstDay = (int) from.atDay(1).toEpochDay();
+        int endDay = (int) to.plusMonths(1).atDay(1).toEpochDay(); // exclusive
+        short[] monthOfDay = new short[endDay - firstDay]; // day offset -> bucket, so the scan does no date math
+        for (int i = 0; i < months; i++) {
+            int start = (int) from.plusMonths(i).atDay(1).toEpochDay() - firstDay;
+            int end = (int) from.plusMonths(i + 1).atDay(1).toEpochDay() - firstDay;
+            Arrays.fill(monthOfDay, start, end, (short) i);
+        }
+        int[] expiry = snapshot.expiryDays, stock = snapshot.stock;
+        double[] prices = snapshot.prices;
+        record Buckets(int[] medicines, long[] units, double[] value) {}
+        Buckets total = scan(new RangeScan<Buckets>() {
+            public Buckets scan(int lo, int hi) {
+                int[] medicines = new int[months];
+                long[] units = new long[months];
+                double[] value = new double[months];
+                for (int row = lo; row < hi; row++) {
+                    int offset = expiry[row] - firstDay;
+                    if (offset < 0 || offset >= monthOfDay.length) continue; // also skips NO_EXPIRY
+                    int i = monthOfDay[offset];
+                    medicines[i]++;
+                    units[i] += stock[row];
+                    value[i] += prices[row] * stock[row];
+                }
+                return new Buckets(medicines, units, value);
+            }
+
+            public Buckets merge(Buckets l, Buckets r) {
+                for (int i = 0; i < months; i++) {
+                    l.medicines()[i] += r.medicines()[i];
+                    l.units()[i] += r.units()[i];
+                    l.value()[i] += r.value()[i];
+                }
+                return l;
+            }
+        });
+        SortedMap<YearMonth, ExpiryBucket> out = new TreeMap<>();
+        for (int i = 0; i < months; i++) out.put(from.plusMonths(i), new ExpiryBucket(total.medicines()[i], total.units()[i], total.value()[i]));
+        return out;
+    }
+
+    private double valueExpiringBetween(int fromDay, int toDay) { // expiry in [fromDay, toDay]
+        int[] expiry = snapshot.expiryDays, stock = snapshot.stock;
+        double[] prices = snapshot.prices;
+        return scan(new RangeScan<Double>() {
+            public Double scan(int lo, int hi) {
+                double sum = 0;
+                for (int row = lo; row < hi; row++) {
+                    int day = expiry[row];
+                    if (day >= fromDay && day <= toDay) sum += prices[row] * stock[row];
+                }
+                return sum;
+            }
+
+            public Double merge(Double l, Double r) {
+                return l + r;
+            }
+        });
+    }
+
+    private <A> A scan(RangeScan<A> scan) {
+        return pool.invoke(new ScanTask<>(scan, 0, snapshot.size()));
+    }
+
+    private static final class ScanTask<A> extends RecursiveTask<A> {
+        private final RangeScan<A> scan;
+        private final int from, to;
+
+        ScanTask(RangeScan<A> scan, int from, int to) {
+            this.scan = scan;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected A compute() {
+            if (to - from <= SPLIT_ROWS) return scan.scan(from, to);
+            int mid = (from + to) >>> 1;
+            ScanTask<A> left = new ScanTask<>(scan, from, mid);
+            left.fork();
+            A right = new ScanTask<>(scan, mid, to).compute();
+            return scan.merge(left.join(), right);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.analytics;
+
+import com.example.dao.MedicineDAO;
+import com.example.model.Medicine;
+import com.example.exceptions.DatabaseOperationException;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+public final class InventorySnapshot { // Read-only copy of the medicines table in primitive columns, one row per medicine in ID order
+    static final int NO_EXPIRY = Integer.MAX_VALUE; // undated rows sort after every real date
+
+    final int[] ids;
+    final double[] prices;
+    final int[] stock;
+    final int[] expiryDays; // epoch day, or NO_EXPIRY
+    final int[] nameCodes;  // index into names
+    private final String[] names; // each distinct name once
+    private final int size;
+
+    private InventorySnapshot(Builder b) {
+        this.size = b.size;
+        this.ids = Arrays.copyOf(b.ids, size);
+        this.prices = Arrays.copyOf(b.prices, size);
+        this.stock = Arrays.copyOf(b.stock, size);
+        this.expiryDays = Arrays.copyOf(b.expiryDays, size);
+        this.nameCodes = Arrays.copyOf(b.nameCodes, size);
+        this.names = b.dictionary.keySet().toArray(new String[0]);
+        b.dictionary.forEach((name, code) -> names[code] = name);
+    }
+
+    public static InventorySnapshot load(MedicineDAO dao) throws DatabaseOperationException { // one pass over the table; each Medicine is garbage right away
+        try (Stream<Medicine> rows = dao.streamMedicines()) {
+            return of(rows.iterator());
+        }
+    }
+
+    public static InventorySnapshot of(Iterator<Medicine> rows) {
+        Builder b = new Builder();
+        while (rows.hasNext()) b.add(rows.next());
+        return new InventorySnapshot(b);
+    }
+
+    public int size() { return size; }
+    public int distinctNames() { return names.length; }
+
+    public int id(int row) { return ids[row]; }
+    public String name(int row) { return names[nameCodes[row]]; }
+    public double price(int row) { return prices[row]; }
+    public int stock(int row) { return stock[row]; }
+
+    public LocalDate expiryDate(int row) {
+        return expiryDays[row] == NO_EXPIRY ? null : LocalDate.ofEpochDay(expiryDays[row]);
+    }
+
+    public long approximateBytes() { // column arrays plus the name dictionary, ignoring object headers
+        long bytes = (long) size * (Integer.BYTES * 4 + Double.BYTES);
+        for (String n : names) bytes += 40 + n.length();
+        return bytes;
+    }
+
+    private static final class Builder {
+        int[] ids = new int[1024];
+        double[] prices = new double[1024];
+        int[] stock = new int[1024];
+        int[] expiryDays = new int[1024];
+        int[] nameCodes = new int[1024];
+        final HashMap<String, Integer> dictionary = new HashMap<>();
+        int size;
+
+        void add(Medicine m) {
+            if (size == ids.length) grow();
+            ids[size] = m.getId();
+            prices[size] = m.getPrice();
+            stock[size] = m.getStock();
+            expiryDays[size] = m.getExpiryDate() == null ? NO_EXPIRY : (int) m.getExpiryDate().toEpochDay();
+            nameCodes[size] = dictionary.computeIfAbsent(m.getName(), k -> dictionary.size());
+            size++;
+        }
+
+        private void grow() {
+            int n = ids.length * 2;
+            ids = Arrays.copyOf(ids, n);
+            prices = Arrays.copyOf(prices, n);
+            stock = Arrays.copyOf(stock, n);
+            expiryDays = Arrays.copyOf(expiryDays, n);
+            nameCodes = Arrays.copyOf(nameCodes, n);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.batch;
+
+import com.example.model.Medicine;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public record BatchCommand(int line, String op, List<String> args) { // One script line: an operation name followed by arguments; "double quotes" group words
+
+    public static BatchCommand parse(int line, String text) { // null for blank lines and # comments; IllegalArgumentException if unreadable
+        String s = text.strip();
+        if (s.isEmpty() || s.startsWith("#")) return null;
+        List<String> words = split(s);
+        return new BatchCommand(line, words.get(0).toLowerCase(Locale.ROOT), List.copyOf(words.subList(1, words.size())));
+    }
+
+    public String arg(int i) {
+        if (i >= args.size()) throw new IllegalArgumentException(op + ": missing argument " + (i + 1));
+        return args.get(i);
+    }
+
+    public int intArg(int i) {
+        try {
+            return Integer.parseInt(arg(i));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(op + ": argument " + (i + 1) + " is not a whole number: " + arg(i));
+        }
+    }
+
+    public long longArg(int i) {
+        try {
+            return Long.parseLong(arg(i));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(op + ": argument " + (i + 1) + " is not a whole number: " + arg(i));
+        }
+    }
+
+    public LocalDate dateArg(int i) { // "-" = no date
+        String v = arg(i);
+        if (v.equals("-")) return null;
+        try {
+            return LocalDate.parse(v);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(op + ": argument " + (i + 1) + " is not a YYYY-MM-DD date: " + v);
+        }
+    }
+
+    public Medicine medicineArgs(int from) { // NAME EXPIRY PRICE STOCK starting at argument from
+        expectArgs(from + 4);
+        Medicine m = new Medicine();
+        m.setName(arg(from));
+        m.setExpiryDate(dateArg(from + 1));
+        try {
+            m.setPrice(Double.parseDouble(arg(from + 2)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(op + ": price is not a number: " + arg(from + 2));
+        }
+        m.setStock(intArg(from + 3));
+        if (m.getPrice() < 0 || m.getStock() < 0) throw new IllegalArgumentException(op + ": negative price or stock");
+        return m;
+    }
+
+    public void expectArgs(int count) {
+        if (args.size() != count)
+            throw new IllegalArgumentException(op + ": expected " + count + " argument" + (count == 1 ? "" : "s") + ", found " + args.size());
+    }
+
+    static List<String> split(String s) { // whitespace-separated words; "" inside quotes is a literal quote
+        List<String> words = new ArrayList<>();
+        StringBuilder cur = new StringBuilder();
+        boolean quoted = false;
+        boolean inWord = false;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < s.length() && s.charAt(i + 1) == '"') {
+                    cur.append('"');
+                    i++;
+                } else if (c == '"') quoted = false;
+                else cur.append(c);
+            } else if (c == '"') {
+                quoted = true;
+                inWord = true;
+            } else if (Character.isWhitespace(c)) {
+                if (inWord) words.add(cur.toString());
+                cur.setLength(0);
+                inWord = false;
+            } else {
+                cur.append(c);
+                inWord = true;
+            }
+        }
+        if (quoted) throw new IllegalArgumentException("unterminated quote");
+        if (inWord) words.add(cur.toString());
+        return words;
+    }
+}
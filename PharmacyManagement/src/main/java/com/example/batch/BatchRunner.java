@@ -0,0 +1,345 @@
+package com.example.batch;
+
+import com.example.dao.MedicineChanges;
+import com.example.dao.MedicineDAO;
+import com.example.exceptions.MedicineNotFoundException;
+import com.example.io.CsvMedicineExporter;
+import com.example.io.CsvMedicineImporter;
+import com.example.io.ImportResult;
+import com.example.model.Medicine;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class BatchRunner implements AutoCloseable { // Headless mode: runs a command script against a MedicineDAO and writes one JSON line per command
+    public static final int WINDOW = 1_000; // commands planned together; also bounds memory on an endless stdin
+    public static final int DEFAULT_LIST_LIMIT = 100;
+    private static final int IMPORT_BATCH_SIZE = 1_000;
+    private static final Set<String> READS = Set.of("get", "list", "expiring", "lowstock", "changes"); // safe to run side by side
+
+    private final MedicineDAO dao;
+    private final int parallelism;
+    private ExecutorService readers; // created on the first run of reads worth spreading out
+
+    private static final class Slot { // one input line and, once run, its result line
+        final int line;
+        final BatchCommand cmd; // null if the line could not be parsed
+        String result;
+        boolean ok;
+
+        Slot(int line, BatchCommand cmd) {
+            this.line = line;
+            this.cmd = cmd;
+        }
+
+        String op() { return cmd == null ? null : cmd.op(); }
+    }
+
+    private record Step(boolean readOnly, Runnable body) {}
+
+    public BatchRunner(MedicineDAO dao, int parallelism) {
+        if (parallelism < 1) throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        this.dao = dao;
+        this.parallelism = parallelism;
+    }
+
+    public BatchSummary run(BufferedReader in, Writer out) throws IOException { // results come out in input order
+        long start = System.nanoTime();
+        int commands = 0, succeeded = 0;
+        List<Slot> window = new ArrayList<>(WINDOW);
+        int lineNo = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNo++;
+            Slot slot;
+            try {
+                BatchCommand cmd = BatchCommand.parse(lineNo, line);
+                if (cmd == null) continue;
+                slot = new Slot(lineNo, cmd);
+            } catch (IllegalArgumentException e) {
+                slot = new Slot(lineNo, null);
+                fail(slot, 0, 1, e);
+            }
+            window.add(slot);
+            if (window.size() == WINDOW || !in.ready()) { // don't sit on commands while a piped producer waits for answers
+                succeeded += runWindow(window, out);
+                commands += window.size();
+                window.clear();
+            }
+        }
+        succeeded += runWindow(window, out);
+        commands += window.size();
+        BatchSummary summary = new BatchSummary(commands, succeeded, commands - succeeded, System.nanoTime() - start);
+        out.write("{\"summary\":true,\"commands\":" + summary.commands() + ",\"ok\":" + summary.succeeded()
+                + ",\"failed\":" + summary.failed() + ",\"ms\":" + millis(summary.elapsedNanos()) + "}\n");
+        out.flush();
+        return summary;
+    }
+
+    @Override
+    public void close() {
+        if (readers != null) readers.shutdown();
+    }
+
+    private int runWindow(List<Slot> window, Writer out) throws IOException { // returns how many commands succeeded
+        List<Step> steps = plan(window);
+        for (int i = 0; i < steps.size(); ) {
+            int j = i;
+            while (j < steps.size() && steps.get(j).readOnly()) j++;
+            if (j - i > 1 && parallelism > 1) { // independent reads: spread them over the pool
+                runParallel(steps.subList(i, j));
+                i = j;
+            } else {
+                steps.get(i++).body().run();
+            }
+        }
+        int ok = 0;
+        for (Slot s : window) {
+            out.write(s.result);
+            out.write('\n');
+            if (s.ok) ok++;
+        }
+        out.flush();
+        return ok;
+    }
+
+    private List<Step> plan(List<Slot> window) { // consecutive get/add/restock commands become one DAO call each
+        List<Step> steps = new ArrayList<>();
+        int i = 0;
+        while (i < window.size()) {
+            Slot s = window.get(i);
+            if (s.result != null) {
+                i++;
+                continue;
+            }
+            String op = s.op();
+            int j = i + 1;
+            if (op.equals("get") || op.equals("add") || op.equals("restock")) {
+                List<Slot> group = new ArrayList<>();
+                group.add(s);
+                for (; j < window.size(); j++) { // lines that failed to parse don't break a run
+                    Slot next = window.get(j);
+                    if (next.result != null) continue;
+                    if (!op.equals(next.op())) break;
+                    group.add(next);
+                }
+                switch (op) {
+                    case "get" -> steps.add(new Step(true, () -> runGets(group)));
+                    case "add" -> steps.add(new Step(false, () -> runAdds(group)));
+                    default -> steps.add(new Step(false, () -> runRestocks(group)));
+                }
+            } else {
+                steps.add(new Step(READS.contains(op), () -> runSingle(s)));
+            }
+            i = j;
+        }
+        return steps;
+    }
+
+    private void runParallel(List<Step> steps) throws IOException {
+        if (readers == null) readers = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread t = new Thread(r, "batch-reader");
+            t.setDaemon(true);
+            return t;
+        });
+        List<Callable<Void>> tasks = new ArrayList<>(steps.size());
+        for (Step step : steps) tasks.add(() -> {
+            step.body().run();
+            return null;
+        });
+        try {
+            readers.invokeAll(tasks); // every body records its own failures, so there is nothing to collect
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while running batch reads");
+        }
+    }
+
+    private void runGets(List<Slot> group) { // one getMedicinesByIds for the whole run
+        long start = System.nanoTime();
+        Map<Slot, Integer> ids = new LinkedHashMap<>();
+        for (Slot s : group) {
+            try {
+                s.cmd.expectArgs(1);
+                ids.put(s, s.cmd.intArg(0));
+            } catch (IllegalArgumentException e) {
+                fail(s, 0, 1, e);
+            }
+        }
+        if (ids.isEmpty()) return;
+        try {
+            Map<Integer, Medicine> found = new HashMap<>();
+            for (Medicine m : dao.getMedicinesByIds(ids.values())) found.put(m.getId(), m);
+            long nanos = System.nanoTime() - start;
+            ids.forEach((s, id) -> {
+                Medicine m = found.get(id);
+                if (m != null) ok(s, nanos, ids.size(), Json.medicine(new StringBuilder(), m));
+                else fail(s, nanos, ids.size(), new MedicineNotFoundException("Medicine with ID " + id + " not found."));
+            });
+        } catch (Exception e) {
+            long nanos = System.nanoTime() - start;
+            for (Slot s : ids.keySet()) fail(s, nanos, ids.size(), e);
+        }
+    }
+
+    private void runAdds(List<Slot> group) { // one addMedicines for the whole run
+        long start = System.nanoTime();
+        List<Slot> slots = new ArrayList<>(group.size());
+        List<Medicine> meds = new ArrayList<>(group.size());
+        for (Slot s : group) {
+            try {
+                meds.add(s.cmd.medicineArgs(0));
+                slots.add(s);
+            } catch (IllegalArgumentException e) {
+                fail(s, 0, 1, e);
+            }
+        }
+        if (meds.isEmpty()) return;
+        Exception failure = null;
+        try {
+            dao.addMedicines(meds);
+        } catch (Exception e) {
+            failure = e;
+        }
+        long nanos = System.nanoTime() - start;
+        for (int i = 0; i < slots.size(); i++) {
+            Medicine m = meds.get(i);
+            if (m.getId() != 0) ok(slots.get(i), nanos, slots.size(), new StringBuilder("{\"id\":").append(m.getId()).append('}'));
+            else fail(slots.get(i), nanos, slots.size(), failure); // rows in chunks committed before a failure keep their IDs
+        }
+    }
+
+    private void runRestocks(List<Slot> group) { // one existence check and one applyStockDeltas for the whole run
+        long start = System.nanoTime();
+        Map<Slot, int[]> parsed = new LinkedHashMap<>(); // {id, quantity}
+        for (Slot s : group) {
+            try {
+                s.cmd.expectArgs(2);
+                int qty = s.cmd.intArg(1);
+                if (qty <= 0) throw new IllegalArgumentException("Quantity must be positive: " + qty);
+                parsed.put(s, new int[]{s.cmd.intArg(0), qty});
+            } catch (IllegalArgumentException e) {
+                fail(s, 0, 1, e);
+            }
+        }
+        if (parsed.isEmpty()) return;
+        try {
+            Set<Integer> ids = new HashSet<>();
+            for (int[] p : parsed.values()) ids.add(p[0]);
+            Set<Integer> existing = new HashSet<>();
+            for (Medicine m : dao.getMedicinesByIds(ids)) existing.add(m.getId());
+            Map<Integer, Integer> deltas = new HashMap<>();
+            for (int[] p : parsed.values()) if (existing.contains(p[0])) deltas.merge(p[0], p[1], Integer::sum);
+            dao.applyStockDeltas(deltas);
+            long nanos = System.nanoTime() - start;
+            parsed.forEach((s, p) -> {
+                if (existing.contains(p[0])) ok(s, nanos, parsed.size(), new StringBuilder("{\"id\":").append(p[0]).append('}'));
+                else fail(s, nanos, parsed.size(), new MedicineNotFoundException("Medicine ID " + p[0] + " not found."));
+            });
+        } catch (Exception e) {
+            long nanos = System.nanoTime() - start;
+            for (Slot s : parsed.keySet()) fail(s, nanos, parsed.size(), e);
+        }
+    }
+
+    private void runSingle(Slot s) {
+        long start = System.nanoTime();
+        BatchCommand c = s.cmd;
+        try {
+            CharSequence result = switch (c.op()) {
+                case "update" -> { // blind overwrite: take the current version so optimistic locking doesn't reject it
+                    c.expectArgs(5);
+                    Medicine m = c.medicineArgs(1);
+                    m.setId(c.intArg(0));
+                    m.setVersion(dao.getMedicineById(m.getId()).getVersion());
+                    dao.updateMedicine(m);
+                    yield null;
+                }
+                case "delete" -> {
+                    c.expectArgs(1);
+                    dao.deleteMedicine(c.intArg(0));
+                    yield null;
+                }
+                case "dispense" -> {
+                    c.expectArgs(2);
+                    dao.dispense(c.intArg(0), c.intArg(1));
+                    yield null;
+                }
+                case "list" -> { // unexpired, soonest expiry first
+                    int limit = c.args().isEmpty() ? DEFAULT_LIST_LIMIT : c.intArg(0);
+                    yield Json.medicines(new StringBuilder(), dao.getMedicinesPage(null, 0, limit));
+                }
+                case "expiring" -> {
+                    c.expectArgs(2);
+                    yield Json.medicines(new StringBuilder(), dao.findExpiringBetween(c.dateArg(0), c.dateArg(1)));
+                }
+                case "lowstock" -> {
+                    c.expectArgs(1);
+                    yield Json.medicines(new StringBuilder(), dao.findLowStock(c.intArg(0)));
+                }
+                case "changes" -> {
+                    c.expectArgs(1);
+                    MedicineChanges changes = dao.getChangesSince(c.longArg(0));
+                    StringBuilder sb = Json.medicines(new StringBuilder("{\"upserts\":"), changes.upserts());
+                    sb.append(",\"deletedIds\":").append(changes.deletedIds().toString().replace(" ", ""));
+                    yield sb.append(",\"nextToken\":").append(changes.nextToken()).append('}');
+                }
+                case "import" -> { // resumable like the menu option; rejects go next to the file
+                    c.expectArgs(1);
+                    Path csv = Path.of(c.arg(0));
+                    ImportResult r = new CsvMedicineImporter(dao, IMPORT_BATCH_SIZE)
+                            .importFile(csv, csv.resolveSibling(csv.getFileName() + ".rejects.csv"), null);
+                    yield "{\"linesRead\":" + r.linesRead() + ",\"imported\":" + r.imported() + ",\"rejected\":" + r.rejected()
+                            + ",\"resumed\":" + r.resumed() + "}";
+                }
+                case "export" -> {
+                    c.expectArgs(1);
+                    yield "{\"rows\":" + new CsvMedicineExporter(dao).exportTo(Path.of(c.arg(0))) + "}";
+                }
+                default -> throw new IllegalArgumentException("unknown command: " + c.op());
+            };
+            ok(s, System.nanoTime() - start, 1, result);
+        } catch (Exception e) {
+            fail(s, System.nanoTime() - start, 1, e);
+        }
+    }
+
+    private static void ok(Slot s, long nanos, int batch, CharSequence result) {
+        StringBuilder sb = head(s, true, nanos, batch);
+        if (result != null) sb.append(",\"result\":").append(result);
+        s.result = sb.append('}').toString();
+        s.ok = true;
+    }
+
+    private static void fail(Slot s, long nanos, int batch, Exception e) {
+        StringBuilder sb = head(s, false, nanos, batch).append(",\"error\":");
+        Json.string(sb, e.getClass().getSimpleName()).append(",\"message\":");
+        s.result = Json.string(sb, e.getMessage()).append('}').toString();
+        s.ok = false;
+    }
+
+    private static StringBuilder head(Slot s, boolean ok, long nanos, int batch) {
+        StringBuilder sb = new StringBuilder(128).append("{\"line\":").append(s.line).append(",\"op\":");
+        Json.string(sb, s.op()).append(",\"ok\":").append(ok).append(",\"ms\":").append(millis(nanos));
+        if (batch > 1) sb.append(",\"batch\":").append(batch); // timing covers the whole batched call
+        return sb;
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+}
@@ -0,0 +1,4 @@
+package com.example.batch;
+
+public record BatchSummary(int commands, int succeeded, int failed, long elapsedNanos) { // Totals for one BatchRunner.run
+}
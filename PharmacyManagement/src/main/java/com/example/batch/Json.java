@@ -0,0 +1,49 @@
+package com.example.batch;
+
+import com.example.model.Medicine;
+
+import java.util.Collection;
+
+final class Json { // Just enough JSON output for BatchRunner's result lines
+    private Json() {}
+
+    static StringBuilder string(StringBuilder sb, String s) {
+        if (s == null) return sb.append("null");
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+                }
+            }
+        }
+        return sb.append('"');
+    }
+
+    static StringBuilder medicine(StringBuilder sb, Medicine m) {
+        sb.append("{\"id\":").append(m.getId()).append(",\"name\":");
+        string(sb, m.getName()).append(",\"expiryDate\":");
+        if (m.getExpiryDate() == null) sb.append("null");
+        else sb.append('"').append(m.getExpiryDate()).append('"');
+        return sb.append(",\"price\":").append(m.getPrice()).append(",\"stock\":").append(m.getStock())
+                .append(",\"version\":").append(m.getVersion()).append('}');
+    }
+
+    static StringBuilder medicines(StringBuilder sb, Collection<Medicine> meds) {
+        sb.append('[');
+        boolean first = true;
+        for (Medicine m : meds) {
+            if (!first) sb.append(',');
+            medicine(sb, m);
+            first = false;
+        }
+        return sb.append(']');
+    }
+}
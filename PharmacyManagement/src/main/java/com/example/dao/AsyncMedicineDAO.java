@@ -0,0 +1,111 @@
+package com.example.dao;
+
+import com.example.model.Medicine;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.*;
+
+public class AsyncMedicineDAO implements AutoCloseable { // Non-blocking facade over a MedicineDAO, one virtual thread per call
+    private final MedicineDAO dao;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore permits; // caps calls in flight so they can't drain the connection pool
+    private final long timeoutMillis; // 0 = no per-call timeout
+    private final int idsPerQuery;
+
+    private interface DaoCall<T> {
+        T call() throws Exception;
+    }
+
+    public AsyncMedicineDAO(MedicineDAO dao, int maxConcurrency, Duration timeout) {
+        this(dao, maxConcurrency, timeout, 100);
+    }
+
+    public AsyncMedicineDAO(MedicineDAO dao, int maxConcurrency, Duration timeout, int idsPerQuery) {
+        if (maxConcurrency < 1) throw new IllegalArgumentException("Concurrency limit must be positive: " + maxConcurrency);
+        if (idsPerQuery < 1) throw new IllegalArgumentException("IDs per query must be positive: " + idsPerQuery);
+        this.dao = dao;
+        this.permits = new Semaphore(maxConcurrency);
+        this.timeoutMillis = timeout == null ? 0 : timeout.toMillis();
+        this.idsPerQuery = idsPerQuery;
+    }
+
+    public CompletableFuture<Medicine> getMedicineById(int id) {
+        return submit(() -> dao.getMedicineById(id));
+    }
+
+    public CompletableFuture<List<Medicine>> getMedicinesByIds(Collection<Integer> ids) { // IN (...) queries of idsPerQuery IDs, run in parallel
+        List<Integer> all = new ArrayList<>(ids);
+        List<CompletableFuture<List<Medicine>>> parts = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += idsPerQuery) {
+            List<Integer> chunk = all.subList(from, Math.min(from + idsPerQuery, all.size()));
+            parts.add(submit(() -> dao.getMedicinesByIds(chunk)));
+        }
+        return CompletableFuture.allOf(parts.toArray(CompletableFuture[]::new)).thenApply(v -> {
+            List<Medicine> found = new ArrayList<>(all.size());
+            for (CompletableFuture<List<Medicine>> part : parts) found.addAll(part.join());
+            return found;
+        });
+    }
+
+    public CompletableFuture<List<Medicine>> findLowStock(int threshold) {
+        return submit(() -> dao.findLowStock(threshold));
+    }
+
+    public CompletableFuture<Void> addMedicine(Medicine medicine) {
+        return submit(() -> { dao.addMedicine(medicine); return null; });
+    }
+
+    public CompletableFuture<Void> updateMedicine(Medicine medicine) {
+        return submit(() -> { dao.updateMedicine(medicine); return null; });
+    }
+
+    public CompletableFuture<Void> deleteMedicine(int id) {
+        return submit(() -> { dao.deleteMedicine(id); return null; });
+    }
+
+    public CompletableFuture<Void> dispense(int id, int quantity) {
+        return submit(() -> { dao.dispense(id, quantity); return null; });
+    }
+
+    public CompletableFuture<Void> restock(int id, int quantity) {
+        return submit(() -> { dao.restock(id, quantity); return null; });
+    }
+
+    public int availablePermits() { return permits.availablePermits(); }
+
+    @Override
+    public void close() { // waits for calls already submitted
+        executor.close();
+    }
+
+    private <T> CompletableFuture<T> submit(DaoCall<T> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        Future<?> task = executor.submit(() -> {
+            boolean acquired = false;
+            try {
+                if (timeoutMillis == 0) {
+                    permits.acquire();
+                    acquired = true;
+                } else {
+                    acquired = permits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (!acquired) throw new TimeoutException("No free slot within " + timeoutMillis + " ms");
+                }
+                if (!result.isDone()) result.complete(call.call()); // skip the call if the caller has already timed out
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            } finally {
+                if (acquired) permits.release();
+            }
+        });
+        if (timeoutMillis == 0) return result;
+        // A timed-out call is abandoned, not interrupted: interrupting a thread inside a JDBC driver can break its
+        // connection. The call runs to completion (or the driver's own query timeout) and keeps its permit until then.
+        return result.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS).whenComplete((r, e) -> {
+            if (e instanceof TimeoutException) task.cancel(false); // only stops a call that hasn't started
+        });
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.dao;
+
+public record CacheStats(long hits, long misses, long evictions, int size) { // Snapshot of CachingMedicineDAO counters
+
+    public double hitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d misses=%d hitRate=%.1f%% evictions=%d size=%d",
+                hits, misses, hitRate() * 100, evictions, size);
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.dao;
+
+import com.example.model.Medicine;
+import com.example.exceptions.DatabaseOperationException;
+import com.example.exceptions.InsufficientStockException;
+import com.example.exceptions.MedicineNotFoundException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+public class CachingMedicineDAO extends ForwardingMedicineDAO { // Read-through LRU cache for getMedicineById
+    private final int maxSize;
+    private final long ttlNanos; // 0 = entries never expire
+    private final Object lock = new Object();
+    private final LinkedHashMap<Integer, Entry> entries; // access order, eldest = least recently used
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private long generation; // bumped on every invalidation, guarded by lock
+
+    private record Entry(Medicine value, long expiresAt) {}
+
+    public CachingMedicineDAO(MedicineDAO delegate, int maxSize) {
+        this(delegate, maxSize, null);
+    }
+
+    public CachingMedicineDAO(MedicineDAO delegate, int maxSize, Duration ttl) {
+        super(delegate);
+        if (maxSize < 1) throw new IllegalArgumentException("Cache size must be positive: " + maxSize);
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl == null ? 0 : ttl.toNanos();
+        this.entries = new LinkedHashMap<>(Math.min(maxSize, 1024) * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                if (size() <= CachingMedicineDAO.this.maxSize) return false;
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    @Override
+    public Medicine getMedicineById(int id) throws MedicineNotFoundException, DatabaseOperationException {
+        long seen;
+        synchronized (lock) {
+            Entry e = entries.get(id);
+            if (e != null && (ttlNanos == 0 || System.nanoTime() - e.expiresAt() < 0)) {
+                hits.increment();
+                return new Medicine(e.value()); // callers may mutate what they get back
+            }
+            if (e != null) entries.remove(id); // expired
+            seen = generation;
+        }
+        misses.increment();
+        Medicine loaded = delegate.getMedicineById(id); // outside the lock so slow lookups don't block hits
+        synchronized (lock) {
+            if (generation == seen) store(loaded); // skip if a write raced with the load
+        }
+        return loaded;
+    }
+
+    @Override
+    public List<Medicine> getMedicinesByIds(Collection<Integer> ids) throws DatabaseOperationException { // hits from memory, one query for the misses
+        List<Medicine> found = new ArrayList<>(ids.size());
+        List<Integer> missing = new ArrayList<>();
+        long seen;
+        synchronized (lock) {
+            long now = System.nanoTime();
+            for (Integer id : ids) {
+                Entry e = entries.get(id);
+                if (e != null && (ttlNanos == 0 || now - e.expiresAt() < 0)) {
+                    hits.increment();
+                    found.add(new Medicine(e.value()));
+                } else {
+                    if (e != null) entries.remove(id);
+                    missing.add(id);
+                }
+            }
+            seen = generation;
+        }
+        if (missing.isEmpty()) return found;
+        misses.add(missing.size());
+        List<Medicine> loaded = delegate.getMedicinesByIds(missing);
+        synchronized (lock) {
+            if (generation == seen) for (Medicine m : loaded) store(m);
+        }
+        found.addAll(loaded);
+        return found;
+    }
+
+    @Override
+    public void addMedicine(Medicine medicine) throws DatabaseOperationException {
+        delegate.addMedicine(medicine);
+        synchronized (lock) {
+            store(medicine);
+        }
+    }
+
+    @Override
+    public int addMedicines(Collection<Medicine> medicines) throws DatabaseOperationException {
+        try {
+            return delegate.addMedicines(medicines);
+        } finally {
+            synchronized (lock) {
+                for (Medicine m : medicines) if (m.getId() != 0) store(m); // IDs are only set on committed chunks
+            }
+        }
+    }
+
+    @Override
+    public int upsertMedicines(Collection<Medicine> medicines) throws DatabaseOperationException {
+        try {
+            return delegate.upsertMedicines(medicines);
+        } finally {
+            synchronized (lock) {
+                generation++;
+                for (Medicine m : medicines) entries.remove(m.getId()); // merged rows may carry a new version
+            }
+        }
+    }
+
+    @Override
+    public void updateMedicine(Medicine medicine) throws MedicineNotFoundException, DatabaseOperationException {
+        try {
+            delegate.updateMedicine(medicine);
+        } finally {
+            invalidate(medicine.getId()); // even on failure, the row may have changed
+        }
+    }
+
+    @Override
+    public void deleteMedicine(int id) throws MedicineNotFoundException, DatabaseOperationException {
+        try {
+            delegate.deleteMedicine(id);
+        } finally {
+            invalidate(id);
+        }
+    }
+
+    @Override
+    public void dispense(int id, int quantity) throws MedicineNotFoundException, InsufficientStockException, DatabaseOperationException {
+        try {
+            delegate.dispense(id, quantity);
+        } finally {
+            invalidate(id);
+        }
+    }
+
+    @Override
+    public void restock(int id, int quantity) throws MedicineNotFoundException, DatabaseOperationException {
+        try {
+            delegate.restock(id, quantity);
+        } finally {
+            invalidate(id);
+        }
+    }
+
+    @Override
+    public Set<Integer> applyStockDeltas(Map<Integer, Integer> deltas) throws DatabaseOperationException {
+        try {
+            return delegate.applyStockDeltas(deltas);
+        } finally {
+            synchronized (lock) {
+                generation++;
+                for (Integer id : deltas.keySet()) entries.remove(id);
+            }
+        }
+    }
+
+    public void invalidate(int id) {
+        synchronized (lock) {
+            generation++;
+            entries.remove(id);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (lock) {
+            generation++;
+            entries.clear();
+        }
+    }
+
+    public CacheStats getStats() {
+        synchronized (lock) {
+            return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), entries.size());
+        }
+    }
+
+    private void store(Medicine m) { // caller holds lock
+        entries.put(m.getId(), new Entry(new Medicine(m), System.nanoTime() + ttlNanos));
+    }
+}
@@ -0,0 +1,719 @@
+package com.example.dao;
+
+import com.example.exceptions.DatabaseOperationException;
+import com.example.exceptions.InsufficientStockException;
+import com.example.exceptions.MedicineNotFoundException;
+import com.example.exceptions.StaleMedicineException;
+import com.example.model.Medicine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class FileMedicineDAO implements MedicineDAO, AutoCloseable { // Embedded store for offline branches: rows live in memory, writes go to a checksummed append-only log
+    static final String LOG_FILE = "medicines.log";
+    static final String SNAPSHOT_FILE = "medicines.snapshot";
+    private static final String LOCK_FILE = "medicines.lock";
+    private static final long SNAPSHOT_MAGIC = 0x50484d534e415031L; // "PHMSNAP1"
+    private static final int SNAPSHOT_HEADER_BYTES = 28; // magic, next ID, next change sequence, row count, tombstone count
+    private static final long NO_EXPIRY = Integer.MAX_VALUE; // sorts undated rows last, like NULLS LAST
+    private static final int STREAM_CHUNK = 1_000; // rows copied per read-lock hold while streaming
+    public static final long DEFAULT_COMPACT_BYTES = 64L << 20;
+
+    private final Path dir;
+    private final FileChannel lockChannel;
+    private final FileLock fileLock;
+    private final FileChannel log;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final HashMap<Integer, Row> byId = new HashMap<>(); // point reads
+    private final TreeMap<Long, Row> byExpiry = new TreeMap<>(); // (expiry day, id), mirrors idx_medicines_expiry
+    private final TreeMap<Long, Row> byStock = new TreeMap<>(); // (stock, id)
+    private final TreeMap<Long, Row> byChange = new TreeMap<>(); // change sequence, for getChangesSince
+    private final TreeMap<Long, Integer> tombstones = new TreeMap<>(); // change sequence -> deleted ID
+    private final HashMap<Integer, Long> tombstoneSeq = new HashMap<>(); // deleted ID -> its key in tombstones
+    private ByteBuffer out = ByteBuffer.allocate(4096); // encode buffer, guarded by the write lock
+    private int nextId = 1;
+    private long nextSeq = 1;
+    private long logBytes;
+    private long compactBytes = DEFAULT_COMPACT_BYTES;
+    private volatile boolean syncWrites = true;
+    private volatile boolean optimisticLocking;
+    private boolean closed;
+
+    private static final class Row extends Medicine { // what the maps hold; callers only ever see plain copies
+        final long changeSeq;
+
+        Row(Medicine m, long changeSeq) {
+            super(m);
+            this.changeSeq = changeSeq;
+        }
+    }
+
+    public FileMedicineDAO(Path dir) throws DatabaseOperationException { // loads the snapshot, replays the log and takes an exclusive lock on dir
+        this.dir = dir;
+        FileChannel lc = null;
+        FileChannel lg = null;
+        try {
+            Files.createDirectories(dir);
+            lc = FileChannel.open(dir.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock fl;
+            try {
+                fl = lc.tryLock();
+            } catch (OverlappingFileLockException e) {
+                fl = null;
+            }
+            if (fl == null) throw new DatabaseOperationException("Medicine store " + dir + " is already open in another process.");
+            lockChannel = lc;
+            fileLock = fl;
+            loadSnapshot();
+            lg = FileChannel.open(dir.resolve(LOG_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            logBytes = replayLog(lg);
+            log = lg;
+            buildIndexes();
+        } catch (IOException e) {
+            closeQuietly(lg);
+            closeQuietly(lc);
+            throw new DatabaseOperationException("Error opening medicine store " + dir + ": " + e.getMessage(), e);
+        } catch (DatabaseOperationException | RuntimeException e) {
+            closeQuietly(lg);
+            closeQuietly(lc);
+            throw e;
+        }
+    }
+
+    public Path getDirectory() { return dir; }
+
+    public boolean isSyncWrites() { return syncWrites; }
+    public void setSyncWrites(boolean syncWrites) { this.syncWrites = syncWrites; } // false = leave flushing to the OS; a crash may lose the latest writes
+
+    public long getCompactBytes() { return compactBytes; }
+    public void setCompactBytes(long compactBytes) { // log size that triggers a snapshot
+        if (compactBytes < 1) throw new IllegalArgumentException("Compaction threshold must be positive: " + compactBytes);
+        lock.writeLock().lock();
+        try {
+            this.compactBytes = compactBytes;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isOptimisticLocking() { return optimisticLocking; }
+    public void setOptimisticLocking(boolean optimisticLocking) { // updateMedicine fails with StaleMedicineException if the row's version moved
+        this.optimisticLocking = optimisticLocking;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return byId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getLogBytes() {
+        lock.readLock().lock();
+        try {
+            return logBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void addMedicine(Medicine med) throws DatabaseOperationException {
+        requireName(med, "Error adding medicine");
+        lock.writeLock().lock();
+        try {
+            beginWrite();
+            Row row = new Row(med, nextSeq);
+            row.setId(nextId);
+            row.setVersion(0);
+            out = MedicineRecords.appendPut(out, MedicineRecords.ADD, row, row.changeSeq);
+            append("Error adding medicine");
+            put(row);
+            med.setId(row.getId());
+        } finally {
+            lock.writeLock().unlock();
+        }
+        compactIfDue();
+    }
+
+    @Override
+    public int addMedicines(Collection<Medicine> meds) throws DatabaseOperationException { // one append and one sync for the whole batch
+        if (meds.isEmpty()) return 0;
+        for (Medicine med : meds) requireName(med, "Error adding medicines after 0 rows");
+        lock.writeLock().lock();
+        try {
+            beginWrite();
+            List<Row> rows = new ArrayList<>(meds.size());
+            int id = nextId;
+            long seq = nextSeq;
+            for (Medicine med : meds) {
+                Row row = new Row(med, seq++);
+                row.setId(id++);
+                row.setVersion(0);
+                out = MedicineRecords.appendPut(out, MedicineRecords.ADD, row, row.changeSeq);
+                rows.add(row);
+            }
+            append("Error adding medicines after 0 rows");
+            Iterator<Medicine> it = meds.iterator();
+            for (Row row : rows) {
+                put(row);
+                it.next().setId(row.getId()); // only once the rows are durable
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        compactIfDue();
+        return meds.size();
+    }
+
+    @Override
+    public int upsertMedicines(Collection<Medicine> meds) throws DatabaseOperationException { // rows with an ID replace that row, rows without one are inserted
+        if (meds.isEmpty()) return 0;
+        for (Medicine med : meds) requireName(med, "Error upserting medicines");
+        lock.writeLock().lock();
+        try {
+            for (Medicine med : meds) {
+                if (med.getId() >= nextId) // as with the database, an ID the store hasn't reached yet is refused
+                    throw new IllegalArgumentException("Medicine ID " + med.getId() + " was never issued by this store; import the row without an ID.");
+            }
+            beginWrite();
+            Map<Integer, Row> staged = new TreeMap<>(); // later rows with the same ID win, as with MERGE
+            List<Medicine> inserts = new ArrayList<>();
+            int id = nextId;
+            long seq = nextSeq;
+            for (Medicine med : meds) {
+                Row row = new Row(med, seq++);
+                if (med.getId() == 0) {
+                    row.setId(id++);
+                    row.setVersion(0);
+                    inserts.add(med);
+                } else {
+                    Medicine current = staged.containsKey(med.getId()) ? staged.get(med.getId()) : byId.get(med.getId());
+                    row.setVersion(current == null ? 0 : current.getVersion() + 1);
+                }
+                staged.put(row.getId(), row);
+                out = MedicineRecords.appendPut(out, byId.containsKey(row.getId()) ? MedicineRecords.UPDATE : MedicineRecords.ADD, row, row.changeSeq);
+            }
+            append("Error upserting medicines");
+            for (Row row : staged.values()) put(row);
+            int assigned = id - inserts.size();
+            for (Medicine med : inserts) med.setId(assigned++);
+            nextId = id;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        compactIfDue();
+        return meds.size();
+    }
+
+    @Override
+    public Medicine getMedicineById(int id) throws MedicineNotFoundException { // served from memory
+        lock.readLock().lock();
+        try {
+            Medicine m = byId.get(id);
+            if (m == null) throw new MedicineNotFoundException("Medicine with ID " + id + " not found.");
+            return new Medicine(m);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Medicine> getMedicinesByIds(Collection<Integer> ids) {
+        List<Medicine> found = new ArrayList<>(ids.size());
+        lock.readLock().lock();
+        try {
+            for (Integer id : new LinkedHashSet<>(ids)) {
+                Medicine m = byId.get(id);
+                if (m != null) found.add(new Medicine(m));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return found;
+    }
+
+    @Override
+    public ArrayList<Medicine> getAllMedicines() { // unexpired medicines, soonest expiry first
+        lock.readLock().lock();
+        try {
+            return copy(byExpiry.tailMap(expiryKey(LocalDate.now(), 0), true), Integer.MAX_VALUE);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Stream<Medicine> streamMedicines() { // walks the ID index a chunk at a time, so writers are never blocked for long
+        Spliterator<Medicine> rows = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            private int[] ids; // the IDs present when the stream started; rows deleted since are skipped
+            private int next;
+            private Iterator<Medicine> chunk = Collections.emptyIterator();
+
+            @Override
+            public boolean tryAdvance(Consumer<? super Medicine> action) {
+                if (ids == null) ids = sortedIds();
+                while (!chunk.hasNext()) {
+                    if (next == ids.length) return false;
+                    int end = Math.min(next + STREAM_CHUNK, ids.length);
+                    chunk = rows(ids, next, end).iterator();
+                    next = end;
+                }
+                action.accept(chunk.next());
+                return true;
+            }
+        };
+        return StreamSupport.stream(rows, false);
+    }
+
+    private int[] sortedIds() {
+        int[] ids;
+        lock.readLock().lock();
+        try {
+            ids = new int[byId.size()];
+            int i = 0;
+            for (Integer id : byId.keySet()) ids[i++] = id;
+        } finally {
+            lock.readLock().unlock();
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    private List<Medicine> rows(int[] ids, int from, int to) {
+        List<Medicine> rows = new ArrayList<>(to - from);
+        lock.readLock().lock();
+        try {
+            for (int i = from; i < to; i++) {
+                Medicine m = byId.get(ids[i]);
+                if (m != null) rows.add(new Medicine(m));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return rows;
+    }
+
+    @Override
+    public List<Medicine> getMedicinesPage(LocalDate afterExpiry, int afterId, int limit) { // same keyset order as MedicineDAOImpl
+        if (limit < 1) return new ArrayList<>();
+        long from = expiryKey(LocalDate.now(), 0);
+        if (afterExpiry != null) from = Math.max(from, expiryKey(afterExpiry, afterId) + 1);
+        else if (afterId > 0) from = (NO_EXPIRY << 32) | (afterId + 1L); // undated rows only
+        lock.readLock().lock();
+        try {
+            return copy(byExpiry.tailMap(from, true), limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Medicine> findExpiringBetween(LocalDate from, LocalDate to) { // inclusive range
+        if (to.isBefore(from)) return new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            return copy(byExpiry.subMap(expiryKey(from, 0), true, expiryKey(to.plusDays(1), 0), false), Integer.MAX_VALUE);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Medicine> findLowStock(int threshold) { // stock <= threshold, lowest first
+        lock.readLock().lock();
+        try {
+            return copy(byStock.headMap(((long) threshold + 1) << 32, false), Integer.MAX_VALUE);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void updateMedicine(Medicine med) throws MedicineNotFoundException, DatabaseOperationException {
+        requireName(med, "Error updating medicine");
+        boolean locking = optimisticLocking;
+        lock.writeLock().lock();
+        try {
+            beginWrite();
+            Medicine current = byId.get(med.getId());
+            if (current == null) throw new MedicineNotFoundException("Medicine ID " + med.getId() + " not found.");
+            if (locking && current.getVersion() != med.getVersion())
+                throw new StaleMedicineException("Medicine ID " + med.getId() + " was changed by someone else; reload and retry.");
+            Row row = new Row(med, nextSeq);
+            row.setVersion(current.getVersion() + 1);
+            out = MedicineRecords.appendPut(out, MedicineRecords.UPDATE, row, row.changeSeq);
+            append("Error updating medicine");
+            put(row);
+            if (locking) med.setVersion(row.getVersion());
+        } finally {
+            lock.writeLock().unlock();
+        }
+        compactIfDue();
+    }
+
+    @Override
+    public void deleteMedicine(int id) throws MedicineNotFoundException, DatabaseOperationException {
+        lock.writeLock().lock();
+        try {
+            beginWrite();
+            if (!byId.containsKey(id)) throw new MedicineNotFoundException("Medicine ID " + id + " not found.");
+            out = MedicineRecords.appendDelete(out, id, nextSeq);
+            append("Error deleting medicine");
+            remove(id, nextSeq);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        compactIfDue();
+    }
+
+    @Override
+    public void dispense(int id, int quantity) throws MedicineNotFoundException, InsufficientStockException, DatabaseOperationException {
+        if (quantity <= 0) throw new IllegalArgumentException("Quantity must be positive: " + quantity);
+        lock.writeLock().lock();
+        try {
+            beginWrite();
+            Medicine current = byId.get(id);
+            if (current == null) throw new MedicineNotFoundException("Medicine ID " + id + " not found.");
+            if (current.getStock() < quantity) throw new InsufficientStockException(id, quantity, current.getStock());
+            writeStock(current, current.getStock() - quantity, "Error dispensing medicine");
+        } finally {
+            lock.writeLock().unlock();
+        }
+        compactIfDue();
+    }
+
+    @Override
+    public void restock(int id, int quantity) throws MedicineNotFoundException, DatabaseOperationException {
+        if (quantity <= 0) throw new IllegalArgumentException("Quantity must be positive: " + quantity);
+        lock.writeLock().lock();
+        try {
+            beginWrite();
+            Medicine current = byId.get(id);
+            if (current == null) throw new MedicineNotFoundException("Medicine ID " + id + " not found.");
+            writeStock(current, current.getStock() + quantity, "Error restocking medicine");
+        } finally {
+            lock.writeLock().unlock();
+        }
+        compactIfDue();
+    }
+
+    @Override
+    public Set<Integer> applyStockDeltas(Map<Integer, Integer> deltas) throws DatabaseOperationException { // one append and one sync for all rows
+        Set<Integer> changed = new HashSet<>();
+        if (deltas.isEmpty()) return changed;
+        lock.writeLock().lock();
+        try {
+            beginWrite();
+            List<Row> rows = new ArrayList<>(deltas.size());
+            long seq = nextSeq;
+            for (Map.Entry<Integer, Integer> d : new TreeMap<>(deltas).entrySet()) {
+                Medicine current = byId.get(d.getKey());
+                if (current == null || d.getValue() == 0 || current.getStock() + d.getValue() < 0) continue;
+                Row row = new Row(current, seq++);
+                row.setStock(current.getStock() + d.getValue());
+                row.setVersion(current.getVersion() + 1);
+                out = MedicineRecords.appendPut(out, MedicineRecords.UPDATE, row, row.changeSeq);
+                rows.add(row);
+            }
+            if (rows.isEmpty()) return changed;
+            append("Error applying stock changes");
+            for (Row row : rows) {
+                put(row);
+                changed.add(row.getId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        compactIfDue();
+        return changed;
+    }
+
+    @Override
+    public MedicineChanges getChangesSince(long token) { // every write takes its sequence number under the write lock, so nothing can commit behind the token
+        lock.readLock().lock();
+        try {
+            List<Medicine> upserts = copy(byChange.tailMap(token, false), Integer.MAX_VALUE);
+            NavigableMap<Long, Integer> deleted = tombstones.tailMap(token, false);
+            long next = token;
+            if (!upserts.isEmpty()) next = byChange.lastKey();
+            if (!deleted.isEmpty()) next = Math.max(next, deleted.lastKey());
+            return new MedicineChanges(upserts, new ArrayList<>(deleted.values()), next);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void compact() throws DatabaseOperationException { // writes every live row to a new snapshot, then empties the log
+        lock.writeLock().lock();
+        try {
+            beginWrite();
+            writeSnapshot();
+            log.truncate(0); // a crash before this line only means the old log is replayed over the new snapshot, which is harmless
+            log.force(true);
+            logBytes = 0;
+        } catch (IOException e) {
+            throw new DatabaseOperationException("Error compacting medicine store: " + e.getMessage(), e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws DatabaseOperationException { // compacts so the next start only has to map the snapshot
+        lock.writeLock().lock();
+        try {
+            if (closed) return;
+            try {
+                if (logBytes > 0) compact();
+            } finally {
+                closed = true;
+                closeQuietly(log);
+                closeQuietly(lockChannel); // also releases fileLock
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void writeStock(Medicine current, int stock, String what) throws DatabaseOperationException { // caller holds the write lock
+        Row row = new Row(current, nextSeq);
+        row.setStock(stock);
+        row.setVersion(current.getVersion() + 1);
+        out = MedicineRecords.appendPut(out, MedicineRecords.UPDATE, row, row.changeSeq);
+        append(what);
+        put(row);
+    }
+
+    private void append(String what) throws DatabaseOperationException { // writes the encoded records at the end of the log; caller holds the write lock
+        out.flip();
+        int length = out.remaining();
+        try {
+            long pos = logBytes;
+            while (out.hasRemaining()) pos += log.write(out, pos);
+            if (syncWrites) log.force(false);
+            logBytes += length;
+        } catch (IOException e) {
+            try {
+                log.truncate(logBytes); // drop a partial record so later appends stay readable
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw new DatabaseOperationException(what + ": " + e.getMessage(), e);
+        } finally {
+            out.clear();
+        }
+    }
+
+    private void compactIfDue() throws DatabaseOperationException {
+        boolean due;
+        lock.readLock().lock();
+        try {
+            due = !closed && logBytes >= compactBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (due) compact();
+    }
+
+    private void put(Row row) { // caller holds the write lock
+        Row old = byId.put(row.getId(), row);
+        if (old != null) {
+            byExpiry.remove(expiryKey(old));
+            byStock.remove(stockKey(old));
+            byChange.remove(old.changeSeq);
+        }
+        byExpiry.put(expiryKey(row), row);
+        byStock.put(stockKey(row), row);
+        byChange.put(row.changeSeq, row);
+        clearTombstone(row.getId());
+        advance(row.getId(), row.changeSeq);
+    }
+
+    private void remove(int id, long changeSeq) {
+        Row old = byId.remove(id);
+        if (old != null) {
+            byExpiry.remove(expiryKey(old));
+            byStock.remove(stockKey(old));
+            byChange.remove(old.changeSeq);
+        }
+        addTombstone(id, changeSeq);
+        advance(id, changeSeq);
+    }
+
+    private void addTombstone(int id, long changeSeq) {
+        clearTombstone(id);
+        tombstones.put(changeSeq, id);
+        tombstoneSeq.put(id, changeSeq);
+    }
+
+    private void clearTombstone(int id) { // an upsert can bring a deleted ID back
+        Long seq = tombstoneSeq.remove(id);
+        if (seq != null) tombstones.remove(seq);
+    }
+
+    private void advance(int id, long changeSeq) {
+        if (id >= nextId) nextId = id + 1;
+        if (changeSeq >= nextSeq) nextSeq = changeSeq + 1;
+    }
+
+    private final MedicineRecords.Visitor loader = new MedicineRecords.Visitor() { // start-up only fills byId; buildIndexes does the rest
+        @Override
+        public void put(Medicine m, long changeSeq) {
+            Row row = new Row(m, changeSeq);
+            byId.put(row.getId(), row);
+            clearTombstone(row.getId());
+            advance(row.getId(), changeSeq);
+        }
+
+        @Override
+        public void delete(int id, long changeSeq) {
+            byId.remove(id);
+            addTombstone(id, changeSeq);
+            advance(id, changeSeq);
+        }
+    };
+
+    private void buildIndexes() { // one put per row and index once start-up has settled which rows survive
+        for (Row row : byId.values()) {
+            byExpiry.put(expiryKey(row), row);
+            byStock.put(stockKey(row), row);
+            byChange.put(row.changeSeq, row);
+        }
+    }
+
+    private void loadSnapshot() throws IOException, DatabaseOperationException {
+        Path file = dir.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(file)) return;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer data = readFully(ch, file);
+            if (data.remaining() < SNAPSHOT_HEADER_BYTES || data.getLong() != SNAPSHOT_MAGIC)
+                throw new DatabaseOperationException("Medicine store snapshot " + file + " is not a snapshot file.");
+            int snapshotNextId = data.getInt();
+            long snapshotNextSeq = data.getLong();
+            int rows = data.getInt();
+            int deleted = data.getInt();
+            MedicineRecords.replay(data, loader);
+            if (byId.size() != rows || tombstones.size() != deleted || data.hasRemaining()) // snapshots are written whole and renamed, so anything short is real damage
+                throw new DatabaseOperationException("Medicine store snapshot " + file + " is damaged: read " + byId.size() + " of " + rows
+                        + " rows and " + tombstones.size() + " of " + deleted + " tombstones.");
+            nextId = Math.max(nextId, snapshotNextId);
+            nextSeq = Math.max(nextSeq, snapshotNextSeq);
+        }
+    }
+
+    private long replayLog(FileChannel ch) throws IOException {
+        long size = ch.size();
+        if (size == 0) return 0;
+        ByteBuffer data = readFully(ch, dir.resolve(LOG_FILE));
+        int valid = MedicineRecords.replay(data, loader);
+        if (valid < size) { // a crash mid-append leaves a torn record at the end; everything before it is intact
+            System.err.println("Medicine store " + dir + ": dropping " + (size - valid) + " unreadable bytes at the end of " + LOG_FILE);
+            ch.truncate(valid);
+            ch.force(true);
+        }
+        return valid;
+    }
+
+    private static ByteBuffer readFully(FileChannel ch, Path file) throws IOException { // a heap copy, not a mapping: Windows can't truncate or replace a file while it is mapped
+        long size = ch.size();
+        if (size > Integer.MAX_VALUE - 8) throw new IOException(file + " is too large to load: " + size + " bytes");
+        ByteBuffer data = ByteBuffer.allocate((int) size);
+        while (data.hasRemaining()) {
+            if (ch.read(data, data.position()) < 0) throw new IOException(file + " shrank while it was being read");
+        }
+        return data.flip();
+    }
+
+    private void writeSnapshot() throws IOException { // caller holds the write lock
+        Path tmp = dir.resolve(SNAPSHOT_FILE + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.allocate(1 << 20);
+            buf.putLong(SNAPSHOT_MAGIC).putInt(nextId).putLong(nextSeq).putInt(byId.size()).putInt(tombstones.size());
+            for (Row row : byChange.values()) { // change order, so start-up can build byChange without sorting
+                buf = MedicineRecords.appendPut(buf, MedicineRecords.ADD, row, row.changeSeq);
+                if (buf.position() >= 1 << 20) buf = drain(ch, buf);
+            }
+            for (Map.Entry<Long, Integer> t : tombstones.entrySet()) {
+                buf = MedicineRecords.appendDelete(buf, t.getValue(), t.getKey());
+                if (buf.position() >= 1 << 20) buf = drain(ch, buf);
+            }
+            drain(ch, buf);
+            ch.force(true);
+        }
+        Files.move(tmp, dir.resolve(SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static ByteBuffer drain(FileChannel ch, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) ch.write(buf);
+        return buf.clear();
+    }
+
+    private void beginWrite() throws DatabaseOperationException { // caller holds the write lock
+        if (closed) throw new DatabaseOperationException("Medicine store " + dir + " is closed.");
+        out.clear(); // drop anything a failed encode left behind
+    }
+
+    private static void requireName(Medicine med, String what) throws DatabaseOperationException { // the name column is NOT NULL
+        if (med.getName() == null) throw new DatabaseOperationException(what + ": name must not be null");
+    }
+
+    private static ArrayList<Medicine> copy(NavigableMap<Long, Row> rows, int limit) {
+        ArrayList<Medicine> list = new ArrayList<>(Math.min(limit, rows.size()));
+        for (Medicine m : rows.values()) {
+            if (list.size() == limit) break;
+            list.add(new Medicine(m));
+        }
+        return list;
+    }
+
+    private static long expiryKey(Medicine m) {
+        return m.getExpiryDate() == null ? (NO_EXPIRY << 32) | m.getId() : expiryKey(m.getExpiryDate(), m.getId());
+    }
+
+    private static long expiryKey(LocalDate day, int id) {
+        return (day.toEpochDay() << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    private static long stockKey(Medicine m) {
+        return ((long) m.getStock() << 32) | (m.getId() & 0xFFFFFFFFL);
+    }
+
+    private static void closeQuietly(AutoCloseable c) {
+        if (c != null) {
+            try { c.close(); } catch (Exception e) { /* ignore */ }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.dao;
+
+import com.example.model.Medicine;
+import com.example.exceptions.DatabaseOperationException;
+import com.example.exceptions.InsufficientStockException;
+import com.example.exceptions.MedicineNotFoundException;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public abstract class ForwardingMedicineDAO implements MedicineDAO { // Base for decorators: forwards every call, subclasses override what they change
+    protected final MedicineDAO delegate;
+
+    protected ForwardingMedicineDAO(MedicineDAO delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void addMedicine(Medicine medicine) throws DatabaseOperationException {
+        delegate.addMedicine(medicine);
+    }
+
+    @Override
+    public int addMedicines(Collection<Medicine> medicines) throws DatabaseOperationException {
+        return delegate.addMedicines(medicines);
+    }
+
+    @Override
+    public int upsertMedicines(Collection<Medicine> medicines) throws DatabaseOperationException {
+        return delegate.upsertMedicines(medicines);
+    }
+
+    @Override
+    public Medicine getMedicineById(int id) throws MedicineNotFoundException, DatabaseOperationException {
+        return delegate.getMedicineById(id);
+    }
+
+    @Override
+    public List<Medicine> getMedicinesByIds(Collection<Integer> ids) throws DatabaseOperationException {
+        return delegate.getMedicinesByIds(ids);
+    }
+
+    @Override
+    public ArrayList<Medicine> getAllMedicines() throws DatabaseOperationException {
+        return delegate.getAllMedicines();
+    }
+
+    @Override
+    public Stream<Medicine> streamMedicines() throws DatabaseOperationException {
+        return delegate.streamMedicines();
+    }
+
+    @Override
+    public List<Medicine> getMedicinesPage(LocalDate afterExpiry, int afterId, int limit) throws DatabaseOperationException {
+        return delegate.getMedicinesPage(afterExpiry, afterId, limit);
+    }
+
+    @Override
+    public List<Medicine> findExpiringBetween(LocalDate from, LocalDate to) throws DatabaseOperationException {
+        return delegate.findExpiringBetween(from, to);
+    }
+
+    @Override
+    public List<Medicine> findLowStock(int threshold) throws DatabaseOperationException {
+        return delegate.findLowStock(threshold);
+    }
+
+    @Override
+    public void updateMedicine(Medicine medicine) throws MedicineNotFoundException, DatabaseOperationException {
+        delegate.updateMedicine(medicine);
+    }
+
+    @Override
+    public void deleteMedicine(int id) throws MedicineNotFoundException, DatabaseOperationException {
+        delegate.deleteMedicine(id);
+    }
+
+    @Override
+    public void dispense(int id, int quantity) throws MedicineNotFoundException, InsufficientStockException, DatabaseOperationException {
+        delegate.dispense(id, quantity);
+    }
+
+    @Override
+    public void restock(int id, int quantity) throws MedicineNotFoundException, DatabaseOperationException {
+        delegate.restock(id, quantity);
+    }
+
+    @Override
+    public Set<Integer> applyStockDeltas(Map<Integer, Integer> deltas) throws DatabaseOperationException {
+        return delegate.applyStockDeltas(deltas);
+    }
+
+    @Override
+    public MedicineChanges getChangesSince(long token) throws DatabaseOperationException {
+        return delegate.getChangesSince(token);
+    }
+}
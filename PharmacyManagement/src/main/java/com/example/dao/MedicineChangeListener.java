@@ -0,0 +1,9 @@
+package com.example.dao;
+
+import com.example.model.Medicine;
+
+public interface MedicineChangeListener { // Notified by ObservableMedicineDAO after a write succeeds
+    void medicineAdded(Medicine medicine);
+    void medicineUpdated(Medicine medicine);
+    void medicineDeleted(int id);
+}
@@ -2,13 +2,31 @@ package com.example.dao;
 
 import com.example.model.Medicine;
 import com.example.exceptions.DatabaseOperationException;
+import com.example.exceptions.InsufficientStockException;
 import com.example.exceptions.MedicineNotFoundException;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public interface MedicineDAO { // Data Access Object interface for Medicine
     void addMedicine(Medicine medicine) throws DatabaseOperationException;
+    int addMedicines(Collection<Medicine> medicines) throws DatabaseOperationException; // bulk insert, fills in generated IDs
+    int upsertMedicines(Collection<Medicine> medicines) throws DatabaseOperationException; // one transaction: rows with an ID are merged by ID, rows without one are inserted; IDs the store never issued are refused
     Medicine getMedicineById(int id) throws MedicineNotFoundException, DatabaseOperationException;
+    List<Medicine> getMedicinesByIds(Collection<Integer> ids) throws DatabaseOperationException; // rows that exist, in no particular order
     ArrayList<Medicine> getAllMedicines() throws DatabaseOperationException;
+    Stream<Medicine> streamMedicines() throws DatabaseOperationException; // every row (expired too) in ID order; close the stream when done
+    List<Medicine> getMedicinesPage(LocalDate afterExpiry, int afterId, int limit) throws DatabaseOperationException; // next page of getAllMedicines order; pass the last row's expiry/ID, (null, 0) for the first page
+    List<Medicine> findExpiringBetween(LocalDate from, LocalDate to) throws DatabaseOperationException; // expiry in [from, to], soonest first
+    List<Medicine> findLowStock(int threshold) throws DatabaseOperationException; // stock <= threshold, lowest first
     void updateMedicine(Medicine medicine) throws MedicineNotFoundException, DatabaseOperationException;
     void deleteMedicine(int id) throws MedicineNotFoundException, DatabaseOperationException;
+    void dispense(int id, int quantity) throws MedicineNotFoundException, InsufficientStockException, DatabaseOperationException; // atomic stock -= quantity
+    void restock(int id, int quantity) throws MedicineNotFoundException, DatabaseOperationException; // atomic stock += quantity
+    Set<Integer> applyStockDeltas(Map<Integer, Integer> deltas) throws DatabaseOperationException; // stock += delta per ID in one transaction; unknown IDs and deltas that would take stock below zero are skipped, returns the IDs changed
+    MedicineChanges getChangesSince(long token) throws DatabaseOperationException; // rows added/updated and IDs deleted after token, oldest change first; 0 = everything
 }
\ No newline at end of file
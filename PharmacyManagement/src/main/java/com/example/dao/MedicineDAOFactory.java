@@ -0,0 +1,88 @@
+package com.example.dao;
+
+import com.example.exceptions.DatabaseOperationException;
+import com.example.util.ConnectionPool;
+import com.example.util.DBConnection;
+import com.example.util.PoolConfig;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+public final class MedicineDAOFactory { // Builds the storage backend named by pharmacy.dao.backend: jdbc (default), file or sharded
+    public static final String BACKEND = "pharmacy.dao.backend";
+    public static final String FILE_DIR = "pharmacy.dao.file.dir";
+    public static final String FILE_SYNC_WRITES = "pharmacy.dao.file.syncWrites";
+    public static final String OPTIMISTIC_LOCKING = "pharmacy.dao.optimisticLocking";
+    public static final String SHARDS = "pharmacy.dao.shards"; // store IDs, e.g. 1,2,7; each store's database is pharmacy.shard.<id>.db.*
+    public static final String HOME_STORE = "pharmacy.dao.shards.home"; // where this app adds new medicines
+
+    private MedicineDAOFactory() {}
+
+    public static MedicineDAO create() throws DatabaseOperationException { // settings from db.properties and -D overrides
+        return create(DBConnection.loadProperties());
+    }
+
+    public static MedicineDAO create(Properties props) throws DatabaseOperationException {
+        String backend = props.getProperty(BACKEND, "jdbc").trim().toLowerCase(Locale.ROOT);
+        boolean optimisticLocking = Boolean.parseBoolean(props.getProperty(OPTIMISTIC_LOCKING, "false").trim());
+        switch (backend) {
+            case "jdbc" -> {
+                MedicineDAOImpl dao = new MedicineDAOImpl(); // the pool itself is only created on first use
+                dao.setOptimisticLocking(optimisticLocking);
+                return dao;
+            }
+            case "file" -> {
+                FileMedicineDAO dao = new FileMedicineDAO(Path.of(props.getProperty(FILE_DIR, "pharmacy-data").trim()));
+                dao.setSyncWrites(Boolean.parseBoolean(props.getProperty(FILE_SYNC_WRITES, "true").trim()));
+                dao.setOptimisticLocking(optimisticLocking);
+                return dao;
+            }
+            case "sharded" -> {
+                return createSharded(props, optimisticLocking);
+            }
+            default -> throw new IllegalArgumentException("Unknown " + BACKEND + ": " + backend + " (expected jdbc, file or sharded)");
+        }
+    }
+
+    private static ShardedMedicineDAO createSharded(Properties props, boolean optimisticLocking) throws DatabaseOperationException {
+        String list = props.getProperty(SHARDS, "").trim();
+        if (list.isEmpty()) throw new IllegalArgumentException(SHARDS + " must list the store IDs for the sharded backend");
+        String home = props.getProperty(HOME_STORE, "").trim();
+        if (home.isEmpty()) throw new IllegalArgumentException(HOME_STORE + " must name the store new medicines are added to");
+        Map<Integer, MedicineDAO> shards = new TreeMap<>();
+        List<ConnectionPool> pools = new ArrayList<>();
+        try {
+            for (String part : list.split(",")) {
+                int storeId = Integer.parseInt(part.trim());
+                if (shards.containsKey(storeId)) throw new IllegalArgumentException("Store " + storeId + " is listed twice in " + SHARDS);
+                ConnectionPool pool = DBConnection.createPool(PoolConfig.fromProperties(storeProperties(props, storeId)));
+                pools.add(pool);
+                MedicineDAOImpl dao = new MedicineDAOImpl(pool);
+                dao.setOptimisticLocking(optimisticLocking);
+                shards.put(storeId, dao);
+            }
+            return new ShardedMedicineDAO(shards, Integer.parseInt(home), pools);
+        } catch (SQLException e) {
+            pools.forEach(ConnectionPool::close);
+            throw new DatabaseOperationException("Could not open a store database: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            pools.forEach(ConnectionPool::close);
+            throw e;
+        }
+    }
+
+    static Properties storeProperties(Properties props, int storeId) { // pharmacy.shard.<id>.db.* laid over the shared pharmacy.db.* settings
+        String prefix = "pharmacy.shard." + storeId + ".";
+        Properties out = new Properties();
+        out.putAll(props);
+        for (String key : props.stringPropertyNames())
+            if (key.startsWith(prefix)) out.setProperty("pharmacy." + key.substring(prefix.length()), props.getProperty(key));
+        return out;
+    }
+}
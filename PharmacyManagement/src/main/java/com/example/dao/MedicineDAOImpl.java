@@ -3,21 +3,139 @@ package com.example.dao;
 import com.example.model.Medicine;
 import com.example.util.DBConnection;
 import com.example.exceptions.DatabaseOperationException;
+import com.example.exceptions.InsufficientStockException;
 import com.example.exceptions.MedicineNotFoundException;
+import com.example.exceptions.StaleMedicineException;
+import com.example.exceptions.UncheckedDatabaseException;
 
+import javax.sql.DataSource;
 import java.sql.*;
 import java.sql.Date;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class MedicineDAOImpl implements MedicineDAO {
+    private static final String STAMP = "change_seq = medicines_change_seq.NEXTVAL, last_modified = SYSTIMESTAMP"; // feeds getChangesSince; an instant, so DST changes can't reorder stamps
+    private static final String INSERT_SQL = "INSERT INTO medicines (name, expiry_date, price, stock, change_seq, last_modified)"
+            + " VALUES (?, ?, ?, ?, medicines_change_seq.NEXTVAL, SYSTIMESTAMP)";
+    private static final String[] GENERATED_ID = {"MEDICINE_ID"};
+    private static final String MERGE_SQL = "MERGE INTO medicines m USING (SELECT CAST(? AS NUMBER(10)) AS medicine_id,"
+            + " CAST(? AS VARCHAR2(255)) AS name, CAST(? AS DATE) AS expiry_date, CAST(? AS NUMBER(10, 2)) AS price,"
+            + " CAST(? AS NUMBER(10)) AS stock FROM DUAL) s ON (m.medicine_id = s.medicine_id)"
+            + " WHEN MATCHED THEN UPDATE SET m.name = s.name, m.expiry_date = s.expiry_date, m.price = s.price,"
+            + " m.stock = s.stock, m.version = m.version + 1,"
+            + " m.change_seq = medicines_change_seq.NEXTVAL, m.last_modified = SYSTIMESTAMP"
+            + " WHEN NOT MATCHED THEN INSERT (medicine_id, name, expiry_date, price, stock, change_seq, last_modified)"
+            + " VALUES (s.medicine_id, s.name, s.expiry_date, s.price, s.stock, medicines_change_seq.NEXTVAL, SYSTIMESTAMP)";
+    private static final String MAX_ID_SQL = "SELECT GREATEST(NVL(MAX(medicine_id), 0), (SELECT NVL(MAX(medicine_id), 0) FROM medicine_tombstones))"
+            + " FROM medicines"; // highest ID ever used, deleted ones included
+    private static final String STOCK_DELTA_SQL = "UPDATE medicines SET stock = stock + ?, version = version + 1, " + STAMP + " WHERE medicine_id = ? AND stock + ? >= 0";
+    private static final String DISPENSE_SQL = "UPDATE medicines SET stock = stock - ?, version = version + 1, " + STAMP + " WHERE medicine_id = ? AND stock >= ?";
+    private static final String UPDATE_SQL = "UPDATE medicines SET name=?, expiry_date=?, price=?, stock=?, version=version+1, " + STAMP + " WHERE medicine_id=?";
+    private static final String TOMBSTONE_SQL = "MERGE INTO medicine_tombstones t USING (SELECT CAST(? AS NUMBER(10)) AS medicine_id FROM DUAL) s"
+            + " ON (t.medicine_id = s.medicine_id)"
+            + " WHEN MATCHED THEN UPDATE SET t.change_seq = medicines_change_seq.NEXTVAL, t.deleted_at = SYSTIMESTAMP"
+            + " WHEN NOT MATCHED THEN INSERT (medicine_id, change_seq, deleted_at) VALUES (s.medicine_id, medicines_change_seq.NEXTVAL, SYSTIMESTAMP)";
+    private static final String UNTOMBSTONE_SQL = "DELETE FROM medicine_tombstones WHERE medicine_id = ?"; // an upsert brought the ID back
+    private static final String SETTLED = "SYSTIMESTAMP - INTERVAL '0.001' SECOND * CAST(? AS NUMBER(19))"; // now minus the lag in milliseconds
+    private static final String CHANGES_SQL = "SELECT medicine_id, name, expiry_date, price, stock, version, change_seq, 0 AS deleted"
+            + " FROM medicines WHERE change_seq > ? AND last_modified <= " + SETTLED
+            + " UNION ALL SELECT medicine_id, NULL, NULL, NULL, NULL, NULL, change_seq, 1 FROM medicine_tombstones"
+            + " WHERE change_seq > ? AND deleted_at <= " + SETTLED
+            + " ORDER BY change_seq"; // one statement, so both tables are cut off at the same instant
+    private static final String LISTING_SQL = "SELECT * FROM medicines WHERE expiry_date >= ? OR expiry_date IS NULL"
+            + " ORDER BY expiry_date NULLS LAST, medicine_id";
+    private static final String LISTING_ORDER = " ORDER BY expiry_date NULLS LAST, medicine_id FETCH FIRST ? ROWS ONLY";
+    private static final String PAGE_FIRST_SQL = LISTING_SQL + " FETCH FIRST ? ROWS ONLY";
+    private static final String PAGE_AFTER_DATED_SQL = "SELECT * FROM medicines WHERE (expiry_date >= ? AND (expiry_date > ?"
+            + " OR (expiry_date = ? AND medicine_id > ?))) OR expiry_date IS NULL" + LISTING_ORDER;
+    private static final String PAGE_AFTER_UNDATED_SQL = "SELECT * FROM medicines WHERE expiry_date IS NULL AND medicine_id > ?" + LISTING_ORDER;
+    private static final Statements TRACKED = new Statements(true, INSERT_SQL, MERGE_SQL, UPDATE_SQL, STOCK_DELTA_SQL, DISPENSE_SQL, MAX_ID_SQL);
+    private static final Statements UNTRACKED = new Statements(false, // a schema without db/upgrade.sql: no versions, no change feed
+            "INSERT INTO medicines (name, expiry_date, price, stock) VALUES (?, ?, ?, ?)",
+            "MERGE INTO medicines m USING (SELECT CAST(? AS NUMBER(10)) AS medicine_id,"
+                    + " CAST(? AS VARCHAR2(255)) AS name, CAST(? AS DATE) AS expiry_date, CAST(? AS NUMBER(10, 2)) AS price,"
+                    + " CAST(? AS NUMBER(10)) AS stock FROM DUAL) s ON (m.medicine_id = s.medicine_id)"
+                    + " WHEN MATCHED THEN UPDATE SET m.name = s.name, m.expiry_date = s.expiry_date, m.price = s.price, m.stock = s.stock"
+                    + " WHEN NOT MATCHED THEN INSERT (medicine_id, name, expiry_date, price, stock)"
+                    + " VALUES (s.medicine_id, s.name, s.expiry_date, s.price, s.stock)",
+            "UPDATE medicines SET name=?, expiry_date=?, price=?, stock=? WHERE medicine_id=?",
+            "UPDATE medicines SET stock = stock + ? WHERE medicine_id = ? AND stock + ? >= 0",
+            "UPDATE medicines SET stock = stock - ? WHERE medicine_id = ? AND stock >= ?",
+            "SELECT NVL(MAX(medicine_id), 0) FROM medicines"); // deleted IDs are forgotten, so only the live ones count
+    private static final int MAX_IN_LIST = 1000; // Oracle's limit on IN list expressions (ORA-01795)
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    public static final int DEFAULT_FETCH_SIZE = 500;
+    public static final long DEFAULT_CHANGE_FEED_LAG_MILLIS = 2_000;
 
-    private Medicine extractFromResultSet(ResultSet rs) throws SQLException { // method to map ResultSet to Medicine object
+    private final DataSource dataSource;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private int fetchSize = DEFAULT_FETCH_SIZE;
+    private boolean optimisticLocking;
+    private long changeFeedLagMillis = DEFAULT_CHANGE_FEED_LAG_MILLIS;
+    private volatile Statements statements; // picked on first use from the columns the table has
+
+    private record Statements(boolean tracked, String insert, String merge, String update, String stockDelta, String dispense, String maxId) {}
+
+    public MedicineDAOImpl() { // uses the shared pool from DBConnection
+        this(null);
+    }
+
+    public MedicineDAOImpl(DataSource dataSource) { // e.g. a separate pool or an embedded database
+        this.dataSource = dataSource;
+    }
+
+    public int getBatchSize() { return batchSize; }
+    public void setBatchSize(int batchSize) { // rows per JDBC batch and per transaction in addMedicines
+        if (batchSize < 1) throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        this.batchSize = batchSize;
+    }
+
+    public int getFetchSize() { return fetchSize; }
+    public void setFetchSize(int fetchSize) { // rows per network round trip when streaming
+        if (fetchSize < 1) throw new IllegalArgumentException("Fetch size must be positive: " + fetchSize);
+        this.fetchSize = fetchSize;
+    }
+
+    public boolean isOptimisticLocking() { return optimisticLocking; }
+    public void setOptimisticLocking(boolean optimisticLocking) { // updateMedicine fails with StaleMedicineException if the row's version moved
+        this.optimisticLocking = optimisticLocking;
+    }
+
+    public long getChangeFeedLagMillis() { return changeFeedLagMillis; }
+    public void setChangeFeedLagMillis(long changeFeedLagMillis) { // how long getChangesSince waits before reporting a change; see getChangesSince
+        if (changeFeedLagMillis < 0) throw new IllegalArgumentException("Change feed lag must not be negative: " + changeFeedLagMillis);
+        this.changeFeedLagMillis = changeFeedLagMillis;
+    }
+
+    private Connection getConnection() throws SQLException {
+        return dataSource != null ? dataSource.getConnection() : DBConnection.getConnection();
+    }
+
+    private Statements statements(Connection conn) throws SQLException { // a restart picks up a schema upgraded in the meantime
+        Statements s = statements;
+        if (s == null) {
+            Set<String> columns = new HashSet<>();
+            try (Statement st = conn.createStatement();
+                 ResultSet rs = st.executeQuery("SELECT * FROM medicines WHERE 1 = 0")) {
+                ResultSetMetaData md = rs.getMetaData();
+                for (int i = 1; i <= md.getColumnCount(); i++) columns.add(md.getColumnName(i).toUpperCase(Locale.ROOT));
+            }
+            statements = s = columns.containsAll(Set.of("VERSION", "CHANGE_SEQ", "LAST_MODIFIED")) ? TRACKED : UNTRACKED;
+        }
+        return s;
+    }
+
+    private static Medicine extractFromResultSet(ResultSet rs, Statements s) throws SQLException { // method to map ResultSet to Medicine object
         Medicine med = new Medicine();
         med.setId(rs.getInt("medicine_id"));
         med.setName(rs.getString("name"));
         med.setPrice(rs.getDouble("price"));
         med.setStock(rs.getInt("stock"));
+        if (s.tracked()) med.setVersion(rs.getInt("version"));
         Date sqlDate = rs.getDate("expiry_date");
         if (sqlDate != null) med.setExpiryDate(sqlDate.toLocalDate());
         return med;
@@ -25,36 +143,138 @@ public class MedicineDAOImpl implements MedicineDAO {
 
     @Override
     public void addMedicine(Medicine med) throws DatabaseOperationException { // add new medicine to DB
-        String sql = "INSERT INTO medicines (name, expiry_date, price, stock) VALUES (?, ?, ?, ?)";
-        try (Connection conn = DBConnection.getConnection(); // try-with-resources for auto-closing
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setString(1, med.getName());
-            ps.setDate(2, med.getExpiryDate() != null ? Date.valueOf(med.getExpiryDate()) : null);
-            ps.setDouble(3, med.getPrice());
-            ps.setInt(4, med.getStock());
+        try (Connection conn = getConnection(); // try-with-resources for auto-closing
+             PreparedStatement ps = conn.prepareStatement(statements(conn).insert(), GENERATED_ID)) {
+            bindInsert(ps, med);
             ps.executeUpdate();
+            try (ResultSet rs = ps.getGeneratedKeys()) { // ID assigned by the identity column
+                if (rs.next()) med.setId(rs.getInt(1));
+            }
+        } catch (SQLException e) {
+            throw new DatabaseOperationException("Error adding medicine: " + e.getMessage(), e);
+        }
+    }
 
-                try (Statement stmt = conn.createStatement(); // get the generated ID
-                 ResultSet rs = stmt.executeQuery("SELECT MAX(medicine_id) FROM medicines")) {
-                if (rs.next()) {
-                    med.setId(rs.getInt(1));
+    @Override
+    public int addMedicines(Collection<Medicine> meds) throws DatabaseOperationException { // batched insert, one transaction per chunk of batchSize rows
+        if (meds.isEmpty()) return 0;
+        int inserted = 0;
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(statements(conn).insert(), GENERATED_ID)) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                List<Medicine> chunk = new ArrayList<>(Math.min(batchSize, meds.size()));
+                for (Medicine med : meds) {
+                    bindInsert(ps, med);
+                    ps.addBatch();
+                    chunk.add(med);
+                    if (chunk.size() == batchSize) inserted += flushInsertBatch(conn, ps, chunk);
                 }
+                if (!chunk.isEmpty()) inserted += flushInsertBatch(conn, ps, chunk);
+            } catch (SQLException e) {
+                conn.rollback(); // only the failing chunk; earlier chunks stay committed
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
             }
+            return inserted;
+        } catch (SQLException e) {
+            throw new DatabaseOperationException("Error adding medicines after " + inserted + " rows: " + e.getMessage(), e);
+        }
+    }
+
+    private int flushInsertBatch(Connection conn, PreparedStatement ps, List<Medicine> chunk) throws SQLException {
+        ps.executeBatch();
+        int[] ids = new int[chunk.size()];
+        int n = 0;
+        try (ResultSet rs = ps.getGeneratedKeys()) { // keys come back in batch order
+            while (rs.next() && n < ids.length) ids[n++] = rs.getInt(1);
+        }
+        if (n != ids.length) throw new SQLException("Driver returned " + n + " generated keys for " + ids.length + " rows.");
+        conn.commit();
+        for (int i = 0; i < ids.length; i++) chunk.get(i).setId(ids[i]); // only once the rows are durable
+        int size = chunk.size();
+        chunk.clear();
+        return size;
+    }
 
+    @Override
+    public int upsertMedicines(Collection<Medicine> meds) throws DatabaseOperationException { // MERGE by ID plus batched inserts, committed together
+        if (meds.isEmpty()) return 0;
+        List<Medicine> inserts = new ArrayList<>();
+        int maxId = 0;
+        for (Medicine med : meds) maxId = Math.max(maxId, med.getId());
+        try (Connection conn = getConnection();
+             PreparedStatement merge = conn.prepareStatement(statements(conn).merge());
+             PreparedStatement untombstone = statements(conn).tracked() ? conn.prepareStatement(UNTOMBSTONE_SQL) : null;
+             PreparedStatement insert = conn.prepareStatement(statements(conn).insert(), GENERATED_ID)) {
+            if (maxId > 0) requireIssued(conn, statements(conn), maxId);
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                boolean anyMerge = false;
+                for (Medicine med : meds) {
+                    if (med.getId() == 0) {
+                        bindInsert(insert, med);
+                        insert.addBatch();
+                        inserts.add(med);
+                    } else {
+                        merge.setInt(1, med.getId());
+                        merge.setString(2, med.getName());
+                        merge.setDate(3, med.getExpiryDate() != null ? Date.valueOf(med.getExpiryDate()) : null);
+                        merge.setDouble(4, med.getPrice());
+                        merge.setInt(5, med.getStock());
+                        merge.addBatch();
+                        if (untombstone != null) {
+                            untombstone.setInt(1, med.getId());
+                            untombstone.addBatch();
+                        }
+                        anyMerge = true;
+                    }
+                }
+                if (anyMerge) {
+                    merge.executeBatch();
+                    if (untombstone != null) untombstone.executeBatch();
+                }
+                if (inserts.isEmpty()) conn.commit();
+                else flushInsertBatch(conn, insert, inserts); // commits and assigns the generated IDs
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+            return meds.size();
         } catch (SQLException e) {
-            throw new DatabaseOperationException("Error adding medicine: " + e.getMessage(), e);
+            throw new DatabaseOperationException("Error upserting medicines: " + e.getMessage(), e);
+        }
+    }
+
+    private static void requireIssued(Connection conn, Statements s, int maxId) throws SQLException { // explicit IDs don't advance the identity column, so one it hasn't reached yet would collide later
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery(s.maxId())) {
+            long issued = rs.next() ? rs.getLong(1) : 0;
+            if (maxId > issued) // every ID up to the highest one ever used is behind the identity column
+                throw new IllegalArgumentException("Medicine ID " + maxId + " was never issued by this database; import the row without an ID.");
         }
     }
 
+    private void bindInsert(PreparedStatement ps, Medicine med) throws SQLException {
+        ps.setString(1, med.getName());
+        ps.setDate(2, med.getExpiryDate() != null ? Date.valueOf(med.getExpiryDate()) : null);
+        ps.setDouble(3, med.getPrice());
+        ps.setInt(4, med.getStock());
+    }
+
     @Override
     public Medicine getMedicineById(int id) throws MedicineNotFoundException, DatabaseOperationException { // fetch medicine by ID
         String sql = "SELECT * FROM medicines WHERE medicine_id=?";
-        try (Connection conn = DBConnection.getConnection();
+        try (Connection conn = getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) { // prepared statement to prevent SQL injection
             ps.setInt(1, id);
             try (ResultSet rs = ps.executeQuery()) { // execute query and get result set
-                if (rs.next()) return extractFromResultSet(rs);
+                if (rs.next()) return extractFromResultSet(rs, statements(conn));
                 else throw new MedicineNotFoundException("Medicine with ID " + id + " not found.");
             }
         } catch (SQLException e) {
@@ -63,71 +283,285 @@ public class MedicineDAOImpl implements MedicineDAO {
     }
 
     @Override
-    public ArrayList<Medicine> getAllMedicines() throws DatabaseOperationException {// fetch all medicines
-        ArrayList<Medicine> list = new ArrayList<>();
-        String sql = "SELECT * FROM medicines";
-        try (Connection conn = DBConnection.getConnection();
-             Statement st = conn.createStatement();
-             ResultSet rs = st.executeQuery(sql)) {
-            while (rs.next()) list.add(extractFromResultSet(rs));
-        } catch (SQLException e) {
-            throw new DatabaseOperationException("Error fetching medicines: " + e.getMessage(), e);
+    public List<Medicine> getMedicinesByIds(Collection<Integer> ids) throws DatabaseOperationException { // one IN (...) query per chunk
+        List<Integer> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        List<Medicine> found = new ArrayList<>(distinct.size());
+        for (int from = 0; from < distinct.size(); from += MAX_IN_LIST) {
+            List<Integer> chunk = distinct.subList(from, Math.min(from + MAX_IN_LIST, distinct.size()));
+            int slots = Math.min(Integer.highestOneBit(chunk.size() * 2 - 1), MAX_IN_LIST); // a few fixed shapes keep the statement cache warm
+            String sql = "SELECT * FROM medicines WHERE medicine_id IN (" + "?,".repeat(slots - 1) + "?)";
+            found.addAll(query(sql, "medicines by ID", ps -> {
+                for (int i = 0; i < slots; i++) ps.setInt(i + 1, chunk.get(Math.min(i, chunk.size() - 1))); // pad by repeating the last ID
+            }));
         }
+        return found;
+    }
 
-            TreeSet<Medicine> sorted = new TreeSet<>( // sort by expiry date, then by ID
-                Comparator.comparing(Medicine::getExpiryDate)
-                        .thenComparing(Medicine::getId)
-        );
-        sorted.addAll(list);
+    @Override
+    public ArrayList<Medicine> getAllMedicines() throws DatabaseOperationException {// fetch unexpired medicines, soonest expiry first
+        return query(LISTING_SQL, "medicines", ps -> ps.setDate(1, Date.valueOf(LocalDate.now())));
+    }
 
-        // Remove expired items
-        LocalDate today = LocalDate.now();
-        sorted.removeIf(m -> m.getExpiryDate() != null && m.getExpiryDate().isBefore(today)); // remove expired
+    @Override
+    public List<Medicine> findExpiringBetween(LocalDate from, LocalDate to) throws DatabaseOperationException { // inclusive range, served by the expiry index
+        return query("SELECT * FROM medicines WHERE expiry_date BETWEEN ? AND ? ORDER BY expiry_date, medicine_id",
+                "expiring medicines", ps -> {
+                    ps.setDate(1, Date.valueOf(from));
+                    ps.setDate(2, Date.valueOf(to));
+                });
+    }
 
-        // Detect low stock (<=5), but KEEP them in results
-        HashMap<String, Integer> lowStockMap = new HashMap<>();
-        for (Medicine m : sorted) {
-            if (m.getStock() <= 5) {
-                lowStockMap.put(m.getName(), m.getStock());
-            }
-        }
+    @Override
+    public List<Medicine> findLowStock(int threshold) throws DatabaseOperationException { // stock <= threshold, lowest first
+        return query("SELECT * FROM medicines WHERE stock <= ? ORDER BY stock, medicine_id",
+                "low-stock medicines", ps -> ps.setInt(1, threshold));
+    }
 
-        if (!lowStockMap.isEmpty()) { // Print low stock warnings
-            System.out.println("\n Low Stock Medicines:");
-            lowStockMap.forEach((k, v) -> System.out.println(k + " -> " + v + " units left"));
+    @Override
+    public Stream<Medicine> streamMedicines() throws DatabaseOperationException { // lazily reads the cursor; resources are released on close()
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        Statements s;
+        try {
+            conn = getConnection();
+            s = statements(conn);
+            ps = conn.prepareStatement("SELECT * FROM medicines ORDER BY medicine_id");
+            ps.setFetchSize(fetchSize);
+            rs = ps.executeQuery();
+        } catch (SQLException e) {
+            closeQuietly(rs, ps, conn);
+            throw new DatabaseOperationException("Error streaming medicines: " + e.getMessage(), e);
         }
+        Connection c = conn;
+        PreparedStatement st = ps;
+        ResultSet cursor = rs;
+        Spliterator<Medicine> rows = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Medicine> action) {
+                try {
+                    if (!cursor.next()) return false;
+                    action.accept(extractFromResultSet(cursor, s));
+                    return true;
+                } catch (SQLException e) {
+                    throw new UncheckedDatabaseException("Error streaming medicines: " + e.getMessage(), e);
+                }
+            }
+        };
+        return StreamSupport.stream(rows, false).onClose(() -> closeQuietly(cursor, st, c));
+    }
 
-
-        return new ArrayList<>(sorted);
+    @Override
+    public List<Medicine> getMedicinesPage(LocalDate afterExpiry, int afterId, int limit) throws DatabaseOperationException { // keyset pagination, no OFFSET scans
+        String sql = afterExpiry != null ? PAGE_AFTER_DATED_SQL : afterId > 0 ? PAGE_AFTER_UNDATED_SQL : PAGE_FIRST_SQL;
+        Date today = Date.valueOf(LocalDate.now());
+        return query(sql, "medicines page", ps -> {
+            int i = 1;
+            if (afterExpiry != null) {
+                ps.setDate(i++, today);
+                ps.setDate(i++, Date.valueOf(afterExpiry));
+                ps.setDate(i++, Date.valueOf(afterExpiry));
+                ps.setInt(i++, afterId);
+            } else if (afterId > 0) {
+                ps.setInt(i++, afterId); // already into the undated rows, which sort last
+            } else {
+                ps.setDate(i++, today);
+            }
+            ps.setInt(i, limit);
+        });
     }
 
     @Override
     public void updateMedicine(Medicine med) throws MedicineNotFoundException, DatabaseOperationException { // update existing medicine
-        String sql = "UPDATE medicines SET name=?, expiry_date=?, price=?, stock=? WHERE medicine_id=?";
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(updateSql(conn))) {
             ps.setString(1, med.getName());
             ps.setDate(2, med.getExpiryDate() != null ? Date.valueOf(med.getExpiryDate()) : null);
             ps.setDouble(3, med.getPrice());
             ps.setInt(4, med.getStock());
             ps.setInt(5, med.getId());
+            if (optimisticLocking) ps.setInt(6, med.getVersion());
             int rows = ps.executeUpdate();
-            if (rows == 0) throw new MedicineNotFoundException("Medicine ID " + med.getId() + " not found."); // if no rows affected, ID not found
+            if (rows == 0) {
+                if (optimisticLocking && currentStock(conn, med.getId()) != null) // row exists, so its version moved on
+                    throw new StaleMedicineException("Medicine ID " + med.getId() + " was changed by someone else; reload and retry.");
+                throw new MedicineNotFoundException("Medicine ID " + med.getId() + " not found."); // if no rows affected, ID not found
+            }
+            if (optimisticLocking) med.setVersion(med.getVersion() + 1);
         } catch (SQLException e) {
             throw new DatabaseOperationException("Error updating medicine: " + e.getMessage(), e);
         }
     }
 
+    private String updateSql(Connection conn) throws SQLException, DatabaseOperationException {
+        Statements s = statements(conn);
+        if (!optimisticLocking) return s.update();
+        if (!s.tracked()) throw new DatabaseOperationException("Optimistic locking needs the version column; apply db/upgrade.sql first.");
+        return s.update() + " AND version=?";
+    }
+
     @Override
-    public void deleteMedicine(int id) throws MedicineNotFoundException, DatabaseOperationException { // delete medicine by ID
+    public void deleteMedicine(int id) throws MedicineNotFoundException, DatabaseOperationException { // delete medicine by ID, leaving a tombstone for the change feed
         String sql = "DELETE FROM medicines WHERE medicine_id=?"; // prepared statement to prevent SQL injection
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, id);
-            int rows = ps.executeUpdate();
-            if (rows == 0) throw new MedicineNotFoundException("Medicine ID " + id + " not found.");
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             PreparedStatement tombstone = statements(conn).tracked() ? conn.prepareStatement(TOMBSTONE_SQL) : null) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                ps.setInt(1, id);
+                int rows = ps.executeUpdate();
+                if (rows == 0) {
+                    conn.rollback();
+                    throw new MedicineNotFoundException("Medicine ID " + id + " not found.");
+                }
+                if (tombstone != null) {
+                    tombstone.setInt(1, id);
+                    tombstone.executeUpdate();
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
         } catch (SQLException e) {
             throw new DatabaseOperationException("Error deleting medicine: " + e.getMessage(), e);
         }
     }
+
+    @Override
+    public void dispense(int id, int quantity) throws MedicineNotFoundException, InsufficientStockException, DatabaseOperationException { // single conditional UPDATE, no read-modify-write
+        if (quantity <= 0) throw new IllegalArgumentException("Quantity must be positive: " + quantity);
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(statements(conn).dispense())) {
+            ps.setInt(1, quantity);
+            ps.setInt(2, id);
+            ps.setInt(3, quantity);
+            if (ps.executeUpdate() == 0) { // only the failure path pays for a second query
+                Integer available = currentStock(conn, id);
+                if (available == null) throw new MedicineNotFoundException("Medicine ID " + id + " not found.");
+                throw new InsufficientStockException(id, quantity, available);
+            }
+        } catch (SQLException e) {
+            throw new DatabaseOperationException("Error dispensing medicine: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void restock(int id, int quantity) throws MedicineNotFoundException, DatabaseOperationException {
+        if (quantity <= 0) throw new IllegalArgumentException("Quantity must be positive: " + quantity);
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(statements(conn).stockDelta())) {
+            ps.setInt(1, quantity);
+            ps.setInt(2, id);
+            ps.setInt(3, quantity);
+            if (ps.executeUpdate() == 0) throw new MedicineNotFoundException("Medicine ID " + id + " not found.");
+        } catch (SQLException e) {
+            throw new DatabaseOperationException("Error restocking medicine: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Set<Integer> applyStockDeltas(Map<Integer, Integer> deltas) throws DatabaseOperationException { // one JDBC batch, one commit
+        if (deltas.isEmpty()) return new HashSet<>();
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(statements(conn).stockDelta())) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                List<Integer> ids = new ArrayList<>(deltas.size());
+                for (Map.Entry<Integer, Integer> e : new TreeMap<>(deltas).entrySet()) { // ID order, so concurrent flushes lock rows in the same order
+                    if (e.getValue() == 0) continue;
+                    ids.add(e.getKey());
+                    ps.setInt(1, e.getValue());
+                    ps.setInt(2, e.getKey());
+                    ps.setInt(3, e.getValue()); // a delta computed against a stale read can't take stock below zero
+                    ps.addBatch();
+                }
+                Set<Integer> changed = new HashSet<>();
+                if (ids.isEmpty()) return changed;
+                int[] counts = ps.executeBatch();
+                for (int i = 0; i < counts.length; i++) if (counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO) changed.add(ids.get(i));
+                conn.commit();
+                return changed;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new DatabaseOperationException("Error applying stock changes: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public MedicineChanges getChangesSince(long token) throws DatabaseOperationException { // two index range scans on change_seq
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(changesSql(conn))) {
+            // A sequence value is taken when a statement runs, not when it commits, so a slow transaction can commit a
+            // lower change_seq after a higher one was already reported. Only rows stamped at least changeFeedLagMillis ago
+            // are returned, which gives such transactions time to commit before the token moves past them.
+            ps.setLong(1, token);
+            ps.setLong(2, changeFeedLagMillis);
+            ps.setLong(3, token);
+            ps.setLong(4, changeFeedLagMillis);
+            ps.setFetchSize(fetchSize);
+            long next = token;
+            List<Medicine> upserts = new ArrayList<>();
+            List<Integer> deletedIds = new ArrayList<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (rs.getInt("deleted") == 1) deletedIds.add(rs.getInt("medicine_id"));
+                    else upserts.add(extractFromResultSet(rs, TRACKED));
+                    next = Math.max(next, rs.getLong("change_seq"));
+                }
+            }
+            return new MedicineChanges(upserts, deletedIds, next);
+        } catch (SQLException e) {
+            throw new DatabaseOperationException("Error fetching medicine changes: " + e.getMessage(), e);
+        }
+    }
+
+    private String changesSql(Connection conn) throws SQLException, DatabaseOperationException {
+        if (!statements(conn).tracked()) throw new DatabaseOperationException("The change feed needs the change tracking columns; apply db/upgrade.sql first.");
+        return CHANGES_SQL;
+    }
+
+    private Integer currentStock(Connection conn, int id) throws SQLException { // null if the row does not exist
+        try (PreparedStatement ps = conn.prepareStatement("SELECT stock FROM medicines WHERE medicine_id = ?")) {
+            ps.setInt(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : null;
+            }
+        }
+    }
+
+    private static void closeQuietly(AutoCloseable... resources) { // close in the given order, ignoring failures
+        for (AutoCloseable r : resources) {
+            if (r == null) continue;
+            try { r.close(); } catch (Exception e) { /* ignore */ }
+        }
+    }
+
+    private interface StatementBinder { // sets the parameters of a prepared query
+        void bind(PreparedStatement ps) throws SQLException;
+    }
+
+    private ArrayList<Medicine> query(String sql, String what, StatementBinder binder) throws DatabaseOperationException {
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            binder.bind(ps);
+            Statements s = statements(conn);
+            ArrayList<Medicine> list = new ArrayList<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) list.add(extractFromResultSet(rs, s));
+            }
+            return list;
+        } catch (SQLException e) {
+            throw new DatabaseOperationException("Error fetching " + what + ": " + e.getMessage(), e);
+        }
+    }
 }
@@ -0,0 +1,110 @@
+package com.example.dao;
+
+import com.example.model.Medicine;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.zip.CRC32;
+
+final class MedicineRecords { // Record framing shared by FileMedicineDAO's log and snapshot: [payload length][crc32 of payload][payload]
+    static final byte ADD = 1;
+    static final byte UPDATE = 2;
+    static final byte DELETE = 3;
+    static final int FRAME_BYTES = 8;
+    private static final int MAX_PAYLOAD = 1 << 20; // anything larger is a torn or corrupt length field
+    private static final int NO_EXPIRY = Integer.MIN_VALUE;
+
+    interface Visitor {
+        void put(Medicine m, long changeSeq); // ADD or UPDATE: the full row as of this record
+        void delete(int id, long changeSeq);
+    }
+
+    private MedicineRecords() {}
+
+    static ByteBuffer appendPut(ByteBuffer buf, byte type, Medicine m, long changeSeq) { // returns buf, or a larger copy if it had to grow
+        byte[] name = m.getName().getBytes(StandardCharsets.UTF_8);
+        if (name.length > 0xFFFF) throw new IllegalArgumentException("Medicine name is too long: " + name.length + " bytes");
+        buf = ensure(buf, FRAME_BYTES + 1 + 8 + 4 * 4 + 8 + 2 + name.length);
+        int start = beginFrame(buf);
+        buf.put(type);
+        buf.putLong(changeSeq);
+        buf.putInt(m.getId());
+        buf.putInt(m.getVersion());
+        buf.putInt(m.getExpiryDate() == null ? NO_EXPIRY : (int) m.getExpiryDate().toEpochDay());
+        buf.putDouble(m.getPrice());
+        buf.putInt(m.getStock());
+        buf.putShort((short) name.length);
+        buf.put(name);
+        endFrame(buf, start);
+        return buf;
+    }
+
+    static ByteBuffer appendDelete(ByteBuffer buf, int id, long changeSeq) {
+        buf = ensure(buf, FRAME_BYTES + 1 + 8 + 4);
+        int start = beginFrame(buf);
+        buf.put(DELETE);
+        buf.putLong(changeSeq);
+        buf.putInt(id);
+        endFrame(buf, start);
+        return buf;
+    }
+
+    static int replay(ByteBuffer data, Visitor visitor) { // applies complete, intact records from data's position; returns the bytes they take up
+        int start = data.position();
+        CRC32 crc = new CRC32();
+        while (data.remaining() >= FRAME_BYTES) {
+            int frame = data.position();
+            int length = data.getInt();
+            int checksum = data.getInt();
+            if (length < 13 || length > MAX_PAYLOAD || length > data.remaining()) return frame - start; // torn tail
+            ByteBuffer payload = data.slice(data.position(), length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != checksum) return frame - start;
+            byte type = payload.get();
+            long changeSeq = payload.getLong();
+            if (type == DELETE) visitor.delete(payload.getInt(), changeSeq);
+            else if (type == ADD || type == UPDATE) visitor.put(decode(payload), changeSeq);
+            else return frame - start;
+            data.position(data.position() + length);
+        }
+        return data.position() - start;
+    }
+
+    private static Medicine decode(ByteBuffer p) {
+        Medicine m = new Medicine();
+        m.setId(p.getInt());
+        m.setVersion(p.getInt());
+        int day = p.getInt();
+        if (day != NO_EXPIRY) m.setExpiryDate(LocalDate.ofEpochDay(day));
+        m.setPrice(p.getDouble());
+        m.setStock(p.getInt());
+        byte[] name = new byte[p.getShort() & 0xFFFF];
+        p.get(name);
+        m.setName(new String(name, StandardCharsets.UTF_8));
+        return m;
+    }
+
+    private static int beginFrame(ByteBuffer buf) {
+        int start = buf.position();
+        buf.position(start + FRAME_BYTES); // length and checksum are filled in by endFrame
+        return start;
+    }
+
+    private static void endFrame(ByteBuffer buf, int start) {
+        int end = buf.position();
+        int length = end - start - FRAME_BYTES;
+        CRC32 crc = new CRC32();
+        crc.update(buf.slice(start + FRAME_BYTES, length));
+        buf.putInt(start, length);
+        buf.putInt(start + 4, (int) crc.getValue());
+    }
+
+    private static ByteBuffer ensure(ByteBuffer buf, int needed) {
+        if (buf.remaining() >= needed) return buf;
+        ByteBuffer bigger = ByteBuffer.allocate(Math.max(buf.capacity() * 2, buf.position() + needed));
+        buf.flip();
+        return bigger.put(buf);
+    }
+}
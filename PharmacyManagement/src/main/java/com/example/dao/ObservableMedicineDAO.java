@@ -0,0 +1,125 @@
+package com.example.dao;
+
+import com.example.model.Medicine;
+import com.example.exceptions.DatabaseOperationException;
+import com.example.exceptions.InsufficientStockException;
+import com.example.exceptions.MedicineNotFoundException;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+public class ObservableMedicineDAO extends ForwardingMedicineDAO { // Publishes committed writes to MedicineChangeListeners
+    private final List<MedicineChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    public ObservableMedicineDAO(MedicineDAO delegate) {
+        super(delegate);
+    }
+
+    public void addListener(MedicineChangeListener listener) { listeners.add(listener); }
+    public void removeListener(MedicineChangeListener listener) { listeners.remove(listener); }
+
+    @Override
+    public void addMedicine(Medicine medicine) throws DatabaseOperationException {
+        delegate.addMedicine(medicine);
+        fire(l -> l.medicineAdded(new Medicine(medicine)));
+    }
+
+    @Override
+    public int addMedicines(Collection<Medicine> medicines) throws DatabaseOperationException {
+        Map<Medicine, Integer> before = new IdentityHashMap<>(); // IDs are only assigned once a row is committed
+        for (Medicine m : medicines) before.put(m, m.getId());
+        try {
+            return delegate.addMedicines(medicines);
+        } finally {
+            for (Map.Entry<Medicine, Integer> e : before.entrySet()) {
+                Medicine m = e.getKey();
+                if (m.getId() != 0 && m.getId() != e.getValue()) fire(l -> l.medicineAdded(new Medicine(m))); // inserted by this call
+            }
+        }
+    }
+
+    @Override
+    public int upsertMedicines(Collection<Medicine> medicines) throws DatabaseOperationException {
+        Set<Medicine> merged = Collections.newSetFromMap(new IdentityHashMap<>()); // rows whose ID was known before the call
+        for (Medicine m : medicines) if (m.getId() != 0) merged.add(m);
+        int count = delegate.upsertMedicines(medicines);
+        for (Medicine m : medicines) {
+            if (merged.contains(m)) fire(l -> l.medicineUpdated(new Medicine(m))); // may also have been a first insert under that ID
+            else fire(l -> l.medicineAdded(new Medicine(m)));
+        }
+        return count;
+    }
+
+    @Override
+    public void updateMedicine(Medicine medicine) throws MedicineNotFoundException, DatabaseOperationException {
+        delegate.updateMedicine(medicine);
+        fire(l -> l.medicineUpdated(new Medicine(medicine)));
+    }
+
+    @Override
+    public void deleteMedicine(int id) throws MedicineNotFoundException, DatabaseOperationException {
+        delegate.deleteMedicine(id);
+        fire(l -> l.medicineDeleted(id));
+    }
+
+    @Override
+    public void dispense(int id, int quantity) throws MedicineNotFoundException, InsufficientStockException, DatabaseOperationException {
+        delegate.dispense(id, quantity);
+        fireStockChanged(id);
+    }
+
+    @Override
+    public void restock(int id, int quantity) throws MedicineNotFoundException, DatabaseOperationException {
+        delegate.restock(id, quantity);
+        fireStockChanged(id);
+    }
+
+    @Override
+    public Set<Integer> applyStockDeltas(Map<Integer, Integer> deltas) throws DatabaseOperationException {
+        Set<Integer> changed = delegate.applyStockDeltas(deltas);
+        if (listeners.isEmpty() || changed.isEmpty()) return changed;
+        List<Medicine> current;
+        try {
+            current = delegate.getMedicinesByIds(changed); // one query to read the new stock levels back
+        } catch (RuntimeException | DatabaseOperationException e) { // committed already: a caller retrying would apply the deltas twice
+            System.err.println("Could not read back " + changed.size() + " changed medicines for listeners: " + e.getMessage());
+            return changed;
+        }
+        Set<Integer> gone = new HashSet<>(changed);
+        for (Medicine m : current) {
+            gone.remove(m.getId());
+            fire(l -> l.medicineUpdated(new Medicine(m)));
+        }
+        for (int id : gone) fire(l -> l.medicineDeleted(id));
+        return changed;
+    }
+
+    private void fireStockChanged(int id) { // the atomic update doesn't return the row, so read it back for listeners
+        if (listeners.isEmpty()) return;
+        try {
+            Medicine current = delegate.getMedicineById(id);
+            fire(l -> l.medicineUpdated(new Medicine(current)));
+        } catch (MedicineNotFoundException e) {
+            fire(l -> l.medicineDeleted(id)); // deleted right after the stock change
+        } catch (RuntimeException | DatabaseOperationException e) { // the change is committed; failing the call now would invite a retry
+            System.err.println("Could not read back medicine " + id + " for listeners: " + e.getMessage());
+        }
+    }
+
+    private void fire(Consumer<MedicineChangeListener> event) { // a failing listener must not fail the write
+        for (MedicineChangeListener l : listeners) {
+            try {
+                event.accept(l);
+            } catch (RuntimeException e) {
+                System.err.println("Change listener " + l + " failed: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.dao;
+
+import com.example.model.Medicine;
+
+import java.util.List;
+
+public record ShardedChanges(List<Medicine> upserts, List<Integer> deletedIds, String nextCursor) { // One ShardedMedicineDAO.getChangesSince(cursor) result; pass nextCursor to the next call
+
+    public boolean isEmpty() {
+        return upserts.isEmpty() && deletedIds.isEmpty();
+    }
+
+    public int size() {
+        return upserts.size() + deletedIds.size();
+    }
+}
@@ -0,0 +1,562 @@
+package com.example.dao;
+
+import com.example.model.Medicine;
+import com.example.exceptions.DatabaseOperationException;
+import com.example.exceptions.InsufficientStockException;
+import com.example.exceptions.MedicineNotFoundException;
+import com.example.exceptions.StaleMedicineException;
+import com.example.util.ConnectionPool;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class ShardedMedicineDAO implements MedicineDAO, AutoCloseable { // One MedicineDAO per branch store; by-ID calls are routed, listings gathered from every store in parallel
+    public static final int STORE_BITS = 8; // global ID = local ID << 8 | store ID
+    public static final int MAX_STORE_ID = (1 << STORE_BITS) - 1;
+    public static final int MAX_LOCAL_ID = Integer.MAX_VALUE >>> STORE_BITS; // ~8.4 million medicines per store
+    private static final LocalDate LAST_DATE = LocalDate.of(9999, 12, 31); // Oracle's largest DATE: only undated rows sort after it
+
+    private static final Comparator<Medicine> LISTING_ORDER = Comparator.comparing(Medicine::getExpiryDate,
+            Comparator.nullsLast(Comparator.naturalOrder())).thenComparingInt(Medicine::getId);
+    private static final Comparator<Medicine> STOCK_ORDER = Comparator.comparingInt(Medicine::getStock).thenComparingInt(Medicine::getId);
+    private static final Comparator<Medicine> ID_ORDER = Comparator.comparingInt(Medicine::getId);
+
+    private final Map<Integer, StoreView> stores; // by store ID, ascending
+    private final List<ConnectionPool> ownedPools; // closed with this DAO
+    private final ExecutorService gather;
+    private final StoreView home; // where rows without a store go
+
+    @FunctionalInterface
+    private interface StoreCall<T> {
+        T call(StoreView store) throws DatabaseOperationException;
+    }
+
+    public ShardedMedicineDAO(Map<Integer, ? extends MedicineDAO> shards, int homeStore) { // e.g. a MedicineDAOImpl per store database or schema; new rows go to homeStore
+        this(shards, homeStore, List.of());
+    }
+
+    ShardedMedicineDAO(Map<Integer, ? extends MedicineDAO> shards, int homeStore, List<ConnectionPool> ownedPools) {
+        if (shards.isEmpty()) throw new IllegalArgumentException("Need at least one store");
+        Map<Integer, StoreView> views = new TreeMap<>();
+        shards.forEach((storeId, dao) -> {
+            checkStoreId(storeId);
+            views.put(storeId, new StoreView(storeId, dao));
+        });
+        if (!views.containsKey(homeStore)) throw new IllegalArgumentException("Home store " + homeStore + " is not one of the stores " + views.keySet());
+        this.stores = Collections.unmodifiableMap(views);
+        this.home = views.get(homeStore);
+        this.ownedPools = List.copyOf(ownedPools);
+        this.gather = Executors.newVirtualThreadPerTaskExecutor(); // a thread per store query, so concurrent callers never queue behind each other
+    }
+
+    public static int globalId(int storeId, int localId) {
+        checkStoreId(storeId);
+        if (localId < 0 || localId > MAX_LOCAL_ID)
+            throw new IllegalStateException("Store " + storeId + " has run out of medicine IDs: " + localId + " > " + MAX_LOCAL_ID);
+        return localId << STORE_BITS | storeId;
+    }
+
+    public static int storeOf(int globalId) {
+        return globalId & MAX_STORE_ID;
+    }
+
+    public static int localIdOf(int globalId) {
+        return globalId >>> STORE_BITS;
+    }
+
+    private static void checkStoreId(int storeId) {
+        if (storeId < 0 || storeId > MAX_STORE_ID) throw new IllegalArgumentException("Store ID must be 0-" + MAX_STORE_ID + ": " + storeId);
+    }
+
+    public Set<Integer> getStoreIds() {
+        return stores.keySet();
+    }
+
+    public MedicineDAO forStore(int storeId) { // one store only: inserts land there and listings cover just that store
+        StoreView view = stores.get(storeId);
+        if (view == null) throw new IllegalArgumentException("Unknown store: " + storeId);
+        return view;
+    }
+
+    public int getHomeStore() { return home.storeId; } // addMedicine/addMedicines and upserts of new rows go to this store
+
+    private StoreView storeFor(int medicineId) throws MedicineNotFoundException {
+        StoreView view = stores.get(storeOf(medicineId));
+        if (view == null) throw new MedicineNotFoundException("Medicine ID " + medicineId + " not found.");
+        return view;
+    }
+
+    @Override
+    public void addMedicine(Medicine medicine) throws DatabaseOperationException {
+        home.addMedicine(medicine);
+    }
+
+    @Override
+    public int addMedicines(Collection<Medicine> medicines) throws DatabaseOperationException {
+        return home.addMedicines(medicines);
+    }
+
+    @Override
+    public int upsertMedicines(Collection<Medicine> medicines) throws DatabaseOperationException { // one transaction per store, not across stores
+        Map<StoreView, List<Medicine>> byStore = new LinkedHashMap<>();
+        for (Medicine m : medicines) {
+            StoreView view = m.getId() == 0 ? home : stores.get(storeOf(m.getId()));
+            if (view == null) throw new IllegalArgumentException("Medicine ID " + m.getId() + " belongs to unknown store " + storeOf(m.getId()));
+            byStore.computeIfAbsent(view, k -> new ArrayList<>()).add(m);
+        }
+        int merged = 0;
+        for (int n : scatter(byStore.keySet(), s -> s.upsertMedicines(byStore.get(s)))) merged += n;
+        return merged;
+    }
+
+    @Override
+    public Medicine getMedicineById(int id) throws MedicineNotFoundException, DatabaseOperationException {
+        StoreView view = stores.get(storeOf(id));
+        if (view == null) throw new MedicineNotFoundException("Medicine with ID " + id + " not found.");
+        return view.getMedicineById(id);
+    }
+
+    @Override
+    public List<Medicine> getMedicinesByIds(Collection<Integer> ids) throws DatabaseOperationException {
+        Map<StoreView, List<Integer>> byStore = new LinkedHashMap<>();
+        for (Integer id : ids) {
+            StoreView view = stores.get(storeOf(id));
+            if (view != null) byStore.computeIfAbsent(view, k -> new ArrayList<>()).add(id); // unknown stores hold no rows
+        }
+        List<Medicine> found = new ArrayList<>(ids.size());
+        for (List<Medicine> part : scatter(byStore.keySet(), s -> s.getMedicinesByIds(byStore.get(s)))) found.addAll(part);
+        return found;
+    }
+
+    @Override
+    public ArrayList<Medicine> getAllMedicines() throws DatabaseOperationException {
+        return merge(scatter(stores.values(), StoreView::getAllMedicines), LISTING_ORDER, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public Stream<Medicine> streamMedicines() throws DatabaseOperationException { // merged by global ID; holds one cursor per store
+        List<Stream<Medicine>> streams = new ArrayList<>(stores.size());
+        try {
+            for (StoreView view : stores.values()) streams.add(view.streamMedicines());
+        } catch (DatabaseOperationException | RuntimeException e) {
+            closeAll(streams);
+            throw e;
+        }
+        Iterator<Medicine> merged = new MergingIterator(streams, ID_ORDER);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> closeAll(streams));
+    }
+
+    @Override
+    public List<Medicine> getMedicinesPage(LocalDate afterExpiry, int afterId, int limit) throws DatabaseOperationException { // a page from each store, merged
+        if (limit < 1) return new ArrayList<>();
+        return merge(scatter(stores.values(), s -> s.getMedicinesPage(afterExpiry, afterId, limit)), LISTING_ORDER, limit);
+    }
+
+    @Override
+    public List<Medicine> findExpiringBetween(LocalDate from, LocalDate to) throws DatabaseOperationException {
+        return merge(scatter(stores.values(), s -> s.findExpiringBetween(from, to)), LISTING_ORDER, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Medicine> findLowStock(int threshold) throws DatabaseOperationException {
+        return merge(scatter(stores.values(), s -> s.findLowStock(threshold)), STOCK_ORDER, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void updateMedicine(Medicine medicine) throws MedicineNotFoundException, DatabaseOperationException {
+        storeFor(medicine.getId()).updateMedicine(medicine);
+    }
+
+    @Override
+    public void deleteMedicine(int id) throws MedicineNotFoundException, DatabaseOperationException {
+        storeFor(id).deleteMedicine(id);
+    }
+
+    @Override
+    public void dispense(int id, int quantity) throws MedicineNotFoundException, InsufficientStockException, DatabaseOperationException {
+        storeFor(id).dispense(id, quantity);
+    }
+
+    @Override
+    public void restock(int id, int quantity) throws MedicineNotFoundException, DatabaseOperationException {
+        storeFor(id).restock(id, quantity);
+    }
+
+    @Override
+    public Set<Integer> applyStockDeltas(Map<Integer, Integer> deltas) throws DatabaseOperationException { // one transaction per store, not across stores
+        Map<StoreView, Map<Integer, Integer>> byStore = new LinkedHashMap<>();
+        deltas.forEach((id, delta) -> {
+            StoreView view = stores.get(storeOf(id));
+            if (view != null) byStore.computeIfAbsent(view, k -> new HashMap<>()).put(id, delta);
+        });
+        Set<Integer> changed = new HashSet<>();
+        for (Set<Integer> ids : scatter(byStore.keySet(), s -> s.applyStockDeltas(byStore.get(s)))) changed.addAll(ids);
+        return changed;
+    }
+
+    @Override
+    public MedicineChanges getChangesSince(long token) throws DatabaseOperationException { // one long can't carry a position in every store's sequence
+        throw new DatabaseOperationException("Change tokens are per store on a sharded backend; use getChangesSince(cursor) or forStore(storeId).getChangesSince");
+    }
+
+    public ShardedChanges getChangesSince(String cursor) throws DatabaseOperationException { // null or "" = everything; upserts and deletes come store by store
+        Map<Integer, Long> tokens = parseCursor(cursor);
+        for (int storeId : tokens.keySet())
+            if (!stores.containsKey(storeId)) throw new IllegalArgumentException("Change cursor names store " + storeId + ", which is not one of " + stores.keySet());
+        List<StoreView> views = List.copyOf(stores.values());
+        List<MedicineChanges> parts = scatter(views, s -> s.getChangesSince(tokens.getOrDefault(s.storeId, 0L))); // a store added since starts from the top
+        List<Medicine> upserts = new ArrayList<>();
+        List<Integer> deletedIds = new ArrayList<>();
+        StringBuilder next = new StringBuilder();
+        for (int i = 0; i < parts.size(); i++) {
+            MedicineChanges part = parts.get(i);
+            upserts.addAll(part.upserts());
+            deletedIds.addAll(part.deletedIds());
+            if (i > 0) next.append(',');
+            next.append(views.get(i).storeId).append(':').append(part.nextToken());
+        }
+        return new ShardedChanges(upserts, deletedIds, next.toString());
+    }
+
+    static Map<Integer, Long> parseCursor(String cursor) { // "store:token,store:token", as built by getChangesSince(cursor)
+        Map<Integer, Long> tokens = new TreeMap<>();
+        if (cursor == null || cursor.isBlank()) return tokens;
+        for (String part : cursor.split(",")) {
+            int colon = part.indexOf(':');
+            try {
+                if (colon < 0) throw new NumberFormatException("no ':'");
+                long token = Long.parseLong(part.substring(colon + 1).strip());
+                if (token < 0 || tokens.put(Integer.parseInt(part.substring(0, colon).strip()), token) != null)
+                    throw new NumberFormatException("negative or repeated");
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Bad change cursor '" + cursor + "': " + e.getMessage());
+            }
+        }
+        return tokens;
+    }
+
+    @Override
+    public void close() {
+        gather.shutdown();
+        ownedPools.forEach(ConnectionPool::close);
+    }
+
+    private <T> List<T> scatter(Collection<StoreView> targets, StoreCall<T> call) throws DatabaseOperationException { // results in target order
+        List<T> results = new ArrayList<>(targets.size());
+        if (targets.size() == 1) { // nothing to overlap
+            StoreView only = targets.iterator().next();
+            try {
+                results.add(call.call(only));
+            } catch (DatabaseOperationException e) {
+                throw storeFailure(only, e);
+            }
+            return results;
+        }
+        List<Future<T>> futures = new ArrayList<>(targets.size());
+        for (StoreView view : targets) futures.add(gather.submit(() -> call.call(view)));
+        try {
+            Iterator<StoreView> views = targets.iterator();
+            for (Future<T> f : futures) {
+                StoreView view = views.next();
+                try {
+                    results.add(f.get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof DatabaseOperationException d) throw storeFailure(view, d);
+                    if (cause instanceof RuntimeException r) throw r;
+                    if (cause instanceof Error err) throw err;
+                    throw new DatabaseOperationException("Store " + view.storeId + ": " + cause.getMessage(), cause);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseOperationException("Interrupted while querying stores", e);
+        } finally {
+            for (Future<T> f : futures) f.cancel(false); // after a failure, stop waiting for the other stores; interrupting them mid-JDBC call can break pooled connections
+        }
+        return results;
+    }
+
+    private static DatabaseOperationException storeFailure(StoreView view, DatabaseOperationException e) {
+        return new DatabaseOperationException("Store " + view.storeId + ": " + e.getMessage(), e);
+    }
+
+    private static ArrayList<Medicine> merge(List<? extends List<Medicine>> parts, Comparator<Medicine> order, int limit) { // k-way merge of sorted lists
+        ArrayList<Medicine> out = new ArrayList<>();
+        PriorityQueue<int[]> heads = new PriorityQueue<>(Math.max(1, parts.size()), // {part, index}
+                (a, b) -> order.compare(parts.get(a[0]).get(a[1]), parts.get(b[0]).get(b[1])));
+        for (int i = 0; i < parts.size(); i++) if (!parts.get(i).isEmpty()) heads.add(new int[]{i, 0});
+        while (out.size() < limit && !heads.isEmpty()) {
+            int[] head = heads.poll();
+            List<Medicine> part = parts.get(head[0]);
+            out.add(part.get(head[1]));
+            if (++head[1] < part.size()) heads.add(head);
+        }
+        return out;
+    }
+
+    private static void closeAll(List<Stream<Medicine>> streams) {
+        RuntimeException first = null;
+        for (Stream<Medicine> s : streams) {
+            try {
+                s.close();
+            } catch (RuntimeException e) {
+                if (first == null) first = e;
+            }
+        }
+        if (first != null) throw first;
+    }
+
+    private static final class MergingIterator implements Iterator<Medicine> { // k-way merge of sorted streams, pulling one row at a time
+        private record Head(Medicine row, Iterator<Medicine> rest) {}
+
+        private final List<Stream<Medicine>> sources;
+        private final PriorityQueue<Head> heads;
+        private boolean primed;
+
+        MergingIterator(List<Stream<Medicine>> sources, Comparator<Medicine> order) {
+            this.sources = sources;
+            this.heads = new PriorityQueue<>(Math.max(1, sources.size()), (a, b) -> order.compare(a.row(), b.row()));
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!primed) {
+                for (Stream<Medicine> s : sources) {
+                    Iterator<Medicine> it = s.iterator();
+                    if (it.hasNext()) heads.add(new Head(it.next(), it));
+                }
+                primed = true;
+            }
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public Medicine next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            Head head = heads.poll();
+            if (head.rest().hasNext()) heads.add(new Head(head.rest().next(), head.rest()));
+            return head.row();
+        }
+    }
+
+    private static final class StoreView implements MedicineDAO { // one store's DAO seen through global IDs
+        final int storeId;
+        final MedicineDAO dao;
+
+        StoreView(int storeId, MedicineDAO dao) {
+            this.storeId = storeId;
+            this.dao = dao;
+        }
+
+        private int local(int id) { // 0 matches no row, so IDs from other stores come back not found
+            return storeOf(id) == storeId ? localIdOf(id) : 0;
+        }
+
+        private int localAfter(int id) { // largest local ID whose global ID is <= id: the keyset position in this store
+            return Math.max(0, Math.floorDiv(id - storeId, 1 << STORE_BITS));
+        }
+
+        private Medicine global(Medicine m) {
+            m.setId(globalId(storeId, m.getId()));
+            return m;
+        }
+
+        private <L extends List<Medicine>> L global(L meds) {
+            for (Medicine m : meds) global(m);
+            return meds;
+        }
+
+        private List<Medicine> localCopies(Collection<Medicine> meds, boolean keepIds) {
+            List<Medicine> copies = new ArrayList<>(meds.size());
+            for (Medicine m : meds) {
+                Medicine c = new Medicine(m);
+                if (!keepIds || m.getId() == 0) c.setId(0);
+                else if (storeOf(m.getId()) == storeId) c.setId(localIdOf(m.getId()));
+                else throw new IllegalArgumentException("Medicine ID " + m.getId() + " belongs to store " + storeOf(m.getId()) + ", not " + storeId);
+                copies.add(c);
+            }
+            return copies;
+        }
+
+        private void copyBack(Collection<Medicine> meds, List<Medicine> copies) throws DatabaseOperationException { // generated IDs and new versions
+            Iterator<Medicine> it = copies.iterator();
+            List<Integer> overflow = new ArrayList<>();
+            for (Medicine m : meds) {
+                Medicine c = it.next();
+                if (c.getId() > MAX_LOCAL_ID) overflow.add(c.getId());
+                else if (c.getId() != 0) m.setId(globalId(storeId, c.getId()));
+                m.setVersion(c.getVersion());
+            }
+            if (!overflow.isEmpty()) throw outOfIds(overflow);
+        }
+
+        private IllegalStateException outOfIds(List<Integer> localIds) throws DatabaseOperationException { // the identity can't be checked before the insert, so take the rows back out
+            for (int id : localIds) {
+                try {
+                    dao.deleteMedicine(id);
+                } catch (MedicineNotFoundException e) {
+                    // already gone
+                }
+            }
+            return new IllegalStateException("Store " + storeId + " has run out of medicine IDs: " + localIds.get(0) + " > " + MAX_LOCAL_ID);
+        }
+
+        @Override
+        public void addMedicine(Medicine medicine) throws DatabaseOperationException {
+            Medicine copy = new Medicine(medicine);
+            copy.setId(0);
+            dao.addMedicine(copy);
+            if (copy.getId() > MAX_LOCAL_ID) throw outOfIds(List.of(copy.getId()));
+            medicine.setId(globalId(storeId, copy.getId()));
+            medicine.setVersion(copy.getVersion());
+        }
+
+        @Override
+        public int addMedicines(Collection<Medicine> medicines) throws DatabaseOperationException {
+            List<Medicine> copies = localCopies(medicines, false);
+            try {
+                return dao.addMedicines(copies);
+            } finally {
+                copyBack(medicines, copies); // chunks committed before a failure keep their IDs
+            }
+        }
+
+        @Override
+        public int upsertMedicines(Collection<Medicine> medicines) throws DatabaseOperationException {
+            List<Medicine> copies = localCopies(medicines, true);
+            int merged = dao.upsertMedicines(copies);
+            copyBack(medicines, copies);
+            return merged;
+        }
+
+        @Override
+        public Medicine getMedicineById(int id) throws MedicineNotFoundException, DatabaseOperationException {
+            try {
+                return global(dao.getMedicineById(local(id)));
+            } catch (MedicineNotFoundException e) {
+                throw new MedicineNotFoundException("Medicine with ID " + id + " not found.");
+            }
+        }
+
+        @Override
+        public List<Medicine> getMedicinesByIds(Collection<Integer> ids) throws DatabaseOperationException {
+            List<Integer> locals = new ArrayList<>(ids.size());
+            for (Integer id : ids) if (storeOf(id) == storeId) locals.add(localIdOf(id));
+            return locals.isEmpty() ? new ArrayList<>() : global(dao.getMedicinesByIds(locals));
+        }
+
+        @Override
+        public ArrayList<Medicine> getAllMedicines() throws DatabaseOperationException {
+            return global(dao.getAllMedicines());
+        }
+
+        @Override
+        public Stream<Medicine> streamMedicines() throws DatabaseOperationException {
+            return dao.streamMedicines().map(this::global);
+        }
+
+        @Override
+        public List<Medicine> getMedicinesPage(LocalDate afterExpiry, int afterId, int limit) throws DatabaseOperationException {
+            if (afterExpiry != null) return global(dao.getMedicinesPage(afterExpiry, localAfter(afterId), limit));
+            if (afterId <= 0) return global(dao.getMedicinesPage(null, 0, limit));
+            int after = localAfter(afterId); // already into the undated rows
+            return global(after > 0 ? dao.getMedicinesPage(null, after, limit)
+                    : dao.getMedicinesPage(LAST_DATE, Integer.MAX_VALUE, limit)); // all of this store's undated rows come after afterId
+        }
+
+        @Override
+        public List<Medicine> findExpiringBetween(LocalDate from, LocalDate to) throws DatabaseOperationException {
+            return global(dao.findExpiringBetween(from, to));
+        }
+
+        @Override
+        public List<Medicine> findLowStock(int threshold) throws DatabaseOperationException {
+            return global(dao.findLowStock(threshold));
+        }
+
+        @Override
+        public void updateMedicine(Medicine medicine) throws MedicineNotFoundException, DatabaseOperationException {
+            Medicine copy = new Medicine(medicine);
+            copy.setId(local(medicine.getId()));
+            try {
+                dao.updateMedicine(copy);
+            } catch (MedicineNotFoundException e) {
+                throw new MedicineNotFoundException("Medicine ID " + medicine.getId() + " not found.");
+            } catch (StaleMedicineException e) {
+                throw new StaleMedicineException("Medicine ID " + medicine.getId() + " was changed by someone else; reload and retry.");
+            }
+            medicine.setVersion(copy.getVersion());
+        }
+
+        @Override
+        public void deleteMedicine(int id) throws MedicineNotFoundException, DatabaseOperationException {
+            try {
+                dao.deleteMedicine(local(id));
+            } catch (MedicineNotFoundException e) {
+                throw new MedicineNotFoundException("Medicine ID " + id + " not found.");
+            }
+        }
+
+        @Override
+        public void dispense(int id, int quantity) throws MedicineNotFoundException, InsufficientStockException, DatabaseOperationException {
+            try {
+                dao.dispense(local(id), quantity);
+            } catch (MedicineNotFoundException e) {
+                throw new MedicineNotFoundException("Medicine ID " + id + " not found.");
+            } catch (InsufficientStockException e) {
+                throw new InsufficientStockException(id, e.getRequested(), e.getAvailable());
+            }
+        }
+
+        @Override
+        public void restock(int id, int quantity) throws MedicineNotFoundException, DatabaseOperationException {
+            try {
+                dao.restock(local(id), quantity);
+            } catch (MedicineNotFoundException e) {
+                throw new MedicineNotFoundException("Medicine ID " + id + " not found.");
+            }
+        }
+
+        @Override
+        public Set<Integer> applyStockDeltas(Map<Integer, Integer> deltas) throws DatabaseOperationException {
+            Map<Integer, Integer> locals = new HashMap<>();
+            deltas.forEach((id, delta) -> {
+                if (storeOf(id) == storeId) locals.put(localIdOf(id), delta);
+            });
+            Set<Integer> changed = new HashSet<>();
+            if (!locals.isEmpty()) for (int id : dao.applyStockDeltas(locals)) changed.add(globalId(storeId, id));
+            return changed;
+        }
+
+        @Override
+        public MedicineChanges getChangesSince(long token) throws DatabaseOperationException {
+            MedicineChanges changes = dao.getChangesSince(token);
+            List<Integer> deleted = new ArrayList<>(changes.deletedIds().size());
+            for (int id : changes.deletedIds()) if (id <= MAX_LOCAL_ID) deleted.add(globalId(storeId, id)); // rows past the ceiling were never handed out
+            return new MedicineChanges(global(new ArrayList<>(changes.upserts())), deleted, changes.nextToken());
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package com.example.dao;
+
+import com.example.model.Medicine;
+import com.example.exceptions.DatabaseOperationException;
+import com.example.exceptions.InsufficientStockException;
+import com.example.exceptions.MedicineNotFoundException;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+public class WriteBehindMedicineDAO extends ForwardingMedicineDAO implements AutoCloseable { // Buffers dispense/restock as net stock deltas per ID, written in one batch per flush
+    private final ReentrantReadWriteLock flushLock = new ReentrantReadWriteLock(); // a flush takes the write side, so no read sees a delta both in the row and in the buffer
+    private final Object lock = new Object();
+    private HashMap<Integer, Pending> pending = new HashMap<>(); // guarded by lock
+    private final HashMap<Integer, Integer> versionOffsets = new HashMap<>(); // guarded by lock; buffered changes flushed as fewer version bumps. Readers saw those versions, so an offset lives as long as its row
+    private final int maxPendingIds;
+    private final ScheduledExecutorService flusher;
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+    private final LongAdder buffered = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder rowsWritten = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+    private final LongAdder skippedRows = new LongAdder(); // deleted meanwhile, or dispenses the store refused to take below zero (those stay buffered)
+    private boolean closed; // guarded by flushLock
+
+    private static final class Pending { // one row's buffered changes; restocks and dispenses are written apart so a refused dispense can't sink a restock
+        int restocked;
+        int dispensed;
+        int changes; // each counts as a version bump to readers, like the dispense or restock it stands for
+        boolean refused; // the store already refused these dispenses once; reported then, retried every flush
+
+        int delta() { return restocked - dispensed; }
+    }
+
+    private WriteBehindMedicineDAO(MedicineDAO delegate, int maxPendingIds) {
+        super(delegate);
+        this.maxPendingIds = maxPendingIds;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pharmacy-write-behind");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public static WriteBehindMedicineDAO start(MedicineDAO delegate, Duration maxDelay, int maxPendingIds) { // flush every maxDelay, or sooner once maxPendingIds SKUs are waiting
+        if (maxDelay.isNegative() || maxDelay.isZero()) throw new IllegalArgumentException("Flush delay must be positive: " + maxDelay);
+        if (maxPendingIds < 1) throw new IllegalArgumentException("Pending limit must be positive: " + maxPendingIds);
+        WriteBehindMedicineDAO dao = new WriteBehindMedicineDAO(delegate, maxPendingIds);
+        long delayMillis = maxDelay.toMillis();
+        dao.flusher.scheduleWithFixedDelay(dao::flushQuietly, delayMillis, delayMillis, TimeUnit.MILLISECONDS); // only once fully built
+        return dao;
+    }
+
+    @Override
+    public void dispense(int id, int quantity) throws MedicineNotFoundException, InsufficientStockException, DatabaseOperationException {
+        if (quantity <= 0) throw new IllegalArgumentException("Quantity must be positive: " + quantity);
+        buffer(id, -quantity);
+    }
+
+    @Override
+    public void restock(int id, int quantity) throws MedicineNotFoundException, DatabaseOperationException {
+        if (quantity <= 0) throw new IllegalArgumentException("Quantity must be positive: " + quantity);
+        buffer(id, quantity);
+    }
+
+    @Override
+    public Medicine getMedicineById(int id) throws MedicineNotFoundException, DatabaseOperationException {
+        flushLock.readLock().lock();
+        try {
+            Medicine m = delegate.getMedicineById(id);
+            synchronized (lock) {
+                apply(m);
+            }
+            return m;
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Medicine> getMedicinesByIds(Collection<Integer> ids) throws DatabaseOperationException {
+        flushLock.readLock().lock();
+        try {
+            return applyAll(delegate.getMedicinesByIds(ids));
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public ArrayList<Medicine> getAllMedicines() throws DatabaseOperationException {
+        flushLock.readLock().lock();
+        try {
+            return applyAll(delegate.getAllMedicines());
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Medicine> getMedicinesPage(LocalDate afterExpiry, int afterId, int limit) throws DatabaseOperationException {
+        flushLock.readLock().lock();
+        try {
+            return applyAll(delegate.getMedicinesPage(afterExpiry, afterId, limit));
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Medicine> findExpiringBetween(LocalDate from, LocalDate to) throws DatabaseOperationException {
+        flushLock.readLock().lock();
+        try {
+            return applyAll(delegate.findExpiringBetween(from, to));
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Medicine> findLowStock(int threshold) throws DatabaseOperationException { // the filter is on stock itself, so let the database see the deltas
+        flush();
+        return delegate.findLowStock(threshold);
+    }
+
+    @Override
+    public Stream<Medicine> streamMedicines() throws DatabaseOperationException { // lazy cursor: flush rather than hold the read lock open
+        flush();
+        return delegate.streamMedicines();
+    }
+
+    @Override
+    public MedicineChanges getChangesSince(long token) throws DatabaseOperationException { // buffered stock changes must show up in the feed
+        flush();
+        return delegate.getChangesSince(token);
+    }
+
+    @Override
+    public int upsertMedicines(Collection<Medicine> medicines) throws DatabaseOperationException {
+        flush(); // absolute stock values must land after the deltas that preceded them
+        return delegate.upsertMedicines(medicines);
+    }
+
+    @Override
+    public void updateMedicine(Medicine medicine) throws MedicineNotFoundException, DatabaseOperationException { // the caller read the row with its buffered changes, so its stock already includes them
+        int id = medicine.getId();
+        int readVersion = medicine.getVersion();
+        flushLock.writeLock().lock();
+        try {
+            Pending folded;
+            int offset;
+            synchronized (lock) {
+                folded = pending.remove(id);
+                offset = versionOffsets.getOrDefault(id, 0);
+            }
+            int hidden = offset + (folded == null ? 0 : folded.changes); // what reads added to the stored version
+            medicine.setVersion(readVersion - hidden); // a change buffered after the caller's read leaves it behind, so locking still reports it
+            try {
+                delegate.updateMedicine(medicine);
+            } catch (RuntimeException | DatabaseOperationException e) {
+                medicine.setVersion(readVersion);
+                synchronized (lock) {
+                    if (e instanceof MedicineNotFoundException) versionOffsets.remove(id); // deleted elsewhere: nothing left to write
+                    else if (folded != null) pending.put(id, folded);
+                }
+                throw e;
+            }
+            medicine.setVersion(medicine.getVersion() + hidden);
+            if (hidden != 0) {
+                synchronized (lock) {
+                    versionOffsets.put(id, hidden); // the update bumped the stored version once; keep the row's version where readers saw it go
+                }
+            }
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteMedicine(int id) throws MedicineNotFoundException, DatabaseOperationException {
+        flushLock.writeLock().lock(); // a running flush must not write or re-buffer the row's changes after this
+        try {
+            delegate.deleteMedicine(id);
+            synchronized (lock) {
+                pending.remove(id);
+                versionOffsets.remove(id);
+            }
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+
+    public void flush() throws DatabaseOperationException { // write every buffered change; whatever isn't written stays buffered for the next attempt
+        flushLock.writeLock().lock();
+        try {
+            HashMap<Integer, Pending> batch;
+            synchronized (lock) {
+                if (pending.isEmpty()) return;
+                batch = pending;
+                pending = new HashMap<>();
+            }
+            HashMap<Integer, Integer> restocks = new HashMap<>(batch.size() * 2);
+            HashMap<Integer, Integer> dispenses = new HashMap<>(batch.size() * 2);
+            batch.forEach((id, p) -> {
+                if (p.restocked > 0) restocks.put(id, p.restocked);
+                if (p.dispensed > 0) dispenses.put(id, -p.dispensed);
+            });
+            Set<Integer> restocked;
+            try {
+                restocked = restocks.isEmpty() ? Set.of() : delegate.applyStockDeltas(restocks);
+            } catch (RuntimeException | DatabaseOperationException e) { // nothing was committed: the delegate chain must not throw once it has
+                settle(batch, Set.of(), Set.of(), batch.keySet(), Set.of(), false);
+                failedFlushes.increment();
+                throw e;
+            }
+            Set<Integer> gone = new HashSet<>(restocks.keySet()); // a restock can't take stock below zero, so only a missing row refuses it
+            gone.removeAll(restocked);
+            dispenses.keySet().removeAll(gone);
+            Set<Integer> dispensed;
+            try {
+                dispensed = dispenses.isEmpty() ? Set.of() : delegate.applyStockDeltas(dispenses); // after the restocks, which they may need
+            } catch (RuntimeException | DatabaseOperationException e) { // the restocks are in; keep only the dispenses
+                settle(batch, restocked, Set.of(), dispenses.keySet(), gone, false);
+                failedFlushes.increment();
+                throw e;
+            }
+            Set<Integer> refused = new HashSet<>(dispenses.keySet());
+            refused.removeAll(dispensed);
+            if (!refused.isEmpty()) { // rare: deleted meanwhile, or writers outside this DAO took the stock buffer() counted on
+                try {
+                    Set<Integer> present = new HashSet<>();
+                    for (Medicine m : delegate.getMedicinesByIds(refused)) present.add(m.getId());
+                    for (int id : refused) if (!present.contains(id)) gone.add(id);
+                    refused.removeAll(gone);
+                } catch (RuntimeException | DatabaseOperationException e) { // keep them all; a deleted row shows up as gone next time
+                    System.err.println("Write-behind flush could not check " + refused.size() + " refused medicines: " + e.getMessage());
+                }
+            }
+            List<Integer> newlyRefused = settle(batch, restocked, dispensed, refused, gone, true);
+            Set<Integer> written = new HashSet<>(restocked);
+            written.addAll(dispensed);
+            rowsWritten.add(written.size());
+            flushes.increment();
+            skippedRows.add(gone.size() + newlyRefused.size());
+            if (!newlyRefused.isEmpty())
+                System.err.println("Write-behind flush: too little stock left for the buffered dispenses of medicines " + newlyRefused
+                        + "; they stay buffered until a restock covers them");
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+
+    private List<Integer> settle(Map<Integer, Pending> batch, Set<Integer> restocked, Set<Integer> dispensed, Set<Integer> kept, Set<Integer> gone,
+                                 boolean refusedByStore) { // kept rows stay buffered; returns the IDs the store refused for the first time
+        List<Integer> newlyRefused = new ArrayList<>();
+        synchronized (lock) {
+            batch.forEach((id, p) -> {
+                if (gone.contains(id)) { // deleted: its changes go with it
+                    versionOffsets.remove(id);
+                    return;
+                }
+                int bumps = (restocked.contains(id) ? 1 : 0) + (dispensed.contains(id) ? 1 : 0); // one version bump per write
+                if (kept.contains(id)) { // rebuffer what wasn't written, with the changes the writes didn't account for, so readers' versions don't move
+                    Pending rest = new Pending();
+                    if (!restocked.contains(id)) rest.restocked = p.restocked;
+                    if (!dispensed.contains(id)) rest.dispensed = p.dispensed;
+                    rest.changes = p.changes - bumps;
+                    rest.refused = p.refused || refusedByStore;
+                    if (refusedByStore && !p.refused) newlyRefused.add(id);
+                    pending.merge(id, rest, WriteBehindMedicineDAO::combine);
+                } else if (p.changes != bumps) {
+                    versionOffsets.merge(id, p.changes - bumps, Integer::sum); // only rows written in full; rebuffered ones keep their changes instead
+                }
+            });
+        }
+        return newlyRefused;
+    }
+
+    public WriteBehindStats getStats() {
+        synchronized (lock) {
+            return new WriteBehindStats(buffered.sum(), pending.size(), flushes.sum(), rowsWritten.sum(), skippedRows.sum(), failedFlushes.sum());
+        }
+    }
+
+    @Override
+    public void close() throws DatabaseOperationException { // stop the timer and write what is still buffered
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushLock.writeLock().lock();
+        try {
+            closed = true;
+            flush();
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+
+    private void buffer(int id, int delta) throws MedicineNotFoundException, InsufficientStockException, DatabaseOperationException {
+        int waiting;
+        flushLock.readLock().lock();
+        try {
+            if (closed) throw new IllegalStateException("Write-behind buffer is closed");
+            int stored = delegate.getMedicineById(id).getStock(); // normally a cache hit; also rejects unknown IDs
+            synchronized (lock) {
+                Pending p = pending.get(id);
+                int net = p == null ? 0 : p.delta();
+                if (stored + net + delta < 0) throw new InsufficientStockException(id, -delta, Math.max(0, stored + net));
+                if (p == null) pending.put(id, p = new Pending());
+                if (delta > 0) p.restocked += delta;
+                else p.dispensed -= delta;
+                p.changes++;
+                waiting = pending.size();
+            }
+        } finally {
+            flushLock.readLock().unlock();
+        }
+        buffered.increment();
+        if (waiting >= maxPendingIds && flushQueued.compareAndSet(false, true)) {
+            try {
+                flusher.execute(() -> {
+                    flushQueued.set(false);
+                    flushQuietly();
+                });
+            } catch (RejectedExecutionException e) {
+                flushQueued.set(false); // closing; close() writes the buffer itself
+            }
+        }
+    }
+
+    private void flushQuietly() { // timer and size-triggered flushes; failures are retried on the next tick
+        try {
+            flush();
+        } catch (Exception e) {
+            System.err.println("Write-behind flush failed, will retry: " + e.getMessage());
+        }
+    }
+
+    private void apply(Medicine m) { // caller holds lock
+        Pending p = pending.get(m.getId());
+        if (p != null) {
+            m.setStock(m.getStock() + p.delta());
+            m.setVersion(m.getVersion() + p.changes);
+        }
+        Integer offset = versionOffsets.get(m.getId());
+        if (offset != null) m.setVersion(m.getVersion() + offset);
+    }
+
+    private <L extends List<Medicine>> L applyAll(L list) {
+        synchronized (lock) {
+            if (!pending.isEmpty() || !versionOffsets.isEmpty()) for (Medicine m : list) apply(m);
+        }
+        return list;
+    }
+
+    private static Pending combine(Pending older, Pending newer) {
+        older.restocked += newer.restocked;
+        older.dispensed += newer.dispensed;
+        older.changes += newer.changes;
+        older.refused |= newer.refused;
+        return older;
+    }
+}
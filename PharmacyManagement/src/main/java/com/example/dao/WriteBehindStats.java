@@ -0,0 +1,14 @@
+package com.example.dao;
+
+public record WriteBehindStats(long buffered, int pending, long flushes, long rowsWritten, long skippedRows, long failedFlushes) { // Snapshot of WriteBehindMedicineDAO counters
+
+    public double coalescing() { // stock changes accepted per row actually written
+        return rowsWritten == 0 ? 0 : (double) (buffered) / rowsWritten;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("buffered=%d pending=%d flushes=%d rowsWritten=%d coalescing=%.1fx skippedRows=%d failedFlushes=%d",
+                buffered, pending, flushes, rowsWritten, coalescing(), skippedRows, failedFlushes);
+    }
+}
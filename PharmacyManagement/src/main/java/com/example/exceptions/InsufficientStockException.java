@@ -0,0 +1,18 @@
+package com.example.exceptions;
+
+public class InsufficientStockException extends RuntimeException { // Thrown when a dispense asks for more units than are in stock
+    private final int medicineId;
+    private final int requested;
+    private final int available;
+
+    public InsufficientStockException(int medicineId, int requested, int available) {
+        super("Medicine ID " + medicineId + " has " + available + " units, cannot dispense " + requested + ".");
+        this.medicineId = medicineId;
+        this.requested = requested;
+        this.available = available;
+    }
+
+    public int getMedicineId() { return medicineId; }
+    public int getRequested() { return requested; }
+    public int getAvailable() { return available; }
+}
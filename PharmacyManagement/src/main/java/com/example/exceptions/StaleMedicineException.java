@@ -0,0 +1,7 @@
+package com.example.exceptions;
+
+public class StaleMedicineException extends RuntimeException { // Thrown when an optimistic update finds the row changed since it was read
+    public StaleMedicineException(String message) {
+        super(message);
+    }
+}
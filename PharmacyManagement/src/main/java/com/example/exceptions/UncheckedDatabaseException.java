@@ -0,0 +1,7 @@
+package com.example.exceptions;
+
+public class UncheckedDatabaseException extends RuntimeException { // Database error raised where checked exceptions can't be thrown, e.g. inside a Stream
+    public UncheckedDatabaseException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.inventory;
+
+import com.example.dao.MedicineChangeListener;
+import com.example.dao.MedicineDAO;
+import com.example.dao.ObservableMedicineDAO;
+import com.example.model.Medicine;
+import com.example.exceptions.DatabaseOperationException;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+public class InventoryIndex implements MedicineChangeListener { // In-memory expiry/stock index kept current by DAO change events
+    private static final int NO_EXPIRY = Integer.MAX_VALUE; // undated rows sort after every real date
+
+    private final ConcurrentHashMap<Integer, Medicine> byId = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Medicine> byExpiry = new ConcurrentSkipListMap<>(); // key = (epochDay, id)
+    private final ConcurrentSkipListMap<Long, Medicine> byStock = new ConcurrentSkipListMap<>();  // key = (stock, id)
+    private final Set<Integer> changedWhileLoading = new HashSet<>(); // guarded by this
+    private boolean loading; // guarded by this
+
+    public void attach(ObservableMedicineDAO dao) throws DatabaseOperationException { // subscribe first, then load, so no write is missed
+        dao.addListener(this);
+        load(dao);
+    }
+
+    public void load(MedicineDAO dao) throws DatabaseOperationException { // (re)build from a full scan
+        synchronized (this) {
+            byId.clear();
+            byExpiry.clear();
+            byStock.clear();
+            changedWhileLoading.clear();
+            loading = true;
+        }
+        try (Stream<Medicine> rows = dao.streamMedicines()) {
+            rows.forEach(m -> {
+                synchronized (this) {
+                    if (!changedWhileLoading.contains(m.getId())) put(m); // an event already gave us a newer version
+                }
+            });
+        } finally {
+            synchronized (this) {
+                loading = false;
+                changedWhileLoading.clear();
+            }
+        }
+    }
+
+    @Override
+    public synchronized void medicineAdded(Medicine medicine) {
+        if (loading) changedWhileLoading.add(medicine.getId());
+        put(new Medicine(medicine));
+    }
+
+    @Override
+    public synchronized void medicineUpdated(Medicine medicine) {
+        if (loading) changedWhileLoading.add(medicine.getId());
+        put(new Medicine(medicine));
+    }
+
+    @Override
+    public synchronized void medicineDeleted(int id) {
+        if (loading) changedWhileLoading.add(id);
+        Medicine old = byId.remove(id);
+        if (old != null) unlink(old);
+    }
+
+    public Optional<Medicine> get(int id) {
+        Medicine m = byId.get(id);
+        return m == null ? Optional.empty() : Optional.of(new Medicine(m));
+    }
+
+    public int size() { return byId.size(); }
+
+    public List<Medicine> nextToExpire(LocalDate asOf, int n) { // dated rows expiring on or after asOf, soonest first
+        return copies(byExpiry.subMap(expiryKey(asOf.toEpochDay(), 0), expiryKey(NO_EXPIRY, 0)).values(), n);
+    }
+
+    public List<Medicine> expiredAsOf(LocalDate date) { // expiry strictly before date
+        return copies(byExpiry.headMap(expiryKey(date.toEpochDay(), 0)).values(), Integer.MAX_VALUE);
+    }
+
+    public List<Medicine> lowStock(int threshold) { // stock <= threshold, lowest first
+        return copies(byStock.headMap(((long) threshold + 1) << 32).values(), Integer.MAX_VALUE);
+    }
+
+    private void put(Medicine m) { // caller holds this
+        Medicine old = byId.put(m.getId(), m);
+        if (old != null) unlink(old);
+        byExpiry.put(expiryKey(m), m);
+        byStock.put(stockKey(m), m);
+    }
+
+    private void unlink(Medicine old) { // caller holds this
+        byExpiry.remove(expiryKey(old));
+        byStock.remove(stockKey(old));
+    }
+
+    private static long expiryKey(Medicine m) {
+        return expiryKey(m.getExpiryDate() == null ? NO_EXPIRY : m.getExpiryDate().toEpochDay(), m.getId());
+    }
+
+    private static long expiryKey(long epochDay, int id) {
+        return (epochDay << 32) | id;
+    }
+
+    private static long stockKey(Medicine m) {
+        return ((long) m.getStock() << 32) | m.getId();
+    }
+
+    private static List<Medicine> copies(Collection<Medicine> range, int limit) {
+        List<Medicine> out = new ArrayList<>(Math.min(limit, 64));
+        for (Medicine m : range) {
+            if (out.size() == limit) break;
+            out.add(new Medicine(m));
+        }
+        return out;
+    }
+}
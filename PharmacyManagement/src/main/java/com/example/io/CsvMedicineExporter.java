@@ -0,0 +1,52 @@
+package com.example.io;
+
+import com.example.dao.MedicineDAO;
+import com.example.model.Medicine;
+import com.example.exceptions.DatabaseOperationException;
+import com.example.exceptions.UncheckedDatabaseException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+public class CsvMedicineExporter { // Writes the whole catalog to CSV straight from a database cursor
+    private final MedicineDAO dao;
+
+    public CsvMedicineExporter(MedicineDAO dao) {
+        this.dao = dao;
+    }
+
+    public long exportTo(Path out) throws IOException, DatabaseOperationException { // returns rows written; the file appears only when complete
+        Path tmp = out.resolveSibling(out.getFileName() + ".tmp");
+        long rows = 0;
+        try {
+            try (Stream<Medicine> meds = dao.streamMedicines();
+                 BufferedWriter w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                w.write(MedicineCsv.HEADER);
+                w.write('\n');
+                Iterator<Medicine> it = meds.iterator();
+                while (it.hasNext()) {
+                    w.write(MedicineCsv.format(it.next()));
+                    w.write('\n');
+                    rows++;
+                }
+            } catch (UncheckedDatabaseException e) {
+                throw new DatabaseOperationException(e.getMessage(), e.getCause());
+            }
+            Files.move(tmp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Throwable t) { // whatever stopped the export, don't leave a partial file behind
+            try {
+                Files.deleteIfExists(tmp);
+            } catch (IOException e) {
+                t.addSuppressed(e);
+            }
+            throw t;
+        }
+        return rows;
+    }
+}
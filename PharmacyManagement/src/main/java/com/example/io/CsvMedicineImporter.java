@@ -0,0 +1,125 @@
+package com.example.io;
+
+import com.example.dao.MedicineDAO;
+import com.example.model.Medicine;
+import com.example.exceptions.DatabaseOperationException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+public class CsvMedicineImporter { // Streams a medicines CSV into the DAO in batched upserts, resumable from the last committed batch
+    private static final int MAX_RECORD_LINES = 64; // a stray quote must not swallow the rest of the file
+
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(ImportResult soFar, long bytesDone, long bytesTotal);
+    }
+
+    private final MedicineDAO dao;
+    private final int batchSize;
+
+    public CsvMedicineImporter(MedicineDAO dao, int batchSize) {
+        if (batchSize < 1) throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        this.dao = dao;
+        this.batchSize = batchSize;
+    }
+
+    public static Path checkpointFor(Path csv) {
+        return csv.resolveSibling(csv.getFileName() + ".checkpoint");
+    }
+
+    // Rows with a medicine_id are merged by ID (use IDs from an export of the same database); rows without one are inserted.
+    // A crash between a batch commit and its checkpoint replays that batch on restart.
+    public ImportResult importFile(Path csv, Path rejectFile, ProgressListener progress) throws IOException, DatabaseOperationException {
+        Path checkpoint = checkpointFor(csv);
+        Properties cp = loadCheckpoint(checkpoint);
+        long startOffset = Long.parseLong(cp.getProperty("offset", "0"));
+        long lineNo = Long.parseLong(cp.getProperty("line", "0"));
+        long imported = Long.parseLong(cp.getProperty("imported", "0"));
+        long rejected = Long.parseLong(cp.getProperty("rejected", "0"));
+        boolean resumed = startOffset > 0;
+
+        StandardOpenOption mode = resumed ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING;
+        try (NioLineReader reader = new NioLineReader(csv, startOffset);
+             BufferedWriter rejects = Files.newBufferedWriter(rejectFile, StandardCharsets.UTF_8,
+                     StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode)) {
+            if (!resumed) rejects.write("line,error,raw\n");
+            long total = reader.size();
+            List<Medicine> batch = new ArrayList<>(batchSize);
+            StringBuilder batchRejects = new StringBuilder(); // written only once the batch is committed
+            long batchRejected = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank() || (lineNo == 1 && MedicineCsv.isHeader(line))) continue;
+                long recordLine = lineNo;
+                String next;
+                while (!MedicineCsv.isComplete(line) && lineNo - recordLine < MAX_RECORD_LINES - 1 && (next = reader.readLine()) != null) {
+                    lineNo++;
+                    line = line + '\n' + next; // a quoted line break; \r\n comes back as \n
+                }
+                try {
+                    batch.add(MedicineCsv.parse(line));
+                } catch (IllegalArgumentException e) {
+                    batchRejects.append(recordLine).append(',').append(MedicineCsv.quote(e.getMessage()))
+                            .append(',').append(MedicineCsv.quote(line)).append('\n');
+                    batchRejected++;
+                }
+                if (batch.size() == batchSize) {
+                    imported += commit(batch, rejects, batchRejects);
+                    rejected += batchRejected;
+                    batchRejected = 0;
+                    saveCheckpoint(checkpoint, reader.offset(), lineNo, imported, rejected);
+                    if (progress != null) progress.onProgress(new ImportResult(lineNo, imported, rejected, resumed), reader.offset(), total);
+                }
+            }
+            imported += commit(batch, rejects, batchRejects);
+            rejected += batchRejected;
+            if (progress != null) progress.onProgress(new ImportResult(lineNo, imported, rejected, resumed), total, total);
+        }
+        Files.deleteIfExists(checkpoint); // finished: the next import of this path starts from the top
+        return new ImportResult(lineNo, imported, rejected, resumed);
+    }
+
+    private int commit(List<Medicine> batch, BufferedWriter rejects, StringBuilder batchRejects) throws IOException, DatabaseOperationException {
+        int n = batch.isEmpty() ? 0 : dao.upsertMedicines(batch);
+        batch.clear();
+        rejects.append(batchRejects);
+        rejects.flush();
+        batchRejects.setLength(0);
+        return n;
+    }
+
+    private static Properties loadCheckpoint(Path checkpoint) throws IOException {
+        Properties p = new Properties();
+        if (Files.exists(checkpoint)) {
+            try (InputStream in = Files.newInputStream(checkpoint)) {
+                p.load(in);
+            }
+        }
+        return p;
+    }
+
+    private static void saveCheckpoint(Path checkpoint, long offset, long line, long imported, long rejected) throws IOException {
+        Properties p = new Properties();
+        p.setProperty("offset", String.valueOf(offset));
+        p.setProperty("line", String.valueOf(line));
+        p.setProperty("imported", String.valueOf(imported));
+        p.setProperty("rejected", String.valueOf(rejected));
+        Path tmp = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            p.store(out, "CSV import progress");
+        }
+        Files.move(tmp, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
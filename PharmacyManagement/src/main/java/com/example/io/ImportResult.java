@@ -0,0 +1,9 @@
+package com.example.io;
+
+public record ImportResult(long linesRead, long imported, long rejected, boolean resumed) { // Totals for one CSV import, including earlier attempts when resumed
+
+    @Override
+    public String toString() {
+        return "lines=" + linesRead + " imported=" + imported + " rejected=" + rejected + (resumed ? " (resumed)" : "");
+    }
+}
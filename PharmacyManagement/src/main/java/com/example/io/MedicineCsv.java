@@ -0,0 +1,81 @@
+package com.example.io;
+
+import com.example.model.Medicine;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class MedicineCsv { // CSV layout shared by import and export: medicine_id,name,expiry_date,price,stock
+    public static final String HEADER = "medicine_id,name,expiry_date,price,stock";
+
+    private MedicineCsv() {}
+
+    public static String format(Medicine m) {
+        return m.getId() + "," + quote(m.getName()) + "," + (m.getExpiryDate() == null ? "" : m.getExpiryDate())
+                + "," + m.getPrice() + "," + m.getStock();
+    }
+
+    public static boolean isHeader(String line) {
+        return line.regionMatches(true, 0, "medicine_id,", 0, 12) || line.regionMatches(true, 0, "id,", 0, 3);
+    }
+
+    public static Medicine parse(String line) { // throws IllegalArgumentException with a readable reason
+        List<String> f = split(line);
+        if (f.size() != 5) throw new IllegalArgumentException("expected 5 fields, found " + f.size());
+        Medicine m = new Medicine();
+        try {
+            String id = f.get(0).strip();
+            m.setId(id.isEmpty() ? 0 : Integer.parseInt(id)); // blank = new medicine
+            if (m.getId() < 0) throw new IllegalArgumentException("negative medicine_id");
+            m.setName(f.get(1).strip());
+            if (m.getName().isEmpty()) throw new IllegalArgumentException("name is empty");
+            String expiry = f.get(2).strip();
+            if (!expiry.isEmpty()) m.setExpiryDate(LocalDate.parse(expiry));
+            m.setPrice(Double.parseDouble(f.get(3).strip()));
+            m.setStock(Integer.parseInt(f.get(4).strip()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("bad number: " + e.getMessage());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("bad expiry_date: " + e.getParsedString());
+        }
+        if (m.getPrice() < 0 || m.getStock() < 0) throw new IllegalArgumentException("negative price or stock");
+        return m;
+    }
+
+    static String quote(String s) {
+        if (s == null) return "";
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0 && s.indexOf('\r') < 0) return s;
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
+
+    static boolean isComplete(String record) { // false while a quoted field is still open, i.e. the record goes on past the line break
+        int quotes = 0;
+        for (int i = 0; i < record.length(); i++) if (record.charAt(i) == '"') quotes++;
+        return quotes % 2 == 0; // an escaped "" counts twice
+    }
+
+    static List<String> split(String line) { // RFC 4180 quoting; a quoted field may hold line breaks
+        List<String> fields = new ArrayList<>(5);
+        StringBuilder cur = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    cur.append('"');
+                    i++;
+                } else if (c == '"') quoted = false;
+                else cur.append(c);
+            } else if (c == '"') quoted = true;
+            else if (c == ',') {
+                fields.add(cur.toString());
+                cur.setLength(0);
+            } else cur.append(c);
+        }
+        if (quoted) throw new IllegalArgumentException("unterminated quote");
+        fields.add(cur.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+final class NioLineReader implements AutoCloseable { // Reads UTF-8 lines straight off a FileChannel, tracking the byte offset for restarts
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+    private byte[] line = new byte[256];
+    private long offset; // file position just after the last line returned
+    private long lineStart;
+    private boolean eof;
+
+    NioLineReader(Path file, long startOffset) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        channel.position(startOffset);
+        offset = startOffset;
+        buffer.flip(); // start empty
+    }
+
+    String readLine() throws IOException { // null at end of file; strips \n and \r\n
+        int len = 0;
+        lineStart = offset;
+        while (true) {
+            if (!buffer.hasRemaining()) {
+                if (eof || !fill()) {
+                    if (len == 0) return null;
+                    return decode(len); // last line without a terminator
+                }
+            }
+            byte b = buffer.get();
+            offset++;
+            if (b == '\n') {
+                if (len > 0 && line[len - 1] == '\r') len--;
+                return decode(len);
+            }
+            if (len == line.length) line = Arrays.copyOf(line, len * 2);
+            line[len++] = b;
+        }
+    }
+
+    long offset() { return offset; }
+
+    long size() throws IOException { return channel.size(); }
+
+    private boolean fill() throws IOException {
+        buffer.clear();
+        int n = channel.read(buffer);
+        buffer.flip();
+        if (n <= 0) eof = true;
+        return n > 0;
+    }
+
+    private String decode(int len) {
+        if (lineStart == 0 && len >= 3 && (line[0] & 0xFF) == 0xEF && (line[1] & 0xFF) == 0xBB && (line[2] & 0xFF) == 0xBF)
+            return new String(line, 3, len - 3, StandardCharsets.UTF_8); // skip a UTF-8 BOM on the first line
+        return new String(line, 0, len, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
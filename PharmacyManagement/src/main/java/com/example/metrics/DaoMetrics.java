@@ -0,0 +1,97 @@
+package com.example.metrics;
+
+import com.example.util.ConnectionPool;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+public class DaoMetrics implements DaoMetricsMXBean { // Per-operation latency, row and error counters for InstrumentedMedicineDAO
+
+    public enum Operation {
+        ADD, ADD_BATCH, UPSERT, GET_BY_ID, GET_BY_IDS, GET_ALL, STREAM, PAGE, FIND_EXPIRING, FIND_LOW_STOCK,
+        UPDATE, DELETE, DISPENSE, RESTOCK, STOCK_DELTAS, CHANGES
+    }
+
+    private final LatencyHistogram[] latency = new LatencyHistogram[Operation.values().length];
+    private final LongAdder[] rows = new LongAdder[Operation.values().length];
+    private final ConcurrentHashMap<String, LongAdder> errors = new ConcurrentHashMap<>(); // by exception class name
+    private volatile ConnectionPool pool; // optional, adds connection wait times to the report
+
+    public DaoMetrics() {
+        for (int i = 0; i < latency.length; i++) {
+            latency[i] = new LatencyHistogram();
+            rows[i] = new LongAdder();
+        }
+    }
+
+    public void setPool(ConnectionPool pool) { this.pool = pool; }
+
+    public void record(Operation op, long nanos) { latency[op.ordinal()].record(nanos); }
+    public void addRows(Operation op, long n) { rows[op.ordinal()].add(n); }
+
+    public void recordError(Throwable e) {
+        errors.computeIfAbsent(e.getClass().getSimpleName(), k -> new LongAdder()).increment(); // allocates only the first time a type is seen
+    }
+
+    public HistogramSnapshot snapshot(Operation op) { return latency[op.ordinal()].snapshot(); }
+    public long rows(Operation op) { return rows[op.ordinal()].sum(); }
+
+    public ObjectName register(String name) throws Exception { // expose through JMX as com.example:type=DaoMetrics,name=<name>
+        ObjectName objectName = new ObjectName("com.example:type=DaoMetrics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    @Override
+    public Map<String, Long> getCallCounts() {
+        Map<String, Long> out = new LinkedHashMap<>();
+        for (Operation op : Operation.values()) out.put(op.name(), latency[op.ordinal()].snapshot().count());
+        return out;
+    }
+
+    @Override
+    public Map<String, Long> getErrorCounts() {
+        Map<String, Long> out = new TreeMap<>();
+        errors.forEach((k, v) -> out.put(k, v.sum()));
+        return out;
+    }
+
+    @Override
+    public double getPercentileMillis(String operation, double percentile) {
+        if (!(percentile > 0 && percentile <= 100)) throw new IllegalArgumentException("Percentile must be in (0, 100]: " + percentile);
+        return latency[Operation.valueOf(operation).ordinal()].percentileNanos(percentile / 100) / 1e6;
+    }
+
+    @Override
+    public String dump() { // plain-text report, one line per operation that has been called
+        StringBuilder sb = new StringBuilder();
+        for (Operation op : Operation.values()) {
+            HistogramSnapshot s = snapshot(op);
+            if (s.count() == 0) continue;
+            sb.append(String.format("%-15s %s rows=%d%n", op, s, rows(op)));
+        }
+        if (sb.isEmpty()) sb.append("No DAO calls recorded yet.").append(System.lineSeparator());
+        Map<String, Long> errs = getErrorCounts();
+        if (!errs.isEmpty()) sb.append("errors: ").append(errs).append(System.lineSeparator());
+        ConnectionPool p = pool;
+        if (p != null) {
+            sb.append(String.format("%-15s %s%n", "CONN_ACQUIRE", p.getAcquireLatency()));
+            sb.append("pool: ").append(p.getStats()).append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < latency.length; i++) {
+            latency[i].reset();
+            rows[i].reset();
+        }
+        errors.clear();
+    }
+}
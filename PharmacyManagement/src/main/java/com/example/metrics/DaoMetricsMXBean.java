@@ -0,0 +1,11 @@
+package com.example.metrics;
+
+import java.util.Map;
+
+public interface DaoMetricsMXBean { // JMX view of DaoMetrics
+    Map<String, Long> getCallCounts();
+    Map<String, Long> getErrorCounts();
+    double getPercentileMillis(String operation, double percentile); // percentile in (0, 100], e.g. 95 or 99.9
+    String dump();
+    void reset();
+}
@@ -0,0 +1,262 @@
+package com.example.metrics;
+
+import com.example.dao.ForwardingMedicineDAO;
+import com.example.dao.MedicineChanges;
+import com.example.dao.MedicineDAO;
+import com.example.metrics.DaoMetrics.Operation;
+import com.example.model.Medicine;
+import com.example.exceptions.DatabaseOperationException;
+import com.example.exceptions.InsufficientStockException;
+import com.example.exceptions.MedicineNotFoundException;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public class InstrumentedMedicineDAO extends ForwardingMedicineDAO { // Times every DAO call into DaoMetrics; no allocation on the recording path
+    private final DaoMetrics metrics;
+
+    public InstrumentedMedicineDAO(MedicineDAO delegate, DaoMetrics metrics) {
+        super(delegate);
+        this.metrics = metrics;
+    }
+
+    public DaoMetrics getMetrics() { return metrics; }
+
+    @Override
+    public void addMedicine(Medicine medicine) throws DatabaseOperationException {
+        long start = System.nanoTime();
+        try {
+            delegate.addMedicine(medicine);
+            metrics.addRows(Operation.ADD, 1);
+        } catch (RuntimeException | DatabaseOperationException e) {
+            metrics.recordError(e);
+            throw e;
+        } finally {
+            metrics.record(Operation.ADD, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int addMedicines(Collection<Medicine> medicines) throws DatabaseOperationException {
+        long start = System.nanoTime();
+        try {
+            int result = delegate.addMedicines(medicines);
+            metrics.addRows(Operation.ADD_BATCH, result);
+            return result;
+        } catch (RuntimeException | DatabaseOperationException e) {
+            metrics.recordError(e);
+            throw e;
+        } finally {
+            metrics.record(Operation.ADD_BATCH, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int upsertMedicines(Collection<Medicine> medicines) throws DatabaseOperationException {
+        long start = System.nanoTime();
+        try {
+            int result = delegate.upsertMedicines(medicines);
+            metrics.addRows(Operation.UPSERT, result);
+            return result;
+        } catch (RuntimeException | DatabaseOperationException e) {
+            metrics.recordError(e);
+            throw e;
+        } finally {
+            metrics.record(Operation.UPSERT, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Medicine getMedicineById(int id) throws MedicineNotFoundException, DatabaseOperationException {
+        long start = System.nanoTime();
+        try {
+            Medicine result = delegate.getMedicineById(id);
+            metrics.addRows(Operation.GET_BY_ID, 1);
+            return result;
+        } catch (RuntimeException | DatabaseOperationException e) {
+            metrics.recordError(e);
+            throw e;
+        } finally {
+            metrics.record(Operation.GET_BY_ID, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Medicine> getMedicinesByIds(Collection<Integer> ids) throws DatabaseOperationException {
+        long start = System.nanoTime();
+        try {
+            List<Medicine> result = delegate.getMedicinesByIds(ids);
+            metrics.addRows(Operation.GET_BY_IDS, result.size());
+            return result;
+        } catch (RuntimeException | DatabaseOperationException e) {
+            metrics.recordError(e);
+            throw e;
+        } finally {
+            metrics.record(Operation.GET_BY_IDS, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public ArrayList<Medicine> getAllMedicines() throws DatabaseOperationException {
+        long start = System.nanoTime();
+        try {
+            ArrayList<Medicine> result = delegate.getAllMedicines();
+            metrics.addRows(Operation.GET_ALL, result.size());
+            return result;
+        } catch (RuntimeException | DatabaseOperationException e) {
+            metrics.recordError(e);
+            throw e;
+        } finally {
+            metrics.record(Operation.GET_ALL, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Medicine> getMedicinesPage(LocalDate afterExpiry, int afterId, int limit) throws DatabaseOperationException {
+        long start = System.nanoTime();
+        try {
+            List<Medicine> result = delegate.getMedicinesPage(afterExpiry, afterId, limit);
+            metrics.addRows(Operation.PAGE, result.size());
+            return result;
+        } catch (RuntimeException | DatabaseOperationException e) {
+            metrics.recordError(e);
+            throw e;
+        } finally {
+            metrics.record(Operation.PAGE, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Medicine> findExpiringBetween(LocalDate from, LocalDate to) throws DatabaseOperationException {
+        long start = System.nanoTime();
+        try {
+            List<Medicine> result = delegate.findExpiringBetween(from, to);
+            metrics.addRows(Operation.FIND_EXPIRING, result.size());
+            return result;
+        } catch (RuntimeException | DatabaseOperationException e) {
+            metrics.recordError(e);
+            throw e;
+        } finally {
+            metrics.record(Operation.FIND_EXPIRING, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Medicine> findLowStock(int threshold) throws DatabaseOperationException {
+        long start = System.nanoTime();
+        try {
+            List<Medicine> result = delegate.findLowStock(threshold);
+            metrics.addRows(Operation.FIND_LOW_STOCK, result.size());
+            return result;
+        } catch (RuntimeException | DatabaseOperationException e) {
+            metrics.recordError(e);
+            throw e;
+        } finally {
+            metrics.record(Operation.FIND_LOW_STOCK, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void updateMedicine(Medicine medicine) throws MedicineNotFoundException, DatabaseOperationException {
+        long start = System.nanoTime();
+        try {
+            delegate.updateMedicine(medicine);
+            metrics.addRows(Operation.UPDATE, 1);
+        } catch (RuntimeException | DatabaseOperationException e) {
+            metrics.recordError(e);
+            throw e;
+        } finally {
+            metrics.record(Operation.UPDATE, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void deleteMedicine(int id) throws MedicineNotFoundException, DatabaseOperationException {
+        long start = System.nanoTime();
+        try {
+            delegate.deleteMedicine(id);
+            metrics.addRows(Operation.DELETE, 1);
+        } catch (RuntimeException | DatabaseOperationException e) {
+            metrics.recordError(e);
+            throw e;
+        } finally {
+            metrics.record(Operation.DELETE, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void dispense(int id, int quantity) throws MedicineNotFoundException, InsufficientStockException, DatabaseOperationException {
+        long start = System.nanoTime();
+        try {
+            delegate.dispense(id, quantity);
+            metrics.addRows(Operation.DISPENSE, 1);
+        } catch (RuntimeException | DatabaseOperationException e) {
+            metrics.recordError(e);
+            throw e;
+        } finally {
+            metrics.record(Operation.DISPENSE, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void restock(int id, int quantity) throws MedicineNotFoundException, DatabaseOperationException {
+        long start = System.nanoTime();
+        try {
+            delegate.restock(id, quantity);
+            metrics.addRows(Operation.RESTOCK, 1);
+        } catch (RuntimeException | DatabaseOperationException e) {
+            metrics.recordError(e);
+            throw e;
+        } finally {
+            metrics.record(Operation.RESTOCK, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Set<Integer> applyStockDeltas(Map<Integer, Integer> deltas) throws DatabaseOperationException {
+        long start = System.nanoTime();
+        try {
+            Set<Integer> result = delegate.applyStockDeltas(deltas);
+            metrics.addRows(Operation.STOCK_DELTAS, result.size());
+            return result;
+        } catch (RuntimeException | DatabaseOperationException e) {
+            metrics.recordError(e);
+            throw e;
+        } finally {
+            metrics.record(Operation.STOCK_DELTAS, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public MedicineChanges getChangesSince(long token) throws DatabaseOperationException {
+        long start = System.nanoTime();
+        try {
+            MedicineChanges result = delegate.getChangesSince(token);
+            metrics.addRows(Operation.CHANGES, result.size());
+            return result;
+        } catch (RuntimeException | DatabaseOperationException e) {
+            metrics.recordError(e);
+            throw e;
+        } finally {
+            metrics.record(Operation.CHANGES, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Stream<Medicine> streamMedicines() throws DatabaseOperationException { // latency covers opening the cursor; rows are counted as they are read
+        long start = System.nanoTime();
+        try {
+            return delegate.streamMedicines().peek(m -> metrics.addRows(Operation.STREAM, 1));
+        } catch (RuntimeException | DatabaseOperationException e) {
+            metrics.recordError(e);
+            throw e;
+        } finally {
+            metrics.record(Operation.STREAM, System.nanoTime() - start);
+        }
+    }
+}
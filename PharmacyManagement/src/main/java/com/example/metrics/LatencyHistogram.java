@@ -0,0 +1,80 @@
+package com.example.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LatencyHistogram { // Log-linear histogram of nanosecond latencies (~3% precision), lock- and allocation-free to record
+    private static final int MANTISSA_BITS = 6; // 32 sub-buckets per power of two
+    private static final int HALF = 1 << (MANTISSA_BITS - 1);
+    private static final int BUCKETS = (63 - MANTISSA_BITS + 1) * HALF + 2 * HALF;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(bucketOf(nanos));
+        total.increment();
+        sum.add(nanos);
+        max.accumulateAndGet(nanos, Math::max);
+    }
+
+    public HistogramSnapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long n = copyCounts(copy);
+        long maxNanos = max.get();
+        return new HistogramSnapshot(n, n == 0 ? 0 : (double) sum.sum() / total.sum(),
+                percentile(copy, n, 0.50, maxNanos), percentile(copy, n, 0.99, maxNanos),
+                percentile(copy, n, 0.999, maxNanos), maxNanos);
+    }
+
+    public long percentileNanos(double p) { // any quantile in (0, 1], e.g. 0.95; the snapshot only carries p50/p99/p999
+        if (!(p > 0 && p <= 1)) throw new IllegalArgumentException("Quantile must be in (0, 1]: " + p);
+        long[] copy = new long[BUCKETS];
+        long n = copyCounts(copy);
+        return percentile(copy, n, p, max.get());
+    }
+
+    private long copyCounts(long[] copy) {
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            n += copy[i];
+        }
+        return n;
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        total.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    static int bucketOf(long v) {
+        if (v < 2 * HALF) return (int) v;
+        int shift = 63 - Long.numberOfLeadingZeros(v) - (MANTISSA_BITS - 1);
+        return shift * HALF + (int) (v >>> shift); // v >>> shift lies in [HALF, 2 * HALF)
+    }
+
+    static long upperBoundOf(int bucket) {
+        if (bucket < 2 * HALF) return bucket;
+        int shift = bucket / HALF - 1;
+        long mantissa = bucket - (long) shift * HALF;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    private static long percentile(long[] counts, long n, double p, long maxNanos) {
+        if (n == 0) return 0;
+        long rank = (long) Math.ceil(p * n);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Math.min(upperBoundOf(i), maxNanos);
+        }
+        return maxNanos;
+    }
+}
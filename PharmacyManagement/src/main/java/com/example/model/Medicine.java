@@ -8,6 +8,7 @@ public class Medicine {    // Fields
     private LocalDate expiryDate;
     private double price;
     private int stock;
+    private int version; // row version for optimistic locking
 
     public Medicine() {}  // Default constructor
 
@@ -26,6 +27,11 @@ public class Medicine {    // Fields
         this.stock = stock;
     }
 
+    public Medicine(Medicine other) { // Copy constructor
+        this(other.id, other.name, other.expiryDate, other.price, other.stock);
+        this.version = other.version;
+    }
+
     // Getters & Setters
     public int getId() { return id; }
     public void setId(int id) { this.id = id; }
@@ -42,6 +48,9 @@ public class Medicine {    // Fields
     public int getStock() { return stock; }
     public void setStock(int stock) { this.stock = stock; }
 
+    public int getVersion() { return version; }
+    public void setVersion(int version) { this.version = version; }
+
     @Override
     public String toString() {
         return "Medicine{" +
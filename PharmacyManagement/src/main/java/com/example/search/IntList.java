@@ -0,0 +1,29 @@
+package com.example.search;
+
+import java.util.Arrays;
+
+final class IntList { // Growable int[] posting list; order is not kept
+    private int[] values = new int[4];
+    private int size;
+
+    void add(int v) {
+        if (size == values.length) values = Arrays.copyOf(values, size * 2);
+        values[size++] = v;
+    }
+
+    boolean remove(int v) { // swap in the last element
+        for (int i = 0; i < size; i++) {
+            if (values[i] == v) {
+                values[i] = values[--size];
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int removeLast() { return values[--size]; }
+    void clear() { size = 0; }
+
+    int get(int i) { return values[i]; }
+    int size() { return size; }
+}
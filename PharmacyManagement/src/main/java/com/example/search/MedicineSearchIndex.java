@@ -0,0 +1,315 @@
+package com.example.search;
+
+import com.example.dao.MedicineChangeListener;
+import com.example.dao.MedicineDAO;
+import com.example.dao.ObservableMedicineDAO;
+import com.example.model.Medicine;
+import com.example.exceptions.DatabaseOperationException;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+public class MedicineSearchIndex implements MedicineChangeListener { // In-memory name search: sorted names and words for prefixes, trigrams for substrings and typos
+    private static final double MIN_SIMILARITY = 0.5;     // share of the query's trigrams a typo match must contain
+    private static final int MAX_WORD_CANDIDATES = 20_000; // caps the work for one- or two-letter queries
+    private static final int POSTINGS_BUDGET = 100_000;    // postings read per substring/typo search; the rarest trigrams are read first
+
+    private final ReentrantReadWriteLock rw = new ReentrantReadWriteLock();
+    private final HashMap<Integer, Entry> byId = new HashMap<>();
+    private Entry[] slots = new Entry[1024]; // postings hold dense slot numbers rather than medicine IDs
+    private final IntList freeSlots = new IntList();
+    private int slotCount;
+    private final TreeMap<String, IntList> names = new TreeMap<>();  // normalized name -> slots, for name prefixes in name order
+    private final TreeMap<String, IntList> words = new TreeMap<>();  // word -> slots of names containing it
+    private final HashMap<Long, IntList> trigrams = new HashMap<>(); // packed trigram -> slots of names containing it
+    private final ThreadLocal<int[]> counters = ThreadLocal.withInitial(() -> new int[0]); // per-slot hit counts, all zero between searches
+    private final Set<Integer> changedWhileLoading = new HashSet<>();
+    private boolean loading;
+    // everything above is guarded by rw
+
+    private record Entry(Medicine medicine, String key, int slot) {} // key = normalized name
+
+    private record Hit(Entry entry, double score) {}
+
+    private static final Comparator<Hit> RANK = Comparator.comparingDouble(Hit::score).reversed() // then shorter names, then lower IDs
+            .thenComparingInt(h -> h.entry().key().length())
+            .thenComparingInt(h -> h.entry().medicine().getId());
+
+    public void attach(ObservableMedicineDAO dao) throws DatabaseOperationException { // subscribe first, then load, so no write is missed
+        dao.addListener(this);
+        load(dao);
+    }
+
+    public void load(MedicineDAO dao) throws DatabaseOperationException { // (re)build from a full scan
+        rw.writeLock().lock();
+        try {
+            byId.clear();
+            Arrays.fill(slots, null);
+            freeSlots.clear();
+            slotCount = 0;
+            names.clear();
+            words.clear();
+            trigrams.clear();
+            changedWhileLoading.clear();
+            loading = true;
+        } finally {
+            rw.writeLock().unlock();
+        }
+        try (Stream<Medicine> rows = dao.streamMedicines()) {
+            rows.forEach(m -> {
+                rw.writeLock().lock();
+                try {
+                    if (!changedWhileLoading.contains(m.getId())) put(m); // an event already gave us a newer version
+                } finally {
+                    rw.writeLock().unlock();
+                }
+            });
+        } finally {
+            rw.writeLock().lock();
+            try {
+                loading = false;
+                changedWhileLoading.clear();
+            } finally {
+                rw.writeLock().unlock();
+            }
+        }
+    }
+
+    @Override
+    public void medicineAdded(Medicine medicine) { medicineUpdated(medicine); }
+
+    @Override
+    public void medicineUpdated(Medicine medicine) {
+        Medicine copy = new Medicine(medicine);
+        rw.writeLock().lock();
+        try {
+            if (loading) changedWhileLoading.add(copy.getId());
+            put(copy);
+        } finally {
+            rw.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void medicineDeleted(int id) {
+        rw.writeLock().lock();
+        try {
+            if (loading) changedWhileLoading.add(id);
+            Entry old = byId.remove(id);
+            if (old != null) {
+                unlink(old);
+                slots[old.slot()] = null;
+                freeSlots.add(old.slot());
+            }
+        } finally {
+            rw.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        rw.readLock().lock();
+        try {
+            return byId.size();
+        } finally {
+            rw.readLock().unlock();
+        }
+    }
+
+    public List<Medicine> searchByName(String query, int limit) { // best first: exact name, name prefix, word prefix, substring, then typo matches
+        String q = normalize(query);
+        if (q.isEmpty() || limit < 1) return List.of();
+        List<Medicine> out = new ArrayList<>(Math.min(limit, 64));
+        rw.readLock().lock();
+        try {
+            for (IntList ids : names.subMap(q, true, q + Character.MAX_VALUE, false).values()) { // name order, so an exact match comes first
+                for (int i = 0; i < ids.size(); i++) {
+                    out.add(new Medicine(slots[ids.get(i)].medicine()));
+                    if (out.size() == limit) return out; // the common case for typed prefixes
+                }
+            }
+            int need = limit - out.size();
+            PriorityQueue<Hit> top = new PriorityQueue<>(need + 1, RANK.reversed()); // worst kept hit at the head
+            collectWordPrefixHits(q, top, need);
+            if (top.size() < need) collectSubstringHits(q, top, need); // each step only runs if the better ones came up short
+            if (top.size() < need) collectFuzzyHits(q, top, need);
+            List<Hit> ranked = new ArrayList<>(top);
+            ranked.sort(RANK);
+            for (Hit h : ranked) out.add(new Medicine(h.entry().medicine()));
+            return out;
+        } finally {
+            rw.readLock().unlock();
+        }
+    }
+
+    private void collectWordPrefixHits(String q, PriorityQueue<Hit> top, int need) { // caller holds the read lock
+        int space = q.indexOf(' ');
+        String first = space < 0 ? q : q.substring(0, space);
+        String wordStart = ' ' + q;
+        Set<Integer> offered = new HashSet<>(); // a name with several words starting with q is on several of these lists
+        int seen = 0;
+        for (IntList ids : words.subMap(first, true, first + Character.MAX_VALUE, false).values()) {
+            for (int i = 0; i < ids.size(); i++) {
+                if (++seen > MAX_WORD_CANDIDATES) return;
+                if (!offered.add(ids.get(i))) continue;
+                Entry e = slots[ids.get(i)];
+                if (!e.key().startsWith(q) && e.key().contains(wordStart)) offer(top, e, 3, need);
+            }
+        }
+    }
+
+    private void collectSubstringHits(String q, PriorityQueue<Hit> top, int need) { // caller holds the read lock
+        List<IntList> lists = rarestFirst(tilingTrigramsOf(q));
+        if (lists.isEmpty() || lists.get(0).size() == 0) return; // a name containing q is on every one of its trigram lists
+        int used = withinBudget(lists);
+        String wordStart = ' ' + q;
+        countShared(lists, used, (slot, shared) -> {
+            if (shared < used) return; // not on every list read
+            Entry e = slots[slot];
+            if (e.key().contains(q) && !e.key().startsWith(q) && !e.key().contains(wordStart)) offer(top, e, 2, need);
+        });
+    }
+
+    private void collectFuzzyHits(String q, PriorityQueue<Hit> top, int need) { // caller holds the read lock
+        List<IntList> lists = rarestFirst(trigramsOf(q));
+        if (lists.isEmpty()) return;
+        int used = withinBudget(lists); // the most common trigrams say the least, so they are the ones dropped
+        int needed = (int) Math.ceil(used * MIN_SIMILARITY);
+        countShared(lists, used, (slot, shared) -> {
+            if (shared < needed) return;
+            Entry e = slots[slot];
+            if (shared == used && e.key().contains(q)) return; // ranked already as a prefix or substring
+            offer(top, e, (double) shared / used, need);
+        });
+    }
+
+    private interface SharedCount {
+        void accept(int slot, int shared);
+    }
+
+    private List<IntList> rarestFirst(long[] grams) {
+        List<IntList> lists = new ArrayList<>(grams.length);
+        for (long g : grams) lists.add(trigrams.getOrDefault(g, new IntList()));
+        lists.sort(Comparator.comparingInt(IntList::size));
+        return lists;
+    }
+
+    private static int withinBudget(List<IntList> lists) { // how many of the rarest lists fit in the budget, at least one
+        int read = lists.get(0).size(), used = 1;
+        while (used < lists.size() && read + lists.get(used).size() <= POSTINGS_BUDGET) read += lists.get(used++).size();
+        return used;
+    }
+
+    private void countShared(List<IntList> lists, int used, SharedCount visitor) { // how many of the first `used` lists each slot is on
+        int[] counts = counters.get();
+        if (counts.length < slotCount) counters.set(counts = new int[slots.length]);
+        IntList touched = new IntList();
+        for (int l = 0; l < used; l++) {
+            IntList ids = lists.get(l);
+            for (int i = 0; i < ids.size(); i++) {
+                int slot = ids.get(i);
+                if (counts[slot]++ == 0) touched.add(slot);
+            }
+        }
+        for (int i = 0; i < touched.size(); i++) {
+            int slot = touched.get(i);
+            int shared = counts[slot];
+            counts[slot] = 0;
+            visitor.accept(slot, shared);
+        }
+    }
+
+    private static void offer(PriorityQueue<Hit> top, Entry e, double score, int need) { // keeps the best `need` hits
+        if (top.size() == need) {
+            Hit worst = top.peek();
+            if (score < worst.score()) return; // cheap rejections first; most candidates end here
+            if (score == worst.score()) {
+                int len = e.key().length(), worstLen = worst.entry().key().length();
+                if (len > worstLen || len == worstLen && e.medicine().getId() > worst.entry().medicine().getId()) return;
+            }
+            top.poll();
+        }
+        top.add(new Hit(e, score));
+    }
+
+    private void put(Medicine m) { // caller holds the write lock
+        String key = normalize(m.getName());
+        Entry old = byId.get(m.getId());
+        if (old != null && old.key().equals(key)) { // stock/price/expiry change, nothing to reindex
+            Entry e = new Entry(m, key, old.slot());
+            byId.put(m.getId(), e);
+            slots[e.slot()] = e;
+            return;
+        }
+        if (old != null) unlink(old);
+        int slot = old != null ? old.slot() : allocateSlot();
+        Entry e = new Entry(m, key, slot);
+        byId.put(m.getId(), e);
+        slots[slot] = e;
+        names.computeIfAbsent(key, k -> new IntList()).add(slot);
+        for (String w : key.split(" ")) {
+            if (!w.isEmpty()) words.computeIfAbsent(w, k -> new IntList()).add(slot);
+        }
+        for (long g : trigramsOf(key)) trigrams.computeIfAbsent(g, k -> new IntList()).add(slot);
+    }
+
+    private int allocateSlot() { // caller holds the write lock
+        if (freeSlots.size() > 0) return freeSlots.removeLast();
+        if (slotCount == slots.length) slots = Arrays.copyOf(slots, slotCount * 2);
+        return slotCount++;
+    }
+
+    private void unlink(Entry e) { // caller holds the write lock
+        remove(names, e.key(), e.slot());
+        for (String w : e.key().split(" ")) remove(words, w, e.slot());
+        for (long g : trigramsOf(e.key())) remove(trigrams, g, e.slot());
+    }
+
+    private static <K> void remove(Map<K, IntList> postings, K key, int slot) {
+        IntList ids = postings.get(key);
+        if (ids != null && ids.remove(slot) && ids.size() == 0) postings.remove(key);
+    }
+
+    static String normalize(String name) { // lower case, accents stripped, punctuation collapsed to single spaces
+        if (name == null) return "";
+        String s = Normalizer.normalize(name, Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(s.length());
+        boolean gap = true;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) continue;
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(Character.toLowerCase(c));
+                gap = false;
+            } else if (!gap) {
+                sb.append(' ');
+                gap = true;
+            }
+        }
+        if (gap && sb.length() > 0) sb.setLength(sb.length() - 1);
+        return sb.toString();
+    }
+
+    static long[] trigramsOf(String key) { // distinct trigrams, in order of first appearance
+        LinkedHashSet<Long> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= key.length(); i++) grams.add(pack(key, i));
+        long[] out = new long[grams.size()];
+        int n = 0;
+        for (long g : grams) out[n++] = g;
+        return out;
+    }
+
+    static long[] tilingTrigramsOf(String key) { // non-overlapping trigrams covering key; overlapping ones mostly repeat each other's lists
+        if (key.length() < 3) return new long[0];
+        int n = (key.length() + 2) / 3;
+        long[] out = new long[n];
+        for (int i = 0; i < n - 1; i++) out[i] = pack(key, i * 3);
+        out[n - 1] = pack(key, key.length() - 3); // the last one may overlap its neighbour
+        return out;
+    }
+
+    private static long pack(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+}
@@ -0,0 +1,356 @@
+package com.example.util;
+
+import com.example.metrics.HistogramSnapshot;
+import com.example.metrics.LatencyHistogram;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+public class ConnectionPool implements DataSource, AutoCloseable { // Bounded JDBC connection pool handing out proxied connections
+
+    private final PoolConfig config;
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>(); // LIFO: hottest connection first
+    private final Semaphore permits; // bounds the number of borrowed connections
+    private final AtomicInteger total = new AtomicInteger(); // physical connections open (idle + borrowed)
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final LongAdder timeouts = new LongAdder();
+    private final LatencyHistogram acquireLatency = new LatencyHistogram();
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    public ConnectionPool(PoolConfig config) {
+        if (config.getMaxSize() < 1 || config.getMinSize() < 0 || config.getMinSize() > config.getMaxSize())
+            throw new IllegalArgumentException("Invalid pool size: min=" + config.getMinSize() + ", max=" + config.getMaxSize());
+        this.config = config;
+        this.permits = new Semaphore(config.getMaxSize(), true); // fair, so waiting counters are served in order
+        if (config.getDriverClassName() != null) {
+            try {
+                Class.forName(config.getDriverClassName()); // Load JDBC Driver
+            } catch (ClassNotFoundException e) {
+                try {
+                    DriverManager.getDriver(config.getUrl()); // a JDBC 4 driver on the class path registered itself for the URL
+                } catch (SQLException none) {
+                    throw new IllegalStateException("JDBC driver " + config.getDriverClassName() + " not found, and no driver accepts " + config.getUrl(), e);
+                }
+            }
+        }
+        long period = Math.max(1_000, config.getIdleTimeoutMillis() / 2);
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pharmacy-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        evictor.scheduleAtFixedRate(this::maintain, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException { // borrow a connection, waiting up to acquireTimeoutMillis
+        if (closed) throw new SQLException("Connection pool is closed.");
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(config.getAcquireTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                timeouts.increment();
+                throw new SQLTimeoutException("Timed out after " + config.getAcquireTimeoutMillis()
+                        + " ms waiting for a connection (active=" + active.get() + ", max=" + config.getMaxSize() + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection.", e);
+        }
+        try {
+            PooledConnection pc;
+            while ((pc = idle.pollFirst()) != null) {
+                if (!config.isValidateOnBorrow() || pc.isValid(config.getValidationTimeoutSeconds())) break;
+                discard(pc); // stale connection, e.g. dropped by a firewall
+            }
+            if (pc == null) pc = open();
+            long waited = System.nanoTime() - start;
+            waitNanos.add(waited);
+            maxWaitNanos.accumulateAndGet(waited, Math::max);
+            acquireLatency.record(waited);
+            acquired.increment();
+            active.incrementAndGet();
+            return pc.lease();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public PoolStats getStats() { // point-in-time counters
+        return new PoolStats(active.get(), idle.size(), total.get(), acquired.sum(),
+                waitNanos.sum(), maxWaitNanos.get(), timeouts.sum());
+    }
+
+    public HistogramSnapshot getAcquireLatency() { return acquireLatency.snapshot(); }
+
+    public PoolConfig getConfig() { return config; }
+
+    @Override
+    public void close() { // close idle connections now, borrowed ones when they are returned
+        closed = true;
+        evictor.shutdownNow();
+        PooledConnection pc;
+        while ((pc = idle.pollFirst()) != null) discard(pc);
+    }
+
+    private PooledConnection open() throws SQLException {
+        total.incrementAndGet();
+        try {
+            return new PooledConnection(DriverManager.getConnection(config.getUrl(), config.getUser(), config.getPassword()));
+        } catch (SQLException | RuntimeException e) {
+            total.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void discard(PooledConnection pc) {
+        total.decrementAndGet();
+        pc.closePhysical();
+    }
+
+    private void release(PooledConnection pc) { // called when a borrower closes its logical connection
+        active.decrementAndGet();
+        try {
+            if (closed || !pc.reset()) discard(pc);
+            else idle.offerFirst(pc);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void maintain() { // evict connections idle for too long, then top up to minSize
+        try {
+            long cutoff = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(config.getIdleTimeoutMillis());
+            PooledConnection oldest;
+            while (total.get() > config.getMinSize() && (oldest = idle.peekLast()) != null && oldest.lastUsedNanos < cutoff) {
+                if (idle.removeLastOccurrence(oldest)) discard(oldest); // may lose the race to a borrower, which is fine
+            }
+            while (!closed && total.get() < config.getMinSize()) idle.offerLast(open());
+        } catch (SQLException | RuntimeException e) {
+            System.err.println("Connection pool maintenance failed: " + e.getMessage());
+        }
+    }
+
+    private static final Set<String> TUNING_SETTERS = Set.of("setFetchSize", "setMaxRows", "setLargeMaxRows", "setQueryTimeout", "setFetchDirection");
+
+    private record IdleStatement(PreparedStatement ps, int fetchSize, int maxRows, int queryTimeout, int fetchDirection) { // plus the driver's defaults, taken when it was prepared
+        static IdleStatement prepared(PreparedStatement ps) throws SQLException {
+            return new IdleStatement(ps, ps.getFetchSize(), ps.getMaxRows(), ps.getQueryTimeout(), ps.getFetchDirection());
+        }
+    }
+
+    private final class PooledConnection { // one physical connection plus its prepared statement cache
+        final Connection physical;
+        final LinkedHashMap<String, IdleStatement> statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, IdleStatement> eldest) {
+                if (size() <= config.getStatementCacheSize()) return false;
+                closeQuietly(eldest.getValue().ps());
+                return true;
+            }
+        };
+        final List<Statement> leased = new ArrayList<>(); // statements opened during the current lease
+        volatile long lastUsedNanos = System.nanoTime();
+
+        PooledConnection(Connection physical) { this.physical = physical; }
+
+        Connection lease() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new LogicalConnection(this));
+        }
+
+        boolean isValid(int timeoutSeconds) {
+            try {
+                return physical.isValid(timeoutSeconds);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        boolean reset() { // undo per-lease state; false means the connection should not be reused
+            for (Statement st : leased) closeQuietly(st);
+            leased.clear();
+            lastUsedNanos = System.nanoTime();
+            try {
+                if (physical.isClosed()) return false;
+                if (!physical.getAutoCommit()) {
+                    physical.rollback(); // never leak an open transaction to the next borrower
+                    physical.setAutoCommit(true);
+                }
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        void closePhysical() {
+            for (IdleStatement s : statements.values()) closeQuietly(s.ps());
+            statements.clear();
+            try { physical.close(); } catch (SQLException e) { /* already broken */ }
+        }
+    }
+
+    private final class LogicalConnection implements InvocationHandler { // borrower's view of a pooled connection
+        private final PooledConnection pc;
+        private boolean closed;
+
+        LogicalConnection(PooledConnection pc) { this.pc = pc; }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!closed) {
+                        closed = true;
+                        release(pc);
+                    }
+                    return null;
+                }
+                case "isClosed" -> { return closed || pc.physical.isClosed(); }
+                case "equals" -> { return proxy == args[0]; }
+                case "hashCode" -> { return System.identityHashCode(proxy); }
+                case "toString" -> { return "Pooled[" + pc.physical + "]"; }
+            }
+            if (closed) throw new SQLException("Connection is closed.");
+            if (method.getName().equals("prepareStatement") && config.getStatementCacheSize() > 0) {
+                String key = cacheKey(args);
+                IdleStatement cached = pc.statements.remove(key); // removed while leased so nobody else reuses it
+                if (cached == null || cached.ps().isClosed()) cached = IdleStatement.prepared((PreparedStatement) call(pc.physical, method, args));
+                return Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                        new Class<?>[]{PreparedStatement.class}, new CachedStatement(cached, key, pc, (Connection) proxy));
+            }
+            Object result = call(pc.physical, method, args);
+            if (result instanceof Statement st) pc.leased.add(st);
+            return result;
+        }
+
+        private String cacheKey(Object[] args) { // SQL text plus any generated-keys / result set options
+            if (args.length == 1) return (String) args[0];
+            StringBuilder sb = new StringBuilder((String) args[0]);
+            for (int i = 1; i < args.length; i++) {
+                sb.append('|');
+                if (args[i] instanceof Object[] arr) sb.append(Arrays.toString(arr));
+                else if (args[i] instanceof int[] arr) sb.append(Arrays.toString(arr));
+                else sb.append(args[i]);
+            }
+            return sb.toString();
+        }
+    }
+
+    private final class CachedStatement implements InvocationHandler { // returns the statement to the cache instead of closing it
+        private final IdleStatement cached;
+        private final PreparedStatement ps;
+        private final String key;
+        private final PooledConnection pc;
+        private final Connection owner;
+        private boolean closed;
+        private boolean tuned; // a fetch size, row limit, timeout or direction was set during this lease
+
+        CachedStatement(IdleStatement cached, String key, PooledConnection pc, Connection owner) {
+            this.cached = cached;
+            this.ps = cached.ps();
+            this.key = key;
+            this.pc = pc;
+            this.owner = owner;
+            pc.leased.add(ps); // closed for real if the borrower never closes it
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!closed) {
+                        closed = true;
+                        pc.leased.remove(ps);
+                        recycle();
+                    }
+                    return null;
+                }
+                case "isClosed" -> { return closed || ps.isClosed(); }
+                case "getConnection" -> { return owner; }
+                case "equals" -> { return proxy == args[0]; }
+                case "hashCode" -> { return System.identityHashCode(proxy); }
+                case "toString" -> { return "Cached[" + ps + "]"; }
+            }
+            if (closed) throw new SQLException("Statement is closed.");
+            if (TUNING_SETTERS.contains(method.getName())) tuned = true;
+            return call(ps, method, args);
+        }
+
+        private void recycle() {
+            try {
+                ps.clearParameters();
+                ps.clearBatch();
+                if (tuned) { // the next borrower gets the statement as the driver prepared it
+                    ps.setMaxRows(cached.maxRows()); // first: some drivers refuse a fetch size above the row limit
+                    ps.setFetchSize(cached.fetchSize());
+                    ps.setQueryTimeout(cached.queryTimeout());
+                    ps.setFetchDirection(cached.fetchDirection());
+                }
+                IdleStatement previous = pc.statements.put(key, cached);
+                if (previous != null && previous.ps() != ps) closeQuietly(previous.ps());
+            } catch (SQLException e) {
+                closeQuietly(ps);
+            }
+        }
+    }
+
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause(); // surface the driver's SQLException unchanged
+        }
+    }
+
+    private static void closeQuietly(Statement st) {
+        try { st.close(); } catch (SQLException e) { /* ignore */ }
+    }
+
+    // Remaining DataSource methods
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Pool credentials are fixed by PoolConfig.");
+    }
+
+    @Override
+    public PrintWriter getLogWriter() { return DriverManager.getLogWriter(); }
+
+    @Override
+    public void setLogWriter(PrintWriter out) { DriverManager.setLogWriter(out); }
+
+    @Override
+    public void setLoginTimeout(int seconds) { DriverManager.setLoginTimeout(seconds); }
+
+    @Override
+    public int getLoginTimeout() { return DriverManager.getLoginTimeout(); }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) return iface.cast(this);
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) { return iface.isInstance(this); }
+}
@@ -1,25 +1,39 @@
 package com.example.util;
 
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Properties;
 
-public class DBConnection {// Database connection parameters
-    private static final String DB_URL = "jdbc:oracle:thin:@localhost:1521:ORCL";
-    private static final String DB_USER = "c##scott";
-    private static final String DB_PASSWORD = "tiger";
+public class DBConnection {// Shared connection pool, configured from db.properties and -Dpharmacy.db.* overrides
+    private static final String CONFIG_RESOURCE = "/db.properties";
+    private static volatile ConnectionPool pool;
 
-    static {
-        try {
-            Class.forName("oracle.jdbc.driver.OracleDriver");// Load Oracle JDBC Driver
-        } catch (ClassNotFoundException e) {
-            System.err.println("JDBC Driver not found!");
-            e.printStackTrace();
-        }
+    public static Connection getConnection() throws SQLException { // Borrow a pooled connection; close() returns it
+        return getPool().getConnection();
+    }
+
+    public static DataSource getDataSource() throws SQLException {
+        return getPool();
+    }
+
+    public static PoolStats getPoolStats() throws SQLException {
+        return getPool().getStats();
     }
 
-    public static Connection getConnection() throws SQLException { // Get a connection to the database
-        return DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+    public static synchronized void configure(PoolConfig config) throws SQLException { // Replace the pool, e.g. to point at another database
+        ConnectionPool old = pool;
+        pool = createPool(config);
+        if (old != null) old.close();
+    }
+
+    public static synchronized void shutdown() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
     }
 
     public static void closeConnection(Connection conn) { // Close the database connection
@@ -27,4 +41,50 @@ public class DBConnection {// Database connection parameters
             try { conn.close(); } catch (SQLException e) { e.printStackTrace(); }
         }
     }
+
+    public static ConnectionPool getPool() throws SQLException { // created lazily so the driver only loads when first needed
+        ConnectionPool p = pool;
+        if (p == null) {
+            synchronized (DBConnection.class) {
+                if (pool == null) pool = createPool(loadConfig());
+                p = pool;
+            }
+        }
+        return p;
+    }
+
+    public static ConnectionPool createPool(PoolConfig config) throws SQLException { // a pool of its own, schema included if initSchema; the caller closes it
+        ConnectionPool p;
+        try {
+            p = new ConnectionPool(config);
+        } catch (IllegalStateException e) { // no driver: report it like any other connection failure
+            throw new SQLException(e.getMessage(), e);
+        }
+        if (config.isInitSchema()) {
+            try {
+                SchemaManager.ensureSchema(p);
+            } catch (SQLException e) {
+                p.close();
+                throw e;
+            }
+        }
+        return p;
+    }
+
+    static PoolConfig loadConfig() {
+        return PoolConfig.fromProperties(loadProperties());
+    }
+
+    public static Properties loadProperties() { // db.properties overlaid with -Dpharmacy.* system properties
+        Properties props = new Properties();
+        try (InputStream in = DBConnection.class.getResourceAsStream(CONFIG_RESOURCE)) {
+            if (in != null) props.load(in);
+        } catch (IOException e) {
+            System.err.println("Could not read " + CONFIG_RESOURCE + ": " + e.getMessage());
+        }
+        System.getProperties().forEach((k, v) -> { // system properties win over the file
+            if (k.toString().startsWith("pharmacy.")) props.setProperty(k.toString(), v.toString());
+        });
+        return props;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,81 @@
+package com.example.util;
+
+import java.util.Properties;
+
+public class PoolConfig { // Settings for ConnectionPool, defaults match the original Oracle setup
+    private String url = "jdbc:oracle:thin:@localhost:1521:ORCL";
+    private String user = "c##scott";
+    private String password = "tiger";
+    private String driverClassName = "oracle.jdbc.driver.OracleDriver";
+    private int minSize = 2;
+    private int maxSize = 10;
+    private long acquireTimeoutMillis = 5_000;
+    private long idleTimeoutMillis = 300_000;
+    private boolean validateOnBorrow = true;
+    private int validationTimeoutSeconds = 2;
+    private int statementCacheSize = 32;
+    private boolean initSchema = false;
+
+    public PoolConfig() {}
+
+    public PoolConfig(String url, String user, String password) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.driverClassName = null; // JDBC 4 drivers register themselves
+    }
+
+    public static PoolConfig fromProperties(Properties props) { // keys are "pharmacy.db.*", missing keys keep the defaults
+        PoolConfig cfg = new PoolConfig();
+        cfg.url = props.getProperty("pharmacy.db.url", cfg.url);
+        cfg.user = props.getProperty("pharmacy.db.user", cfg.user);
+        cfg.password = props.getProperty("pharmacy.db.password", cfg.password);
+        cfg.driverClassName = props.getProperty("pharmacy.db.driver", cfg.driverClassName);
+        cfg.minSize = Integer.parseInt(props.getProperty("pharmacy.db.pool.minSize", String.valueOf(cfg.minSize)));
+        cfg.maxSize = Integer.parseInt(props.getProperty("pharmacy.db.pool.maxSize", String.valueOf(cfg.maxSize)));
+        cfg.acquireTimeoutMillis = Long.parseLong(props.getProperty("pharmacy.db.pool.acquireTimeoutMillis", String.valueOf(cfg.acquireTimeoutMillis)));
+        cfg.idleTimeoutMillis = Long.parseLong(props.getProperty("pharmacy.db.pool.idleTimeoutMillis", String.valueOf(cfg.idleTimeoutMillis)));
+        cfg.validateOnBorrow = Boolean.parseBoolean(props.getProperty("pharmacy.db.pool.validateOnBorrow", String.valueOf(cfg.validateOnBorrow)));
+        cfg.validationTimeoutSeconds = Integer.parseInt(props.getProperty("pharmacy.db.pool.validationTimeoutSeconds", String.valueOf(cfg.validationTimeoutSeconds)));
+        cfg.statementCacheSize = Integer.parseInt(props.getProperty("pharmacy.db.pool.statementCacheSize", String.valueOf(cfg.statementCacheSize)));
+        cfg.initSchema = Boolean.parseBoolean(props.getProperty("pharmacy.db.initSchema", String.valueOf(cfg.initSchema)));
+        return cfg;
+    }
+
+    // Getters & Setters
+    public String getUrl() { return url; }
+    public void setUrl(String url) { this.url = url; }
+
+    public String getUser() { return user; }
+    public void setUser(String user) { this.user = user; }
+
+    public String getPassword() { return password; }
+    public void setPassword(String password) { this.password = password; }
+
+    public String getDriverClassName() { return driverClassName; }
+    public void setDriverClassName(String driverClassName) { this.driverClassName = driverClassName; }
+
+    public int getMinSize() { return minSize; }
+    public void setMinSize(int minSize) { this.minSize = minSize; }
+
+    public int getMaxSize() { return maxSize; }
+    public void setMaxSize(int maxSize) { this.maxSize = maxSize; }
+
+    public long getAcquireTimeoutMillis() { return acquireTimeoutMillis; }
+    public void setAcquireTimeoutMillis(long acquireTimeoutMillis) { this.acquireTimeoutMillis = acquireTimeoutMillis; }
+
+    public long getIdleTimeoutMillis() { return idleTimeoutMillis; }
+    public void setIdleTimeoutMillis(long idleTimeoutMillis) { this.idleTimeoutMillis = idleTimeoutMillis; }
+
+    public boolean isValidateOnBorrow() { return validateOnBorrow; }
+    public void setValidateOnBorrow(boolean validateOnBorrow) { this.validateOnBorrow = validateOnBorrow; }
+
+    public int getValidationTimeoutSeconds() { return validationTimeoutSeconds; }
+    public void setValidationTimeoutSeconds(int validationTimeoutSeconds) { this.validationTimeoutSeconds = validationTimeoutSeconds; }
+
+    public int getStatementCacheSize() { return statementCacheSize; }
+    public void setStatementCacheSize(int statementCacheSize) { this.statementCacheSize = statementCacheSize; }
+
+    public boolean isInitSchema() { return initSchema; }
+    public void setInitSchema(boolean initSchema) { this.initSchema = initSchema; }
+}
@@ -0,0 +1,15 @@
+package com.example.util;
+
+public record PoolStats(int active, int idle, int total, long acquired,
+                        long totalWaitNanos, long maxWaitNanos, long timeouts) { // Snapshot of ConnectionPool counters
+
+    public double averageWaitMillis() {
+        return acquired == 0 ? 0 : totalWaitNanos / 1_000_000.0 / acquired;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("active=%d idle=%d total=%d acquired=%d avgWait=%.3fms maxWait=%.3fms timeouts=%d",
+                active, idle, total, acquired, averageWaitMillis(), maxWaitNanos / 1_000_000.0, timeouts);
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.util;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Set;
+
+public class SchemaManager { // Applies db/schema.sql and then db/upgrade.sql, skipping objects that already exist
+    private static final String[] SCRIPTS = {"/db/schema.sql", "/db/upgrade.sql"}; // in order; upgrade.sql alters what schema.sql creates
+    private static final Set<String> ALREADY_EXISTS_STATES = Set.of("42S01", "42S11", "42S21", "90035"); // H2 table/index/column/sequence
+    private static final Set<Integer> ALREADY_EXISTS_CODES = Set.of(955, 1408, 1430, 2260, 2275); // ORA-00955, 01408, 01430, 02260, 02275
+
+    private SchemaManager() {}
+
+    public static void main(String[] args) throws SQLException { // creates or upgrades the schema of the database in db.properties
+        try (ConnectionPool pool = new ConnectionPool(DBConnection.loadConfig())) {
+            ensureSchema(pool);
+        }
+        System.out.println("Schema is up to date.");
+    }
+
+    public static void ensureSchema(DataSource ds) throws SQLException {
+        try (Connection conn = ds.getConnection();
+             Statement st = conn.createStatement()) {
+            for (String script : SCRIPTS) {
+                for (String sql : loadStatements(script)) {
+                    try {
+                        st.execute(sql);
+                    } catch (SQLException e) {
+                        if (!alreadyExists(e)) throw e;
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean alreadyExists(SQLException e) {
+        return ALREADY_EXISTS_STATES.contains(e.getSQLState()) || ALREADY_EXISTS_CODES.contains(e.getErrorCode());
+    }
+
+    private static String[] loadStatements(String resource) throws SQLException {
+        try (InputStream in = SchemaManager.class.getResourceAsStream(resource)) {
+            if (in == null) throw new SQLException("Schema resource " + resource + " not found.");
+            String script = new String(in.readAllBytes(), StandardCharsets.UTF_8)
+                    .replaceAll("(?m)^\\s*--.*$", ""); // drop comment lines
+            return Arrays.stream(script.split(";"))
+                    .map(String::strip)
+                    .filter(s -> !s.isEmpty())
+                    .toArray(String[]::new);
+        } catch (IOException e) {
+            throw new SQLException("Could not read " + resource, e);
+        }
+    }
+}
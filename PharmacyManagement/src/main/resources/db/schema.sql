@@ -0,0 +1,14 @@
+-- Schema for the pharmacy store (Oracle 12c+, also runs on H2 in Oracle mode)
+CREATE TABLE medicines (
+    medicine_id NUMBER(10) GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name        VARCHAR2(255) NOT NULL,
+    expiry_date DATE,
+    price       NUMBER(10, 2) NOT NULL,
+    stock       NUMBER(10) DEFAULT 0 NOT NULL
+);
+
+-- Listing, paging and expiry-range queries: WHERE/ORDER BY expiry_date, medicine_id
+CREATE INDEX idx_medicines_expiry ON medicines (expiry_date, medicine_id);
+
+-- Low-stock queries: WHERE stock <= ?
+CREATE INDEX idx_medicines_stock ON medicines (stock);
@@ -0,0 +1,31 @@
+-- Row versions and change tracking, added after the first release. Existing databases need this once before the
+-- application uses optimistic locking or the change feed; until then MedicineDAOImpl runs without both.
+-- Safe to run again: SchemaManager skips objects that already exist. Apply it with
+--   java -cp <classpath> com.example.util.SchemaManager
+-- (connection settings as for the app), or start the app once with -Dpharmacy.db.initSchema=true, then restart it.
+
+-- Row version for optimistic locking, bumped by every update
+ALTER TABLE medicines ADD (version NUMBER(10) DEFAULT 0 NOT NULL);
+
+-- Change feed for getChangesSince: every insert and update stamps the row with the next value of
+-- medicines_change_seq, and deletes leave a tombstone. The time stamps carry their zone, so they compare as instants
+-- across daylight saving changes.
+CREATE SEQUENCE medicines_change_seq START WITH 1 INCREMENT BY 1 CACHE 100;
+
+CREATE TABLE medicine_tombstones (
+    medicine_id NUMBER(10) PRIMARY KEY,
+    change_seq  NUMBER(19) NOT NULL,
+    deleted_at  TIMESTAMP WITH TIME ZONE DEFAULT SYSTIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_tombstones_change ON medicine_tombstones (change_seq);
+
+ALTER TABLE medicines ADD (change_seq NUMBER(19) DEFAULT 0 NOT NULL);
+
+-- Added last: MedicineDAOImpl takes this column as the sign that the change feed objects are in place
+ALTER TABLE medicines ADD (last_modified TIMESTAMP WITH TIME ZONE DEFAULT SYSTIMESTAMP NOT NULL);
+
+CREATE INDEX idx_medicines_change ON medicines (change_seq);
+
+-- Rows from before change tracking, so a full sync (token 0) picks them up
+UPDATE medicines SET change_seq = medicines_change_seq.NEXTVAL WHERE change_seq = 0;
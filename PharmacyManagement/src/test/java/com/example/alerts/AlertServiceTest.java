@@ -0,0 +1,93 @@
+package com.example.alerts;
+
+import com.example.model.Medicine;
+
+import org.junit.jupiter.api.*;
+
+import java.time.*;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("AlertService Tests")
+class AlertServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 1);
+
+    private MutableClock clock;
+    private AlertService alerts;
+    private List<StockAlert> received;
+
+    private static class MutableClock extends Clock { // lets tests step through the debounce window
+        Instant now = TODAY.atStartOfDay(ZoneOffset.UTC).toInstant();
+
+        @Override public ZoneId getZone() { return ZoneOffset.UTC; }
+        @Override public Clock withZone(ZoneId zone) { return this; }
+        @Override public Instant instant() { return now; }
+    }
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock();
+        alerts = new AlertService(100, 5, 7, Duration.ofMinutes(10), clock);
+        received = new CopyOnWriteArrayList<>();
+        alerts.subscribe(received::add);
+    }
+
+    private List<StockAlert> drain() { // close() delivers everything already queued
+        alerts.close();
+        return received;
+    }
+
+    @Test
+    @DisplayName("Should alert once while stock stays low")
+    void testDeduplicatesWhileLow() {
+        alerts.medicineUpdated(new Medicine(1, "Insulin", TODAY.plusYears(1), 10.0, 4));
+        alerts.medicineUpdated(new Medicine(1, "Insulin", TODAY.plusYears(1), 10.0, 3));
+        alerts.medicineUpdated(new Medicine(1, "Insulin", TODAY.plusYears(1), 10.0, 2));
+
+        List<StockAlert> out = drain();
+        assertEquals(1, out.size());
+        assertEquals(StockAlert.Type.LOW_STOCK, out.get(0).type());
+        assertEquals(4, out.get(0).stock());
+    }
+
+    @Test
+    @DisplayName("Should debounce a SKU that flaps around its threshold")
+    void testDebounce() {
+        alerts.medicineUpdated(new Medicine(1, "Insulin", null, 10.0, 4));
+        alerts.medicineUpdated(new Medicine(1, "Insulin", null, 10.0, 20)); // restocked
+        alerts.medicineUpdated(new Medicine(1, "Insulin", null, 10.0, 4));  // low again within 10 minutes
+        clock.now = clock.now.plus(Duration.ofMinutes(11));
+        alerts.medicineUpdated(new Medicine(1, "Insulin", null, 10.0, 20));
+        alerts.medicineUpdated(new Medicine(1, "Insulin", null, 10.0, 4));  // low again after the window
+
+        assertEquals(2, drain().size());
+    }
+
+    @Test
+    @DisplayName("Should honour per-SKU thresholds and keep same-named SKUs apart")
+    void testPerSkuThresholds() {
+        alerts.setThreshold(2, 50);
+        alerts.medicineAdded(new Medicine(1, "Saline", null, 1.0, 20)); // default threshold 5: fine
+        alerts.medicineAdded(new Medicine(2, "Saline", null, 1.0, 20)); // threshold 50: low
+
+        List<StockAlert> out = drain();
+        assertEquals(1, out.size());
+        assertEquals(2, out.get(0).medicineId());
+        assertEquals(50, out.get(0).threshold());
+    }
+
+    @Test
+    @DisplayName("Should alert on medicines expiring within the warning window")
+    void testExpiringAlert() {
+        alerts.medicineAdded(new Medicine(1, "Amoxicillin", TODAY.plusDays(7), 1.0, 100));
+        alerts.medicineAdded(new Medicine(2, "Metformin", TODAY.plusDays(8), 1.0, 100));
+
+        List<StockAlert> out = drain();
+        assertEquals(1, out.size());
+        assertEquals(StockAlert.Type.EXPIRING, out.get(0).type());
+        assertEquals(1, out.get(0).medicineId());
+    }
+}
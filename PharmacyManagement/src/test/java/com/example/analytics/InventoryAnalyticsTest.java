@@ -0,0 +1,99 @@
+package com.example.analytics;
+
+import com.example.model.Medicine;
+
+import org.junit.jupiter.api.*;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("InventoryAnalytics Tests")
+class InventoryAnalyticsTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 1, 15);
+
+    private static InventorySnapshot snapshotOf(Medicine... meds) {
+        return InventorySnapshot.of(List.of(meds).iterator());
+    }
+
+    @Test
+    @DisplayName("Should keep every column and share repeated names")
+    void testColumns() {
+        InventorySnapshot s = snapshotOf(
+                new Medicine(7, "Aspirin", TODAY.plusDays(10), 2.5, 4),
+                new Medicine(9, "Aspirin", null, 3.0, 1),
+                new Medicine(12, "Insulin", TODAY.minusDays(1), 40.0, 2));
+
+        assertEquals(3, s.size());
+        assertEquals(2, s.distinctNames());
+        assertEquals(9, s.id(1));
+        assertEquals("Aspirin", s.name(1));
+        assertNull(s.expiryDate(1));
+        assertEquals(TODAY.minusDays(1), s.expiryDate(2));
+        assertEquals(40.0, s.price(2));
+        assertEquals(4, s.stock(0));
+    }
+
+    @Test
+    @DisplayName("Should value stock in total, at risk and already expired")
+    void testValuation() {
+        InventoryAnalytics a = new InventoryAnalytics(snapshotOf(
+                new Medicine(1, "Expired", TODAY.minusDays(1), 10.0, 3),   // 30
+                new Medicine(2, "Today", TODAY, 1.0, 5),                   // 5
+                new Medicine(3, "In a month", TODAY.plusDays(30), 2.0, 10), // 20
+                new Medicine(4, "Later", TODAY.plusDays(31), 4.0, 1),      // 4
+                new Medicine(5, "Undated", null, 1.5, 2)));                // 3
+
+        assertEquals(62.0, a.totalValue(), 1e-9);
+        assertEquals(25.0, a.valueAtRisk(TODAY, 30), 1e-9);
+        assertEquals(30.0, a.expiredValue(TODAY), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Should bucket expiring stock by month, including empty months")
+    void testExpiringByMonth() {
+        InventoryAnalytics a = new InventoryAnalytics(snapshotOf(
+                new Medicine(1, "A", LocalDate.of(2026, 1, 31), 1.0, 3),
+                new Medicine(2, "B", LocalDate.of(2026, 1, 1), 2.0, 1),
+                new Medicine(3, "C", LocalDate.of(2026, 3, 1), 1.0, 7),
+                new Medicine(4, "D", LocalDate.of(2026, 4, 1), 1.0, 100), // after the range
+                new Medicine(5, "E", null, 1.0, 100)));
+
+        SortedMap<YearMonth, ExpiryBucket> months = a.expiringByMonth(YearMonth.of(2026, 1), YearMonth.of(2026, 3));
+
+        assertEquals(List.of(YearMonth.of(2026, 1), YearMonth.of(2026, 2), YearMonth.of(2026, 3)), new ArrayList<>(months.keySet()));
+        assertEquals(new ExpiryBucket(2, 4, 5.0), months.get(YearMonth.of(2026, 1)));
+        assertEquals(new ExpiryBucket(0, 0, 0.0), months.get(YearMonth.of(2026, 2)));
+        assertEquals(new ExpiryBucket(1, 7, 7.0), months.get(YearMonth.of(2026, 3)));
+    }
+
+    @Test
+    @DisplayName("Should give the same totals as a plain loop when the scan is split across threads")
+    void testParallelMatchesSequential() {
+        SplittableRandom rnd = new SplittableRandom(5);
+        List<Medicine> meds = new ArrayList<>();
+        double total = 0, atRisk = 0;
+        for (int id = 1; id <= 300_000; id++) {
+            LocalDate expiry = rnd.nextInt(10) == 0 ? null : TODAY.plusDays(rnd.nextInt(-200, 800));
+            Medicine m = new Medicine(id, "Med " + rnd.nextInt(5_000), expiry, rnd.nextInt(1, 10_000) / 100.0, rnd.nextInt(0, 500));
+            meds.add(m);
+            total += m.getPrice() * m.getStock();
+            if (expiry != null && !expiry.isBefore(TODAY) && !expiry.isAfter(TODAY.plusDays(90))) atRisk += m.getPrice() * m.getStock();
+        }
+        InventorySnapshot s = InventorySnapshot.of(meds.iterator());
+        InventoryAnalytics a = new InventoryAnalytics(s);
+
+        assertEquals(total, a.totalValue(), total * 1e-12);
+        assertEquals(atRisk, a.valueAtRisk(TODAY, 90), atRisk * 1e-12);
+        long units = a.expiringByMonth(YearMonth.from(TODAY.minusDays(200)), YearMonth.from(TODAY.plusDays(800)))
+                .values().stream().mapToLong(ExpiryBucket::units).sum();
+        assertEquals(meds.stream().filter(m -> m.getExpiryDate() != null).mapToLong(Medicine::getStock).sum(), units);
+        assertTrue(s.distinctNames() <= 5_000);
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.batch;
+
+import com.example.dao.FileMedicineDAO;
+import com.example.metrics.DaoMetrics;
+import com.example.metrics.InstrumentedMedicineDAO;
+import com.example.model.Medicine;
+import com.example.exceptions.DatabaseOperationException;
+import com.example.exceptions.MedicineNotFoundException;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("BatchRunner Tests")
+class BatchRunnerTest {
+
+    @TempDir
+    Path dir;
+
+    private FileMedicineDAO store;
+    private DaoMetrics metrics;
+    private BatchRunner runner;
+    private List<String> output;
+
+    @BeforeEach
+    void setUp() throws DatabaseOperationException {
+        store = new FileMedicineDAO(dir.resolve("store"));
+        metrics = new DaoMetrics();
+        runner = new BatchRunner(new InstrumentedMedicineDAO(store, metrics), 4);
+    }
+
+    @AfterEach
+    void tearDown() throws DatabaseOperationException {
+        runner.close();
+        store.close();
+    }
+
+    private BatchSummary run(String script) throws IOException {
+        StringWriter out = new StringWriter();
+        BatchSummary summary = runner.run(new BufferedReader(new StringReader(script)), out);
+        output = out.toString().lines().toList();
+        return summary;
+    }
+
+    private long calls(DaoMetrics.Operation op) {
+        return metrics.snapshot(op).count();
+    }
+
+    @Test
+    @DisplayName("Should answer every command in input order and end with a summary")
+    void testResultsInOrder() throws IOException, MedicineNotFoundException, DatabaseOperationException {
+        BatchSummary summary = run("""
+                # stock a new shelf
+                add "Paracetamol 500mg" 2030-01-31 2.5 40
+
+                add Ibuprofen - 3.75 8
+                dispense 1 5
+                get 1
+                """);
+
+        assertEquals(new BatchSummary(4, 4, 0, summary.elapsedNanos()), summary);
+        assertEquals(5, output.size(), "one line per command plus the summary");
+        assertTrue(output.get(0).startsWith("{\"line\":2,\"op\":\"add\",\"ok\":true,"), output.get(0));
+        assertTrue(output.get(0).endsWith("\"result\":{\"id\":1}}"), output.get(0));
+        assertTrue(output.get(1).startsWith("{\"line\":4,\"op\":\"add\""), output.get(1));
+        assertTrue(output.get(2).startsWith("{\"line\":5,\"op\":\"dispense\",\"ok\":true"), output.get(2));
+        assertTrue(output.get(3).contains("\"result\":{\"id\":1,\"name\":\"Paracetamol 500mg\",\"expiryDate\":\"2030-01-31\",\"price\":2.5,\"stock\":35,"),
+                output.get(3));
+        assertTrue(output.get(4).startsWith("{\"summary\":true,\"commands\":4,\"ok\":4,\"failed\":0,\"ms\":"), output.get(4));
+        assertNull(store.getMedicineById(2).getExpiryDate(), "- should mean no expiry date");
+    }
+
+    @Test
+    @DisplayName("Should turn runs of add, get and restock into one DAO call each")
+    void testBatching() throws IOException, MedicineNotFoundException, DatabaseOperationException {
+        StringBuilder script = new StringBuilder();
+        for (int i = 0; i < 50; i++) script.append("add Med").append(i).append(" - 1.0 10\n");
+        for (int i = 1; i <= 50; i++) script.append("restock ").append(i).append(" 5\n");
+        script.append("restock 1 5\n");
+        for (int i = 1; i <= 50; i++) script.append("get ").append(i).append('\n');
+
+        BatchSummary summary = run(script.toString());
+
+        assertEquals(151, summary.succeeded());
+        assertEquals(1, calls(DaoMetrics.Operation.ADD_BATCH));
+        assertEquals(0, calls(DaoMetrics.Operation.ADD));
+        assertEquals(1, calls(DaoMetrics.Operation.STOCK_DELTAS));
+        assertEquals(0, calls(DaoMetrics.Operation.RESTOCK));
+        assertEquals(2, calls(DaoMetrics.Operation.GET_BY_IDS), "one existence check for the restocks, one for the gets");
+        assertEquals(20, store.getMedicineById(1).getStock(), "repeated restocks of one ID should add up");
+        assertEquals(15, store.getMedicineById(50).getStock());
+        assertTrue(output.get(0).contains("\"batch\":50"), output.get(0));
+    }
+
+    @Test
+    @DisplayName("Should report bad lines and failed commands without stopping the script")
+    void testErrors() throws IOException, MedicineNotFoundException, DatabaseOperationException {
+        store.addMedicine(new Medicine("Amoxicillin", null, 8.0, 3));
+
+        BatchSummary summary = run("""
+                get 1
+                get 99
+                get one
+                dispense 1 10
+                restock 99 5
+                restock 1 2
+                frobnicate 1
+                add "unterminated - 1.0 1
+                """);
+
+        assertEquals(8, summary.commands());
+        assertEquals(2, summary.succeeded());
+        assertEquals(6, summary.failed());
+        assertTrue(output.get(0).contains("\"ok\":true"), output.get(0));
+        assertTrue(output.get(1).contains("\"error\":\"MedicineNotFoundException\""), output.get(1));
+        assertTrue(output.get(2).contains("\"error\":\"IllegalArgumentException\""), output.get(2));
+        assertTrue(output.get(3).contains("\"error\":\"InsufficientStockException\""), output.get(3));
+        assertTrue(output.get(4).contains("\"error\":\"MedicineNotFoundException\""), output.get(4));
+        assertTrue(output.get(5).contains("\"ok\":true"), output.get(5));
+        assertTrue(output.get(6).contains("\"error\":\"IllegalArgumentException\""), output.get(6));
+        assertTrue(output.get(7).startsWith("{\"line\":8,\"op\":null,\"ok\":false"), output.get(7));
+        assertEquals(5, store.getMedicineById(1).getStock(), "the failed dispense must not touch stock");
+    }
+
+    @Test
+    @DisplayName("Should run read commands side by side and still print them in order")
+    void testParallelReads() throws IOException, DatabaseOperationException {
+        store.addMedicine(new Medicine("Aspirin", LocalDate.of(2031, 5, 1), 1.0, 2));
+        store.addMedicine(new Medicine("Insulin", LocalDate.of(2031, 6, 1), 25.0, 40));
+
+        BatchSummary summary = run("""
+                list
+                lowstock 5
+                expiring 2031-01-01 2031-05-31
+                changes 0
+                list 1
+                update 1 "Aspirin 75mg" 2031-05-01 1.2 2
+                get 1
+                """);
+
+        assertEquals(7, summary.succeeded(), String.join("\n", output));
+        assertTrue(output.get(0).contains("\"result\":[{\"id\":1,"), output.get(0));
+        assertTrue(output.get(1).contains("\"name\":\"Aspirin\"") && !output.get(1).contains("Insulin"), output.get(1));
+        assertTrue(output.get(2).contains("\"name\":\"Aspirin\"") && !output.get(2).contains("Insulin"), output.get(2));
+        assertTrue(output.get(3).contains("\"deletedIds\":[],\"nextToken\":"), output.get(3));
+        assertFalse(output.get(4).contains("Insulin"), "list 1 should return one row");
+        assertTrue(output.get(6).contains("\"name\":\"Aspirin 75mg\""), output.get(6));
+    }
+
+    @Test
+    @DisplayName("Should parse quoted arguments and skip comments")
+    void testParse() {
+        assertNull(BatchCommand.parse(1, "   "));
+        assertNull(BatchCommand.parse(2, "# add x"));
+        BatchCommand c = BatchCommand.parse(3, "ADD \"Vitamin \"\"D\"\"\" - 4.5 12");
+        assertEquals("add", c.op());
+        assertEquals(List.of("Vitamin \"D\"", "-", "4.5", "12"), c.args());
+        Medicine m = c.medicineArgs(0);
+        assertEquals("Vitamin \"D\"", m.getName());
+        assertNull(m.getExpiryDate());
+        assertThrows(IllegalArgumentException.class, () -> BatchCommand.parse(4, "get \"1"));
+        assertThrows(IllegalArgumentException.class, () -> BatchCommand.parse(5, "get x").intArg(0));
+    }
+}
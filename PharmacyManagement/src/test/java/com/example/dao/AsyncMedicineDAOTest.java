@@ -0,0 +1,105 @@
+package com.example.dao;
+
+import com.example.model.Medicine;
+import com.example.util.DBConnection;
+import com.example.exceptions.DatabaseOperationException;
+import com.example.exceptions.MedicineNotFoundException;
+
+import org.junit.jupiter.api.*;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("AsyncMedicineDAO Tests")
+class AsyncMedicineDAOTest {
+
+    private MedicineDAO medDAO;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        medDAO = new MedicineDAOImpl();
+        try (Connection conn = DBConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM medicines");
+        }
+    }
+
+    @Test
+    @DisplayName("Should resolve a basket of IDs with a few IN queries")
+    void testBulkLookup() throws Exception {
+        List<Medicine> basket = new ArrayList<>();
+        for (int i = 0; i < 30; i++) basket.add(new Medicine("Item" + i, LocalDate.now().plusMonths(3), 2.0, 5));
+        medDAO.addMedicines(basket);
+        AtomicInteger queries = new AtomicInteger();
+        MedicineDAO counting = new ForwardingMedicineDAO(medDAO) {
+            @Override
+            public List<Medicine> getMedicinesByIds(Collection<Integer> ids) throws DatabaseOperationException {
+                queries.incrementAndGet();
+                return super.getMedicinesByIds(ids);
+            }
+        };
+
+        List<Integer> ids = new ArrayList<>(basket.stream().map(Medicine::getId).toList());
+        ids.add(999_999); // unknown IDs are simply absent
+        try (AsyncMedicineDAO async = new AsyncMedicineDAO(counting, 4, Duration.ofSeconds(5), 10)) {
+            List<Medicine> found = async.getMedicinesByIds(ids).get(5, TimeUnit.SECONDS);
+            assertEquals(30, found.size());
+        }
+        assertEquals(4, queries.get());
+    }
+
+    @Test
+    @DisplayName("Should never run more calls than the concurrency limit")
+    void testConcurrencyLimit() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        MedicineDAO slow = new ForwardingMedicineDAO(medDAO) {
+            @Override
+            public Medicine getMedicineById(int id) {
+                peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try { Thread.sleep(20); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+                inFlight.decrementAndGet();
+                return new Medicine(id, "Stub", null, 1.0, 1);
+            }
+        };
+        try (AsyncMedicineDAO async = new AsyncMedicineDAO(slow, 3, null)) {
+            List<CompletableFuture<Medicine>> calls = new ArrayList<>();
+            for (int i = 1; i <= 20; i++) calls.add(async.getMedicineById(i));
+            CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(3, peak.get());
+    }
+
+    @Test
+    @DisplayName("Should fail calls that exceed the timeout without interrupting them, and surface DAO errors")
+    void testTimeoutAndErrors() {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        MedicineDAO stuck = new ForwardingMedicineDAO(medDAO) {
+            @Override
+            public Medicine getMedicineById(int id) throws MedicineNotFoundException, DatabaseOperationException {
+                if (id == 1) {
+                    try { release.await(5, TimeUnit.SECONDS); } catch (InterruptedException e) { interrupted.set(true); }
+                }
+                return super.getMedicineById(id);
+            }
+        };
+        try (AsyncMedicineDAO async = new AsyncMedicineDAO(stuck, 2, Duration.ofMillis(100))) {
+            ExecutionException slow = assertThrows(ExecutionException.class, () -> async.getMedicineById(1).get());
+            assertInstanceOf(TimeoutException.class, slow.getCause());
+            ExecutionException missing = assertThrows(ExecutionException.class, () -> async.getMedicineById(424242).get());
+            assertInstanceOf(MedicineNotFoundException.class, missing.getCause());
+            release.countDown();
+        }
+        assertFalse(interrupted.get(), "a timed-out call is left to finish, not interrupted mid-query");
+    }
+}
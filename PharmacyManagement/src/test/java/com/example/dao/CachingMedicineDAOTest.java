@@ -0,0 +1,103 @@
+package com.example.dao;
+
+import com.example.model.Medicine;
+import com.example.util.DBConnection;
+import com.example.exceptions.DatabaseOperationException;
+import com.example.exceptions.MedicineNotFoundException;
+
+import org.junit.jupiter.api.*;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("CachingMedicineDAO Tests")
+class CachingMedicineDAOTest {
+
+    private CountingDAO backend;
+    private CachingMedicineDAO cache;
+
+    private static class CountingDAO extends ForwardingMedicineDAO { // counts lookups that reach the database
+        int lookups;
+
+        CountingDAO() { super(new MedicineDAOImpl()); }
+
+        @Override
+        public Medicine getMedicineById(int id) throws MedicineNotFoundException, DatabaseOperationException {
+            lookups++;
+            return super.getMedicineById(id);
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        backend = new CountingDAO();
+        cache = new CachingMedicineDAO(backend, 2);
+        try (Connection conn = DBConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM medicines");
+        }
+    }
+
+    @Test
+    @DisplayName("Should serve repeat lookups from memory as defensive copies")
+    void testHitReturnsCopy() throws DatabaseOperationException {
+        Medicine med = new Medicine("Cetirizine", LocalDate.now().plusMonths(6), 12.0, 30);
+        cache.addMedicine(med);
+
+        Medicine first = cache.getMedicineById(med.getId());
+        first.setStock(0); // must not leak into the cache
+        Medicine second = cache.getMedicineById(med.getId());
+
+        assertEquals(0, backend.lookups, "Added rows should already be cached");
+        assertEquals(30, second.getStock());
+        assertEquals(2, cache.getStats().hits());
+    }
+
+    @Test
+    @DisplayName("Should reload after update and delete invalidate the entry")
+    void testInvalidation() throws DatabaseOperationException {
+        Medicine med = new Medicine("Loratadine", LocalDate.now().plusMonths(6), 9.0, 10);
+        cache.addMedicine(med);
+
+        med.setStock(4);
+        cache.updateMedicine(med);
+        assertEquals(4, cache.getMedicineById(med.getId()).getStock());
+        assertEquals(1, backend.lookups);
+
+        cache.deleteMedicine(med.getId());
+        assertThrows(MedicineNotFoundException.class, () -> cache.getMedicineById(med.getId()));
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently used entry when full")
+    void testLruEviction() throws DatabaseOperationException {
+        Medicine a = new Medicine("A", null, 1.0, 1);
+        Medicine b = new Medicine("B", null, 1.0, 1);
+        Medicine c = new Medicine("C", null, 1.0, 1);
+        cache.addMedicine(a);
+        cache.addMedicine(b);
+        cache.getMedicineById(a.getId()); // A is now more recent than B
+        cache.addMedicine(c);             // evicts B
+
+        cache.getMedicineById(a.getId());
+        cache.getMedicineById(b.getId());
+        assertEquals(1, backend.lookups, "Only B should have been evicted");
+        assertEquals(2, cache.getStats().evictions());
+    }
+
+    @Test
+    @DisplayName("Should expire entries after the TTL")
+    void testTtl() throws Exception {
+        CachingMedicineDAO shortLived = new CachingMedicineDAO(backend, 10, Duration.ofMillis(20));
+        Medicine med = new Medicine("Omeprazole", null, 3.0, 3);
+        shortLived.addMedicine(med);
+        Thread.sleep(40);
+        shortLived.getMedicineById(med.getId());
+        assertEquals(1, backend.lookups);
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.dao;
+
+import com.example.model.Medicine;
+import com.example.exceptions.DatabaseOperationException;
+import com.example.exceptions.MedicineNotFoundException;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("FileMedicineDAO Tests")
+class FileMedicineDAOTest extends MedicineDAOContractTest {
+
+    @TempDir
+    Path dir;
+
+    private FileMedicineDAO store;
+
+    @Override
+    protected MedicineDAO createEmptyDAO() throws DatabaseOperationException {
+        store = new FileMedicineDAO(dir.resolve("store"));
+        return store;
+    }
+
+    @Override
+    protected void enableOptimisticLocking(MedicineDAO dao) {
+        ((FileMedicineDAO) dao).setOptimisticLocking(true);
+    }
+
+    @AfterEach
+    void tearDown() throws DatabaseOperationException {
+        store.close();
+    }
+
+    @Test
+    @Order(101)
+    @DisplayName("Should keep every write and keep counting IDs after a clean restart")
+    void testReopenAfterClose() throws DatabaseOperationException, MedicineNotFoundException { // Test close() compacts and the snapshot loads back
+        Medicine kept = new Medicine("Cetirizine", LocalDate.now().plusMonths(3), 4.5, 30);
+        Medicine gone = new Medicine("Loratadine", null, 6.0, 12);
+        store.addMedicine(kept);
+        store.addMedicine(gone);
+        store.dispense(kept.getId(), 5);
+        store.deleteMedicine(gone.getId());
+        store.close();
+
+        store = new FileMedicineDAO(dir.resolve("store"));
+        assertEquals(0, store.getLogBytes(), "close() should leave everything in the snapshot");
+        Medicine reloaded = store.getMedicineById(kept.getId());
+        assertEquals(25, reloaded.getStock());
+        assertEquals(1, reloaded.getVersion());
+        assertThrows(MedicineNotFoundException.class, () -> store.getMedicineById(gone.getId()));
+
+        Medicine next = new Medicine("Fexofenadine", null, 9.0, 3);
+        store.addMedicine(next);
+        assertTrue(next.getId() > gone.getId(), "Deleted IDs must not be handed out again");
+    }
+
+    @Test
+    @Order(102)
+    @DisplayName("Should replay the log after a crash")
+    void testRecoverFromLog() throws Exception { // Test a copy of the files taken while the store is open
+        store.addMedicines(List.of(new Medicine("A", LocalDate.now().plusDays(5), 1.0, 10),
+                new Medicine("B", LocalDate.now().plusDays(9), 2.0, 20)));
+        store.compact();
+        Medicine c = new Medicine("C", null, 3.0, 30);
+        store.addMedicine(c);
+        store.applyStockDeltas(Map.of(1, -4, c.getId(), 5));
+
+        try (FileMedicineDAO recovered = new FileMedicineDAO(crashImage())) {
+            assertEquals(3, recovered.size());
+            assertEquals(6, recovered.getMedicineById(1).getStock());
+            assertEquals(35, recovered.getMedicineById(c.getId()).getStock());
+            assertEquals(List.of("A", "B", "C"), recovered.getAllMedicines().stream().map(Medicine::getName).toList());
+        }
+    }
+
+    @Test
+    @Order(103)
+    @DisplayName("Should drop a torn record at the end of the log and keep going")
+    void testTornTail() throws Exception { // Test a crash halfway through an append
+        store.addMedicine(new Medicine("Whole", null, 1.0, 1));
+        store.addMedicine(new Medicine("Torn", null, 1.0, 1));
+        Path image = crashImage();
+        Path log = image.resolve(FileMedicineDAO.LOG_FILE);
+        try (FileChannel ch = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            ch.truncate(ch.size() - 3);
+        }
+
+        try (FileMedicineDAO recovered = new FileMedicineDAO(image)) {
+            assertEquals(List.of("Whole"), recovered.streamMedicines().map(Medicine::getName).toList());
+            recovered.addMedicine(new Medicine("After", null, 1.0, 1)); // must land after the good records, not the torn bytes
+        }
+        try (FileMedicineDAO reopened = new FileMedicineDAO(image)) {
+            assertEquals(List.of("Whole", "After"), reopened.streamMedicines().map(Medicine::getName).toList());
+        }
+    }
+
+    @Test
+    @Order(104)
+    @DisplayName("Should compact the log into a snapshot once it grows past the threshold")
+    void testCompaction() throws Exception { // Test automatic snapshots keep the log short and lose nothing
+        store.setCompactBytes(1_000);
+        for (int i = 0; i < 100; i++) store.addMedicine(new Medicine("Med" + i, LocalDate.now().plusDays(i), 1.0, i));
+        for (int i = 1; i <= 50; i++) store.deleteMedicine(i);
+        assertTrue(store.getLogBytes() < 1_000, "log should have been reset by a snapshot");
+        assertTrue(Files.exists(dir.resolve("store").resolve(FileMedicineDAO.SNAPSHOT_FILE)));
+
+        try (FileMedicineDAO recovered = new FileMedicineDAO(crashImage())) {
+            assertEquals(50, recovered.size());
+            assertEquals("Med50", recovered.streamMedicines().findFirst().orElseThrow().getName());
+        }
+    }
+
+    @Test
+    @Order(105)
+    @DisplayName("Should keep change tokens and tombstones valid across restarts and compaction")
+    void testChangeFeedSurvivesRestart() throws DatabaseOperationException { // Test a POS terminal syncing from a token taken before a restart
+        Medicine kept = new Medicine("Kept", null, 1.0, 5);
+        Medicine gone = new Medicine("Gone", null, 1.0, 5);
+        store.addMedicines(List.of(kept, gone));
+        long token = store.getChangesSince(0).nextToken();
+        store.deleteMedicine(gone.getId());
+        store.compact();
+        store.restock(kept.getId(), 3); // stays in the log
+        store.close();
+
+        store = new FileMedicineDAO(dir.resolve("store"));
+        MedicineChanges changes = store.getChangesSince(token);
+        assertEquals(List.of(kept.getId()), changes.upserts().stream().map(Medicine::getId).toList());
+        assertEquals(8, changes.upserts().get(0).getStock());
+        assertEquals(List.of(gone.getId()), changes.deletedIds());
+
+        store.addMedicine(new Medicine("New", null, 1.0, 1));
+        assertTrue(store.getChangesSince(changes.nextToken()).upserts().stream().allMatch(m -> m.getName().equals("New")),
+                "Sequence numbers must carry on after a restart");
+    }
+
+    @Test
+    @Order(106)
+    @DisplayName("Should refuse to open a store that is already open")
+    void testExclusiveOpen() { // Test the directory lock
+        assertThrows(DatabaseOperationException.class, () -> new FileMedicineDAO(dir.resolve("store")));
+    }
+
+    private Path crashImage() throws IOException { // what a crash would leave on disk: the files as they are, without close()
+        Path image = Files.createDirectories(dir.resolve("image"));
+        for (String name : List.of(FileMedicineDAO.LOG_FILE, FileMedicineDAO.SNAPSHOT_FILE)) {
+            Path file = dir.resolve("store").resolve(name);
+            if (Files.exists(file)) Files.copy(file, image.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return image;
+    }
+}
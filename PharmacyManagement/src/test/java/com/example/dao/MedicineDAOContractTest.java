@@ -0,0 +1,337 @@
+package com.example.dao;
+
+import com.example.model.Medicine;
+import com.example.exceptions.DatabaseOperationException;
+import com.example.exceptions.InsufficientStockException;
+import com.example.exceptions.MedicineNotFoundException;
+import com.example.exceptions.StaleMedicineException;
+
+import org.junit.jupiter.api.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class) // Ensure tests run in order
+abstract class MedicineDAOContractTest { // Behaviour every MedicineDAO backend must share; subclasses supply the store
+
+    protected MedicineDAO medDAO;
+
+    protected abstract MedicineDAO createEmptyDAO() throws Exception; // a DAO over a store with no medicines in it
+    protected abstract void enableOptimisticLocking(MedicineDAO dao);
+    protected void useSmallBatches(MedicineDAO dao) {} // backends that chunk bulk inserts should split 10 rows into several chunks
+
+    @BeforeEach // Runs before each test
+    void setUp() throws Exception {
+        medDAO = createEmptyDAO();
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Should add a new medicine successfully")
+    void testAddMedicine() throws DatabaseOperationException, MedicineNotFoundException { // Test adding a medicine
+        Medicine med = new Medicine("Paracetamol", LocalDate.now().plusMonths(6), 50.0, 20);
+        medDAO.addMedicine(med);
+
+        assertNotEquals(0, med.getId(), "Medicine ID should be generated");
+
+        Medicine retrieved = medDAO.getMedicineById(med.getId());
+        assertNotNull(retrieved);
+        assertEquals("Paracetamol", retrieved.getName());
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Should retrieve all medicines when table is empty")
+    void testGetAllEmpty() throws DatabaseOperationException { // Test retrieving from empty table
+        ArrayList<Medicine> list = medDAO.getAllMedicines();
+        assertNotNull(list);
+        assertTrue(list.isEmpty(), "Should be empty initially");
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Should retrieve all medicines with data")
+    void testGetAllWithData() throws DatabaseOperationException { // Test retrieving from table with data
+        medDAO.addMedicine(new Medicine("Aspirin", LocalDate.now().plusMonths(3), 30.0, 10));
+        medDAO.addMedicine(new Medicine("Ibuprofen", LocalDate.now().plusMonths(12), 70.0, 15));
+
+        ArrayList<Medicine> list = medDAO.getAllMedicines();
+        assertEquals(2, list.size());
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Should update an existing medicine successfully")
+    void testUpdateMedicine() throws DatabaseOperationException, MedicineNotFoundException { // Test updating a medicine
+        Medicine med = new Medicine("Vitamin C", LocalDate.now().plusMonths(8), 25.0, 50);
+        medDAO.addMedicine(med);
+
+        med.setName("Vitamin C+");
+        med.setPrice(30.0);
+        med.setStock(40);
+        medDAO.updateMedicine(med);
+
+        Medicine updated = medDAO.getMedicineById(med.getId());
+        assertEquals("Vitamin C+", updated.getName());
+        assertEquals(30.0, updated.getPrice());
+        assertEquals(40, updated.getStock());
+    }
+
+    @Test
+    @Order(5)
+    @DisplayName("Should throw exception when updating non-existent medicine")
+    void testUpdateNonExistent() {// Test updating a non-existent medicine
+        Medicine fake = new Medicine(9999, "Apple", LocalDate.now(), 10.0, 1);
+        assertThrows(MedicineNotFoundException.class, () -> medDAO.updateMedicine(fake));
+    }
+
+    @Test
+    @Order(6)
+    @DisplayName("Should delete a medicine successfully")
+    void testDeleteMedicine() throws DatabaseOperationException, MedicineNotFoundException { // Test deleting a medicine
+        Medicine med = new Medicine("Antibiotic", LocalDate.now().plusMonths(4), 100.0, 5);
+        medDAO.addMedicine(med);
+
+        medDAO.deleteMedicine(med.getId());
+        assertThrows(MedicineNotFoundException.class, () -> medDAO.getMedicineById(med.getId()));
+    }
+
+    @Test
+    @Order(7)
+    @DisplayName("Should throw exception when deleting non-existent medicine")
+    void testDeleteNonExistent() { // Test deleting a non-existent medicine
+        assertThrows(MedicineNotFoundException.class, () -> medDAO.deleteMedicine(9999));
+    }
+
+    @Test
+    @Order(8)
+    @DisplayName("Should automatically remove expired medicines from list")
+    void testExpiredMedicineRemoval() throws DatabaseOperationException { // Test that expired medicines are not returned
+        Medicine expired = new Medicine("ExpiredMed", LocalDate.now().minusDays(1), 20.0, 10);
+        Medicine valid = new Medicine("ValidMed", LocalDate.now().plusMonths(2), 40.0, 15);
+
+        medDAO.addMedicine(expired);
+        medDAO.addMedicine(valid);
+
+        ArrayList<Medicine> list = medDAO.getAllMedicines();
+        assertEquals(1, list.size());
+        assertEquals("ValidMed", list.get(0).getName());
+    }
+
+    @Test
+    @Order(9)
+    @DisplayName("Should detect low-stock medicines")
+    void testLowStockDetection() throws DatabaseOperationException { // Test that low-stock medicines are identified
+        medDAO.addMedicine(new Medicine("HighStock", LocalDate.now().plusMonths(5), 60.0, 20));
+        medDAO.addMedicine(new Medicine("LowStock", LocalDate.now().plusMonths(5), 10.0, 2));
+
+        ArrayList<Medicine> list = medDAO.getAllMedicines();
+        boolean foundLowStock = list.stream().anyMatch(m -> m.getName().equals("LowStock"));
+        assertTrue(foundLowStock, "Low stock medicine should be present in the result");
+    }
+
+    @Test
+    @Order(10)
+    @DisplayName("Should batch-insert medicines and assign distinct generated IDs")
+    void testAddMedicinesBatch() throws DatabaseOperationException, MedicineNotFoundException { // Test bulk insert across several chunks
+        useSmallBatches(medDAO);
+        ArrayList<Medicine> meds = new ArrayList<>();
+        for (int i = 0; i < 10; i++) meds.add(new Medicine("Bulk" + i, LocalDate.now().plusMonths(1 + i), 5.0 + i, 10 + i));
+
+        assertEquals(10, medDAO.addMedicines(meds));
+        assertEquals(10, meds.stream().mapToInt(Medicine::getId).distinct().filter(id -> id != 0).count(), "Every row should get its own ID");
+        for (Medicine m : meds) assertEquals(m.getName(), medDAO.getMedicineById(m.getId()).getName());
+    }
+
+    @Test
+    @Order(11)
+    @DisplayName("Should page through medicines by expiry then ID, skipping expired ones")
+    void testGetMedicinesPage() throws DatabaseOperationException { // Test keyset pagination covers every listed row exactly once
+        medDAO.addMedicine(new Medicine("Expired", LocalDate.now().minusDays(3), 1.0, 1));
+        medDAO.addMedicine(new Medicine("NoExpiry", null, 2.0, 2));
+        for (int i = 0; i < 5; i++) medDAO.addMedicine(new Medicine("Same" + i, LocalDate.now().plusDays(10), 3.0, 3));
+        medDAO.addMedicine(new Medicine("Soon", LocalDate.now().plusDays(1), 4.0, 4));
+
+        ArrayList<String> names = new ArrayList<>();
+        LocalDate afterExpiry = null;
+        int afterId = 0;
+        List<Medicine> page;
+        do {
+            page = medDAO.getMedicinesPage(afterExpiry, afterId, 2);
+            page.forEach(m -> names.add(m.getName()));
+            if (!page.isEmpty()) {
+                afterExpiry = page.get(page.size() - 1).getExpiryDate();
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == 2);
+
+        assertEquals(List.of("Soon", "Same0", "Same1", "Same2", "Same3", "Same4", "NoExpiry"), names);
+    }
+
+    @Test
+    @Order(12)
+    @DisplayName("Should stream every medicine in ID order")
+    void testStreamMedicines() throws DatabaseOperationException { // Test the cursor-backed stream includes expired rows
+        medDAO.addMedicine(new Medicine("B", LocalDate.now().minusDays(1), 1.0, 1));
+        medDAO.addMedicine(new Medicine("A", LocalDate.now().plusDays(1), 1.0, 1));
+
+        try (Stream<Medicine> meds = medDAO.streamMedicines()) {
+            assertEquals(List.of("B", "A"), meds.map(Medicine::getName).toList());
+        }
+    }
+
+    @Test
+    @Order(13)
+    @DisplayName("Should filter by expiry range and stock level in the query")
+    void testExpiryAndStockQueries() throws DatabaseOperationException { // Test the SQL-side finders, including undated rows
+        LocalDate today = LocalDate.now();
+        medDAO.addMedicine(new Medicine("Undated", null, 1.0, 1));
+        medDAO.addMedicine(new Medicine("NextWeek", today.plusDays(7), 1.0, 50));
+        medDAO.addMedicine(new Medicine("NextMonth", today.plusDays(30), 1.0, 3));
+        medDAO.addMedicine(new Medicine("NextYear", today.plusDays(365), 1.0, 8));
+
+        assertEquals(List.of("NextWeek", "NextMonth", "NextYear", "Undated"),
+                medDAO.getAllMedicines().stream().map(Medicine::getName).toList(), "Undated rows should sort last, not fail");
+        assertEquals(List.of("NextWeek", "NextMonth"),
+                medDAO.findExpiringBetween(today, today.plusDays(30)).stream().map(Medicine::getName).toList());
+        assertEquals(List.of("Undated", "NextMonth"),
+                medDAO.findLowStock(5).stream().map(Medicine::getName).toList());
+    }
+
+    @Test
+    @Order(14)
+    @DisplayName("Should dispense and restock atomically, rejecting over-dispensing")
+    void testDispenseAndRestock() throws DatabaseOperationException, MedicineNotFoundException { // Test the conditional stock updates
+        Medicine med = new Medicine("Salbutamol", LocalDate.now().plusMonths(6), 15.0, 10);
+        medDAO.addMedicine(med);
+
+        medDAO.dispense(med.getId(), 4);
+        medDAO.restock(med.getId(), 2);
+        assertEquals(8, medDAO.getMedicineById(med.getId()).getStock());
+
+        InsufficientStockException e = assertThrows(InsufficientStockException.class, () -> medDAO.dispense(med.getId(), 9));
+        assertEquals(8, e.getAvailable());
+        assertThrows(MedicineNotFoundException.class, () -> medDAO.dispense(9999, 1));
+    }
+
+    @Test
+    @Order(15)
+    @DisplayName("Should not lose updates when counters dispense concurrently")
+    void testConcurrentDispense() throws Exception { // Test 4 threads x 25 single-unit dispenses against 100 units
+        Medicine med = new Medicine("Ibuprofen", LocalDate.now().plusMonths(6), 5.0, 100);
+        medDAO.addMedicine(med);
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            results.add(pool.submit(() -> {
+                for (int i = 0; i < 25; i++) medDAO.dispense(med.getId(), 1);
+                return null;
+            }));
+        }
+        for (Future<?> f : results) f.get(30, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        assertEquals(0, medDAO.getMedicineById(med.getId()).getStock());
+        assertThrows(InsufficientStockException.class, () -> medDAO.dispense(med.getId(), 1));
+    }
+
+    @Test
+    @Order(16)
+    @DisplayName("Should reject a full update based on a stale version")
+    void testOptimisticLocking() throws DatabaseOperationException, MedicineNotFoundException { // Test version check on updateMedicine
+        enableOptimisticLocking(medDAO);
+        Medicine med = new Medicine("Loperamide", LocalDate.now().plusMonths(6), 7.0, 20);
+        medDAO.addMedicine(med);
+
+        Medicine counterA = medDAO.getMedicineById(med.getId());
+        Medicine counterB = medDAO.getMedicineById(med.getId());
+        counterA.setStock(15);
+        medDAO.updateMedicine(counterA);
+        counterB.setPrice(8.0);
+
+        assertThrows(StaleMedicineException.class, () -> medDAO.updateMedicine(counterB));
+        assertEquals(15, medDAO.getMedicineById(med.getId()).getStock());
+        medDAO.updateMedicine(counterA); // the winner's copy carries the bumped version
+    }
+
+    @Test
+    @Order(17)
+    @DisplayName("Should report only the rows changed or deleted since a token")
+    void testChangesSince() throws DatabaseOperationException, MedicineNotFoundException { // Test the delta-sync feed, tombstones included
+        Medicine a = new Medicine("Amoxicillin", LocalDate.now().plusDays(30), 12.0, 40);
+        Medicine b = new Medicine("Brufen", null, 3.0, 10);
+        medDAO.addMedicine(a);
+        medDAO.addMedicine(b);
+
+        MedicineChanges first = medDAO.getChangesSince(0);
+        assertEquals(List.of(a.getId(), b.getId()), first.upserts().stream().map(Medicine::getId).toList());
+        assertTrue(first.deletedIds().isEmpty());
+        long token = first.nextToken();
+        MedicineChanges none = medDAO.getChangesSince(token);
+        assertTrue(none.isEmpty(), "Nothing changed since the token");
+        assertEquals(token, none.nextToken());
+
+        medDAO.dispense(a.getId(), 5);
+        medDAO.deleteMedicine(b.getId());
+        Medicine c = new Medicine("Cefalexin", LocalDate.now().plusDays(90), 8.0, 25);
+        medDAO.addMedicine(c);
+
+        MedicineChanges second = medDAO.getChangesSince(token);
+        assertEquals(List.of(a.getId(), c.getId()), second.upserts().stream().map(Medicine::getId).toList(), "Oldest change first");
+        assertEquals(35, second.upserts().get(0).getStock());
+        assertEquals(List.of(b.getId()), second.deletedIds());
+        assertTrue(second.nextToken() > token);
+        assertTrue(medDAO.getChangesSince(second.nextToken()).isEmpty());
+
+        medDAO.upsertMedicines(List.of(new Medicine(b.getId(), "Brufen", null, 3.0, 10))); // bring the deleted ID back
+        MedicineChanges third = medDAO.getChangesSince(second.nextToken());
+        assertEquals(List.of(b.getId()), third.upserts().stream().map(Medicine::getId).toList());
+        assertFalse(medDAO.getChangesSince(0).deletedIds().contains(b.getId()), "A live row must not also be reported deleted");
+    }
+
+    @Test
+    @Order(18)
+    @DisplayName("Should apply stock deltas together, skipping unknown IDs and stock that would go negative")
+    void testStockDeltas() throws DatabaseOperationException, MedicineNotFoundException { // Test the write-behind flush path
+        Medicine a = new Medicine("Atenolol", LocalDate.now().plusMonths(6), 4.0, 10);
+        Medicine b = new Medicine("Bisoprolol", LocalDate.now().plusMonths(6), 5.0, 3);
+        medDAO.addMedicine(a);
+        medDAO.addMedicine(b);
+
+        assertEquals(Set.of(a.getId()), medDAO.applyStockDeltas(Map.of(a.getId(), -10, b.getId(), -4, 9999, 5)));
+        assertEquals(0, medDAO.getMedicineById(a.getId()).getStock());
+        assertEquals(3, medDAO.getMedicineById(b.getId()).getStock(), "refused rather than taken below zero");
+        assertEquals(Set.of(a.getId(), b.getId()), medDAO.applyStockDeltas(Map.of(a.getId(), 2, b.getId(), -3)));
+        assertEquals(2, medDAO.getMedicineById(a.getId()).getStock());
+        assertEquals(0, medDAO.getMedicineById(b.getId()).getStock());
+    }
+
+    @Test
+    @Order(19)
+    @DisplayName("Should refuse to upsert IDs the store never issued")
+    void testUpsertUnissuedId() throws DatabaseOperationException, MedicineNotFoundException { // Test that explicit IDs can't get ahead of the ID generator
+        Medicine a = new Medicine("Allopurinol", null, 6.0, 10);
+        medDAO.addMedicine(a);
+        int imported = a.getId() + 50 * 256; // same branch store when IDs are sharded
+        Medicine c = new Medicine("Captopril", null, 4.0, 10);
+        assertThrows(IllegalArgumentException.class,
+                () -> medDAO.upsertMedicines(List.of(new Medicine(imported, "Imported", null, 2.0, 5), c)));
+        assertEquals(0, c.getId(), "nothing of the refused batch is written");
+        assertThrows(MedicineNotFoundException.class, () -> medDAO.getMedicineById(imported));
+
+        medDAO.upsertMedicines(List.of(new Medicine(a.getId(), "Allopurinol", null, 6.0, 7), c));
+        Medicine b = new Medicine("Bumetanide", null, 3.0, 10);
+        medDAO.addMedicine(b);
+        assertTrue(b.getId() > c.getId() && c.getId() > a.getId());
+        assertEquals(7, medDAO.getMedicineById(a.getId()).getStock());
+        assertEquals(3, medDAO.getAllMedicines().size());
+    }
+}
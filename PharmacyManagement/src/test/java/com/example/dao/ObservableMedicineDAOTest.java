@@ -0,0 +1,53 @@
+package com.example.dao;
+
+import com.example.model.Medicine;
+import com.example.util.DBConnection;
+import com.example.exceptions.DatabaseOperationException;
+
+import org.junit.jupiter.api.*;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ObservableMedicineDAO Tests")
+class ObservableMedicineDAOTest {
+
+    private MedicineDAOImpl backend;
+    private ObservableMedicineDAO observed;
+    private final List<Integer> added = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        backend = new MedicineDAOImpl();
+        observed = new ObservableMedicineDAO(backend);
+        observed.addListener(new MedicineChangeListener() {
+            @Override public void medicineAdded(Medicine medicine) { added.add(medicine.getId()); }
+            @Override public void medicineUpdated(Medicine medicine) { }
+            @Override public void medicineDeleted(int id) { }
+        });
+        try (Connection conn = DBConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM medicines");
+        }
+    }
+
+    @Test
+    @DisplayName("Should announce only the rows a partly failed batch insert committed")
+    void testPartialBatchAdd() throws DatabaseOperationException {
+        backend.setBatchSize(2);
+        Medicine a = new Medicine("Aciclovir", null, 3.0, 10);
+        Medicine b = new Medicine("Betahistine", null, 2.0, 10);
+        Medicine stale = new Medicine(424242, null, null, 1.0, 1); // an ID from elsewhere and no name, so its chunk fails
+        Medicine c = new Medicine("Cefalexin", null, 4.0, 10);
+
+        assertThrows(DatabaseOperationException.class, () -> observed.addMedicines(List.of(a, b, stale, c)));
+        assertEquals(List.of(a.getId(), b.getId()), added.stream().sorted().toList());
+        assertEquals(0, c.getId());
+        assertEquals(2, observed.getAllMedicines().size());
+    }
+}
@@ -1,139 +1,110 @@
 package com.example.dao;
 
-import com.example.model.Medicine;
+import com.example.util.ConnectionPool;
 import com.example.util.DBConnection;
+import com.example.util.PoolConfig;
+import com.example.util.SchemaManager;
+
+import com.example.model.Medicine;
 import com.example.exceptions.DatabaseOperationException;
 import com.example.exceptions.MedicineNotFoundException;
 
-import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
 
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.time.LocalDate;
-import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
-@TestMethodOrder(MethodOrderer.OrderAnnotation.class) // Ensure tests run in order
 @DisplayName("PharmacyDAOImpl Integration Tests")// Descriptive name for the test class
-class PharmacyDAOImplTest {
-
-    private MedicineDAO medDAO;
-
-    @BeforeEach // Runs before each test
-    void setUp() throws SQLException {
-        medDAO = new MedicineDAOImpl();
+class PharmacyDAOImplTest extends MedicineDAOContractTest {
 
+    @Override
+    protected MedicineDAO createEmptyDAO() throws SQLException {
         // Clear table before each test
         try (Connection conn = DBConnection.getConnection(); // Ensure connection is closed
              Statement stmt = conn.createStatement()) {
             stmt.executeUpdate("DELETE FROM medicines");
+            stmt.executeUpdate("DELETE FROM medicine_tombstones");
         }
+        MedicineDAOImpl dao = new MedicineDAOImpl();
+        dao.setChangeFeedLagMillis(0); // report our own writes straight away
+        return dao;
     }
 
-    @Test
-    @Order(1)
-    @DisplayName("Should add a new medicine successfully")
-    void testAddMedicine() throws DatabaseOperationException, MedicineNotFoundException { // Test adding a medicine
-        Medicine med = new Medicine("Paracetamol", LocalDate.now().plusMonths(6), 50.0, 20);
-        medDAO.addMedicine(med);
-
-        assertNotEquals(0, med.getId(), "Medicine ID should be generated");
-
-        Medicine retrieved = medDAO.getMedicineById(med.getId());
-        assertNotNull(retrieved);
-        assertEquals("Paracetamol", retrieved.getName());
-    }
-
-    @Test
-    @Order(2)
-    @DisplayName("Should retrieve all medicines when table is empty")
-    void testGetAllEmpty() throws DatabaseOperationException { // Test retrieving from empty table
-        ArrayList<Medicine> list = medDAO.getAllMedicines();
-        assertNotNull(list);
-        assertTrue(list.isEmpty(), "Should be empty initially");
-    }
-
-    @Test
-    @Order(3)
-    @DisplayName("Should retrieve all medicines with data")
-    void testGetAllWithData() throws DatabaseOperationException { // Test retrieving from table with data
-        medDAO.addMedicine(new Medicine("Aspirin", LocalDate.now().plusMonths(3), 30.0, 10));
-        medDAO.addMedicine(new Medicine("Ibuprofen", LocalDate.now().plusMonths(12), 70.0, 15));
-
-        ArrayList<Medicine> list = medDAO.getAllMedicines();
-        assertEquals(2, list.size());
-    }
-
-    @Test
-    @Order(4)
-    @DisplayName("Should update an existing medicine successfully")
-    void testUpdateMedicine() throws DatabaseOperationException, MedicineNotFoundException { // Test updating a medicine
-        Medicine med = new Medicine("Vitamin C", LocalDate.now().plusMonths(8), 25.0, 50);
-        medDAO.addMedicine(med);
-
-        med.setName("Vitamin C+");
-        med.setPrice(30.0);
-        med.setStock(40);
-        medDAO.updateMedicine(med);
-
-        Medicine updated = medDAO.getMedicineById(med.getId());
-        assertEquals("Vitamin C+", updated.getName());
-        assertEquals(30.0, updated.getPrice());
-        assertEquals(40, updated.getStock());
-    }
-
-    @Test
-    @Order(5)
-    @DisplayName("Should throw exception when updating non-existent medicine")
-    void testUpdateNonExistent() {// Test updating a non-existent medicine
-        Medicine fake = new Medicine(9999, "Apple", LocalDate.now(), 10.0, 1);
-        assertThrows(MedicineNotFoundException.class, () -> medDAO.updateMedicine(fake));
-    }
-
-    @Test
-    @Order(6)
-    @DisplayName("Should delete a medicine successfully")
-    void testDeleteMedicine() throws DatabaseOperationException, MedicineNotFoundException { // Test deleting a medicine
-        Medicine med = new Medicine("Antibiotic", LocalDate.now().plusMonths(4), 100.0, 5);
-        medDAO.addMedicine(med);
-
-        medDAO.deleteMedicine(med.getId());
-        assertThrows(MedicineNotFoundException.class, () -> medDAO.getMedicineById(med.getId()));
+    @Override
+    protected void enableOptimisticLocking(MedicineDAO dao) {
+        ((MedicineDAOImpl) dao).setOptimisticLocking(true);
     }
 
-    @Test
-    @Order(7)
-    @DisplayName("Should throw exception when deleting non-existent medicine")
-    void testDeleteNonExistent() { // Test deleting a non-existent medicine
-        assertThrows(MedicineNotFoundException.class, () -> medDAO.deleteMedicine(9999));
+    @Override
+    protected void useSmallBatches(MedicineDAO dao) {
+        ((MedicineDAOImpl) dao).setBatchSize(3);
     }
 
     @Test
-    @Order(8)
-    @DisplayName("Should automatically remove expired medicines from list")
-    void testExpiredMedicineRemoval() throws DatabaseOperationException { // Test that expired medicines are not returned
-        Medicine expired = new Medicine("ExpiredMed", LocalDate.now().minusDays(1), 20.0, 10);
-        Medicine valid = new Medicine("ValidMed", LocalDate.now().plusMonths(2), 40.0, 15);
-
-        medDAO.addMedicine(expired);
-        medDAO.addMedicine(valid);
-
-        ArrayList<Medicine> list = medDAO.getAllMedicines();
-        assertEquals(1, list.size());
-        assertEquals("ValidMed", list.get(0).getName());
+    @Order(101)
+    @DisplayName("Should hold back changes younger than the change feed lag")
+    void testChangeFeedLag() throws DatabaseOperationException, MedicineNotFoundException { // Test the database-side cut-off
+        MedicineDAOImpl dao = (MedicineDAOImpl) medDAO;
+        Medicine a = new Medicine("Amlodipine", null, 2.0, 30);
+        dao.addMedicine(a);
+        dao.deleteMedicine(a.getId());
+        Medicine b = new Medicine("Bisacodyl", null, 1.0, 12);
+        dao.addMedicine(b);
+
+        dao.setChangeFeedLagMillis(60_000);
+        MedicineChanges held = dao.getChangesSince(0);
+        assertTrue(held.isEmpty(), "stamped just now");
+        assertEquals(0, held.nextToken());
+
+        dao.setChangeFeedLagMillis(0);
+        MedicineChanges all = dao.getChangesSince(0);
+        assertEquals(List.of(b.getId()), all.upserts().stream().map(Medicine::getId).toList());
+        assertEquals(List.of(a.getId()), all.deletedIds());
     }
 
     @Test
-    @Order(9)
-    @DisplayName("Should detect low-stock medicines")
-    void testLowStockDetection() throws DatabaseOperationException { // Test that low-stock medicines are identified
-        medDAO.addMedicine(new Medicine("HighStock", LocalDate.now().plusMonths(5), 60.0, 20));
-        medDAO.addMedicine(new Medicine("LowStock", LocalDate.now().plusMonths(5), 10.0, 2));
-
-        ArrayList<Medicine> list = medDAO.getAllMedicines();
-        boolean foundLowStock = list.stream().anyMatch(m -> m.getName().equals("LowStock"));
-        assertTrue(foundLowStock, "Low stock medicine should be present in the result");
+    @Order(102)
+    @DisplayName("Should run on a schema from before db/upgrade.sql and pick up the upgrade on restart")
+    void testUnupgradedSchema() throws SQLException, DatabaseOperationException, MedicineNotFoundException { // Test the legacy fallback and the migration
+        try (ConnectionPool pool = new ConnectionPool(new PoolConfig("jdbc:h2:mem:legacy;MODE=Oracle;DB_CLOSE_DELAY=-1", "sa", ""))) {
+            try (Connection conn = pool.getConnection();
+                 Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE medicines (medicine_id NUMBER(10) GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,"
+                        + " name VARCHAR2(255) NOT NULL, expiry_date DATE, price NUMBER(10, 2) NOT NULL, stock NUMBER(10) DEFAULT 0 NOT NULL)");
+            }
+            MedicineDAOImpl legacy = new MedicineDAOImpl(pool);
+            Medicine a = new Medicine("Atenolol", null, 3.0, 10);
+            Medicine b = new Medicine("Baclofen", null, 4.0, 10);
+            legacy.addMedicine(a);
+            legacy.addMedicines(List.of(b));
+            legacy.dispense(a.getId(), 4);
+            legacy.restock(b.getId(), 5);
+            legacy.applyStockDeltas(Map.of(a.getId(), 1));
+            legacy.upsertMedicines(List.of(new Medicine(b.getId(), "Baclofen 10mg", null, 4.0, 15)));
+            a.setStock(9);
+            legacy.updateMedicine(a);
+            assertEquals(9, legacy.getMedicineById(a.getId()).getStock());
+            assertEquals("Baclofen 10mg", legacy.getMedicineById(b.getId()).getName());
+            assertThrows(DatabaseOperationException.class, () -> legacy.getChangesSince(0));
+            legacy.setOptimisticLocking(true);
+            assertThrows(DatabaseOperationException.class, () -> legacy.updateMedicine(a));
+
+            SchemaManager.ensureSchema(pool);
+            SchemaManager.ensureSchema(pool); // idempotent
+            MedicineDAOImpl upgraded = new MedicineDAOImpl(pool);
+            upgraded.setChangeFeedLagMillis(0);
+            upgraded.setOptimisticLocking(true);
+            assertEquals(2, upgraded.getChangesSince(0).upserts().size(), "rows from before the upgrade are in a full sync");
+            upgraded.updateMedicine(a);
+            upgraded.deleteMedicine(b.getId());
+            assertEquals(List.of(b.getId()), upgraded.getChangesSince(0).deletedIds());
+        }
     }
 }
@@ -0,0 +1,275 @@
+package com.example.dao;
+
+import com.example.model.Medicine;
+import com.example.util.ConnectionPool;
+import com.example.util.PoolConfig;
+import com.example.util.SchemaManager;
+import com.example.exceptions.DatabaseOperationException;
+import com.example.exceptions.MedicineNotFoundException;
+
+import org.junit.jupiter.api.*;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ShardedMedicineDAO Tests")
+class ShardedMedicineDAOTest extends MedicineDAOContractTest { // three embedded databases stand in for branch stores 1, 2 and 3; new rows go to store 2
+
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    private final Map<Integer, ConnectionPool> pools = new TreeMap<>();
+    private final Map<Integer, MedicineDAOImpl> shards = new TreeMap<>();
+    private ShardedMedicineDAO sharded;
+
+    @Override
+    protected MedicineDAO createEmptyDAO() throws SQLException {
+        int run = DATABASES.incrementAndGet();
+        for (int storeId = 1; storeId <= 3; storeId++) {
+            ConnectionPool pool = new ConnectionPool(new PoolConfig("jdbc:h2:mem:store" + storeId + "_" + run + ";MODE=Oracle;DB_CLOSE_DELAY=-1", "sa", ""));
+            SchemaManager.ensureSchema(pool);
+            MedicineDAOImpl dao = new MedicineDAOImpl(pool);
+            dao.setChangeFeedLagMillis(0);
+            pools.put(storeId, pool);
+            shards.put(storeId, dao);
+        }
+        sharded = new ShardedMedicineDAO(shards, 2);
+        return sharded;
+    }
+
+    @Override
+    protected void enableOptimisticLocking(MedicineDAO dao) {
+        shards.values().forEach(d -> d.setOptimisticLocking(true));
+    }
+
+    @Override
+    protected void useSmallBatches(MedicineDAO dao) {
+        shards.values().forEach(d -> d.setBatchSize(3));
+    }
+
+    @AfterEach
+    void tearDown() {
+        sharded.close();
+        pools.values().forEach(ConnectionPool::close);
+    }
+
+    @Override
+    @Test
+    @Order(17)
+    @DisplayName("Should keep a change token per store")
+    void testChangesSince() throws DatabaseOperationException, MedicineNotFoundException { // Test the feed through one store's view, then the cursor across stores
+        assertThrows(DatabaseOperationException.class, () -> sharded.getChangesSince(0));
+        medDAO = sharded.forStore(2);
+        super.testChangesSince();
+
+        String cursor = sharded.getChangesSince(null).nextCursor();
+        Medicine a = add(1, "A", null, 1);
+        Medicine c = add(3, "C", null, 1);
+        sharded.dispense(a.getId(), 1);
+
+        ShardedChanges changes = sharded.getChangesSince(cursor);
+        assertEquals(List.of(a.getId(), c.getId()), changes.upserts().stream().map(Medicine::getId).toList(), "store by store");
+        assertEquals(0, changes.upserts().get(0).getStock());
+        assertEquals(sharded.forStore(3).getChangesSince(0).nextToken(), ShardedMedicineDAO.parseCursor(changes.nextCursor()).get(3));
+        assertTrue(sharded.getChangesSince(changes.nextCursor()).isEmpty());
+        assertEquals(sharded.getChangesSince(null), sharded.getChangesSince("1:0"), "stores missing from the cursor start from the top");
+        assertThrows(IllegalArgumentException.class, () -> sharded.getChangesSince("9:0"));
+        assertThrows(IllegalArgumentException.class, () -> sharded.getChangesSince("1:x"));
+    }
+
+    private Medicine add(int storeId, String name, LocalDate expiry, int stock) throws DatabaseOperationException {
+        Medicine m = new Medicine(name, expiry, 1.0, stock);
+        sharded.forStore(storeId).addMedicine(m);
+        return m;
+    }
+
+    @Test
+    @Order(101)
+    @DisplayName("Should give every store's rows distinct IDs that route back to the store")
+    void testGlobalIds() throws DatabaseOperationException, MedicineNotFoundException { // Test the local << 8 | store scheme
+        Medicine a = add(1, "A", null, 5);
+        Medicine c = add(3, "C", null, 7);
+
+        assertEquals(ShardedMedicineDAO.globalId(1, 1), a.getId());
+        assertEquals(ShardedMedicineDAO.globalId(3, 1), c.getId());
+        assertEquals(3, ShardedMedicineDAO.storeOf(c.getId()));
+        assertEquals(1, ShardedMedicineDAO.localIdOf(c.getId()));
+        assertEquals("C", sharded.getMedicineById(c.getId()).getName());
+        assertEquals(7, shards.get(3).getMedicineById(1).getStock(), "stored under its local ID");
+
+        sharded.dispense(c.getId(), 2);
+        assertEquals(5, sharded.getMedicineById(c.getId()).getStock());
+        MedicineNotFoundException e = assertThrows(MedicineNotFoundException.class, () -> sharded.forStore(1).getMedicineById(c.getId()));
+        assertTrue(e.getMessage().contains(String.valueOf(c.getId())), "errors should name the global ID");
+        assertThrows(MedicineNotFoundException.class, () -> sharded.getMedicineById(ShardedMedicineDAO.globalId(9, 1)), "no store 9");
+        assertThrows(IllegalArgumentException.class, () -> sharded.forStore(9));
+        assertThrows(IllegalArgumentException.class, () -> ShardedMedicineDAO.globalId(256, 1));
+    }
+
+    @Test
+    @Order(102)
+    @DisplayName("Should merge listings from every store and page across them")
+    void testScatterGatherListing() throws DatabaseOperationException { // Test keyset paging when the keys come from different stores
+        LocalDate soon = LocalDate.now().plusDays(5);
+        LocalDate later = LocalDate.now().plusDays(40);
+        add(3, "undated-3a", null, 1); // local ID 1 in stores 1 and 3: paging past one must not skip the other
+        add(1, "undated-1a", null, 1);
+        add(1, "later-1", later, 1);
+        add(3, "soon-3", soon, 1);
+        add(2, "soon-2", soon, 1);
+        add(2, "expired-2", LocalDate.now().minusDays(1), 1);
+        add(1, "soon-1", soon, 1);
+        add(3, "undated-3b", null, 1);
+        add(2, "later-2", later, 1);
+
+        List<Medicine> all = sharded.getAllMedicines();
+        List<Medicine> sorted = new ArrayList<>(all);
+        sorted.sort(Comparator.comparing(Medicine::getExpiryDate, Comparator.nullsLast(Comparator.naturalOrder())).thenComparingInt(Medicine::getId));
+        assertEquals(sorted, all);
+        assertEquals(8, all.size(), "expired rows are not listed");
+        assertEquals(List.of("soon-2", "soon-3", "soon-1"), all.subList(0, 3).stream().map(Medicine::getName).toList(),
+                "same expiry: global ID order, local ID first (2#1, 3#2, 1#3)");
+
+        for (int limit = 1; limit <= 3; limit++) {
+            List<Medicine> paged = new ArrayList<>();
+            LocalDate afterExpiry = null;
+            int afterId = 0;
+            List<Medicine> page;
+            do {
+                page = sharded.getMedicinesPage(afterExpiry, afterId, limit);
+                paged.addAll(page);
+                if (!page.isEmpty()) {
+                    afterExpiry = page.get(page.size() - 1).getExpiryDate();
+                    afterId = page.get(page.size() - 1).getId();
+                }
+            } while (page.size() == limit);
+            assertEquals(all, paged, "pages of " + limit);
+        }
+    }
+
+    @Test
+    @Order(103)
+    @DisplayName("Should merge finders and the stream across stores")
+    void testScatterGatherFinders() throws DatabaseOperationException {
+        LocalDate day = LocalDate.now().plusDays(3);
+        Medicine a = add(1, "A", day.plusDays(2), 4);
+        Medicine b = add(2, "B", day, 1);
+        Medicine c = add(3, "C", day.plusDays(1), 4);
+        Medicine d = add(1, "D", null, 0);
+
+        assertEquals(List.of(b.getId(), c.getId(), a.getId()),
+                sharded.findExpiringBetween(day, day.plusDays(2)).stream().map(Medicine::getId).toList());
+        assertEquals(List.of(d.getId(), b.getId(), a.getId(), c.getId()),
+                sharded.findLowStock(4).stream().map(Medicine::getId).toList(), "lowest stock first, then ID");
+        try (Stream<Medicine> meds = sharded.streamMedicines()) {
+            assertEquals(List.of(a.getId(), b.getId(), c.getId(), d.getId()), meds.map(Medicine::getId).toList(),
+                    "global ID order: local 1 of stores 1-3, then local 2 of store 1");
+        }
+    }
+
+    @Test
+    @Order(104)
+    @DisplayName("Should split bulk reads and writes by store")
+    void testCrossStoreBulkOperations() throws DatabaseOperationException, MedicineNotFoundException {
+        Medicine a = add(1, "A", null, 10);
+        Medicine c = add(3, "C", null, 10);
+
+        assertEquals(2, sharded.getMedicinesByIds(List.of(a.getId(), c.getId(), ShardedMedicineDAO.globalId(3, 99), ShardedMedicineDAO.globalId(9, 1))).size());
+        assertEquals(Set.of(a.getId(), c.getId()), sharded.applyStockDeltas(Map.of(a.getId(), 5, c.getId(), -3, ShardedMedicineDAO.globalId(9, 1), 1)));
+        assertEquals(15, sharded.getMedicineById(a.getId()).getStock());
+        assertEquals(7, sharded.getMedicineById(c.getId()).getStock());
+
+        Medicine renamed = new Medicine(c.getId(), "C2", null, 1.0, 7);
+        Medicine added = new Medicine("New", null, 1.0, 1);
+        sharded.upsertMedicines(List.of(renamed, added));
+        assertEquals("C2", shards.get(3).getMedicineById(1).getName(), "merged in its own store");
+        assertEquals(2, ShardedMedicineDAO.storeOf(added.getId()), "new rows go to the home store");
+        assertEquals("New", sharded.getMedicineById(added.getId()).getName());
+        assertThrows(IllegalArgumentException.class, () -> sharded.forStore(1).upsertMedicines(List.of(renamed)), "a row of store 3 can't be merged into store 1");
+    }
+
+    @Test
+    @Order(105)
+    @DisplayName("Should name the store that failed a cross-store query")
+    void testStoreFailure() throws DatabaseOperationException {
+        add(1, "A", null, 1);
+        pools.get(3).close();
+
+        DatabaseOperationException e = assertThrows(DatabaseOperationException.class, () -> sharded.getAllMedicines());
+        assertTrue(e.getMessage().startsWith("Store 3: "), e.getMessage());
+        assertEquals(1, sharded.forStore(1).getAllMedicines().size(), "the other stores still answer on their own");
+    }
+
+    @Test
+    @Order(106)
+    @DisplayName("Should take back a row whose local ID would not fit a global ID")
+    void testOutOfIds() throws DatabaseOperationException, SQLException {
+        try (Connection conn = pools.get(2).getConnection();
+             Statement st = conn.createStatement()) {
+            st.execute("ALTER TABLE medicines ALTER COLUMN medicine_id RESTART WITH " + ShardedMedicineDAO.MAX_LOCAL_ID);
+        }
+        shards.get(2).addMedicine(new Medicine("Last", null, 1.0, 1)); // the next identity value is past the ceiling
+        String cursor = sharded.getChangesSince(null).nextCursor();
+
+        Medicine m = new Medicine("One too many", null, 1.0, 1);
+        assertThrows(IllegalStateException.class, () -> sharded.addMedicine(m));
+        assertEquals(0, m.getId());
+        List<Medicine> batch = List.of(new Medicine("B1", null, 1.0, 1), new Medicine("B2", null, 1.0, 1));
+        assertThrows(IllegalStateException.class, () -> sharded.addMedicines(batch));
+        assertEquals(List.of("Last"), shards.get(2).getAllMedicines().stream().map(Medicine::getName).toList(), "no orphan rows left behind");
+        assertTrue(sharded.getChangesSince(cursor).isEmpty(), "the taken-back rows are not reported deleted");
+    }
+
+    @Test
+    @Order(107)
+    @DisplayName("Should build a sharded backend from properties")
+    void testFactory() throws DatabaseOperationException {
+        int run = DATABASES.incrementAndGet();
+        Properties props = new Properties();
+        props.setProperty(MedicineDAOFactory.BACKEND, "sharded");
+        props.setProperty(MedicineDAOFactory.SHARDS, "4, 7");
+        props.setProperty(MedicineDAOFactory.HOME_STORE, "7");
+        props.setProperty("pharmacy.db.user", "sa");
+        props.setProperty("pharmacy.db.password", "");
+        props.setProperty("pharmacy.db.initSchema", "true");
+        props.setProperty("pharmacy.shard.4.db.url", "jdbc:h2:mem:factory4_" + run + ";MODE=Oracle;DB_CLOSE_DELAY=-1");
+        props.setProperty("pharmacy.shard.7.db.url", "jdbc:h2:mem:factory7_" + run + ";MODE=Oracle;DB_CLOSE_DELAY=-1");
+
+        try (ShardedMedicineDAO dao = (ShardedMedicineDAO) MedicineDAOFactory.create(props)) {
+            assertEquals(List.of(4, 7), List.copyOf(dao.getStoreIds()));
+            Medicine m = new Medicine("Zinc", null, 2.0, 3);
+            dao.addMedicine(m);
+            assertEquals(7, ShardedMedicineDAO.storeOf(m.getId()));
+            assertEquals(List.of(m), dao.getAllMedicines());
+        }
+        props.setProperty(MedicineDAOFactory.HOME_STORE, "5");
+        assertThrows(IllegalArgumentException.class, () -> MedicineDAOFactory.create(props), "the home store must be one of the stores");
+        props.remove(MedicineDAOFactory.HOME_STORE);
+        assertThrows(IllegalArgumentException.class, () -> MedicineDAOFactory.create(props), "a home store is required");
+        props.setProperty(MedicineDAOFactory.HOME_STORE, "4");
+        props.setProperty(MedicineDAOFactory.SHARDS, "4,4");
+        assertThrows(IllegalArgumentException.class, () -> MedicineDAOFactory.create(props));
+    }
+
+    @Test
+    @Order(108)
+    @DisplayName("Should keep any store's token in the cursor, however far its sequence has run")
+    void testLargeCursorTokens() throws DatabaseOperationException {
+        Map<Integer, Long> big = ShardedMedicineDAO.parseCursor("1:" + Long.MAX_VALUE + ", 3:5");
+        assertEquals(Long.MAX_VALUE, big.get(1));
+        assertEquals(5L, big.get(3));
+        assertTrue(sharded.getChangesSince("1:" + (1L << 40) + ",2:" + (1L << 40) + ",3:" + (1L << 40)).isEmpty());
+    }
+}
@@ -0,0 +1,272 @@
+package com.example.dao;
+
+import com.example.model.Medicine;
+import com.example.util.DBConnection;
+import com.example.exceptions.DatabaseOperationException;
+import com.example.exceptions.InsufficientStockException;
+import com.example.exceptions.MedicineNotFoundException;
+import com.example.exceptions.StaleMedicineException;
+
+import org.junit.jupiter.api.*;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("WriteBehindMedicineDAO Tests")
+class WriteBehindMedicineDAOTest {
+
+    private MedicineDAO store;
+    private CountingDAO backend;
+    private WriteBehindMedicineDAO writeBehind;
+
+    private static class CountingDAO extends ForwardingMedicineDAO { // counts flushes and can fail them on demand
+        int flushes;
+        int rowsWritten;
+        boolean failFlushes;
+        boolean failBulkReads;
+
+        CountingDAO(MedicineDAO delegate) { super(delegate); }
+
+        @Override
+        public List<Medicine> getMedicinesByIds(Collection<Integer> ids) throws DatabaseOperationException {
+            if (failBulkReads) throw new DatabaseOperationException("connection lost");
+            return super.getMedicinesByIds(ids);
+        }
+
+        @Override
+        public Set<Integer> applyStockDeltas(Map<Integer, Integer> deltas) throws DatabaseOperationException {
+            if (failFlushes) throw new DatabaseOperationException("connection lost");
+            flushes++;
+            Set<Integer> rows = super.applyStockDeltas(deltas);
+            rowsWritten += rows.size();
+            return rows;
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        store = new MedicineDAOImpl();
+        backend = new CountingDAO(store);
+        writeBehind = WriteBehindMedicineDAO.start(backend, Duration.ofHours(1), 1_000); // only explicit flushes in these tests
+        try (Connection conn = DBConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM medicines");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws DatabaseOperationException {
+        backend.failFlushes = false;
+        writeBehind.close();
+    }
+
+    @Test
+    @DisplayName("Should coalesce many stock changes into one restock and one dispense write")
+    void testCoalescing() throws DatabaseOperationException {
+        Medicine med = new Medicine("Paracetamol", LocalDate.now().plusMonths(6), 5.0, 100);
+        writeBehind.addMedicine(med);
+
+        for (int i = 0; i < 50; i++) writeBehind.dispense(med.getId(), 1);
+        for (int i = 0; i < 10; i++) writeBehind.restock(med.getId(), 2);
+
+        assertEquals(100, store.getMedicineById(med.getId()).getStock(), "Nothing written before a flush");
+        assertEquals(70, writeBehind.getMedicineById(med.getId()).getStock(), "Reads include buffered changes");
+        assertEquals(70, writeBehind.getAllMedicines().get(0).getStock());
+
+        writeBehind.flush();
+
+        assertEquals(2, backend.flushes, "restocks, then dispenses");
+        assertEquals(2, backend.rowsWritten);
+        assertEquals(1, writeBehind.getStats().rowsWritten());
+        assertEquals(70, store.getMedicineById(med.getId()).getStock());
+        assertEquals(70, writeBehind.getMedicineById(med.getId()).getStock(), "A flushed delta must not be counted twice");
+        assertEquals(60, writeBehind.getStats().buffered());
+    }
+
+    @Test
+    @DisplayName("Should reject a dispense that exceeds stock including buffered changes")
+    void testInsufficientStock() throws DatabaseOperationException {
+        Medicine med = new Medicine("Insulin", LocalDate.now().plusMonths(3), 40.0, 5);
+        writeBehind.addMedicine(med);
+        writeBehind.dispense(med.getId(), 4);
+
+        InsufficientStockException e = assertThrows(InsufficientStockException.class, () -> writeBehind.dispense(med.getId(), 2));
+        assertEquals(1, e.getAvailable());
+        assertThrows(MedicineNotFoundException.class, () -> writeBehind.restock(-1, 1));
+    }
+
+    @Test
+    @DisplayName("Should write restocks and keep refused dispenses buffered when stock was dispensed elsewhere")
+    void testFlushRefusesNegativeStock() throws DatabaseOperationException {
+        ((MedicineDAOImpl) store).setOptimisticLocking(true);
+        Medicine med = new Medicine("Warfarin", LocalDate.now().plusMonths(3), 6.0, 5);
+        Medicine other = new Medicine("Heparin", LocalDate.now().plusMonths(3), 9.0, 5);
+        writeBehind.addMedicine(med);
+        writeBehind.addMedicine(other);
+        writeBehind.dispense(med.getId(), 4); // checked against the 5 in stock
+        writeBehind.restock(med.getId(), 1);
+        writeBehind.dispense(other.getId(), 1);
+        store.dispense(med.getId(), 3); // another instance dispensing straight to the database
+        Medicine edit = writeBehind.getMedicineById(other.getId());
+
+        writeBehind.flush();
+
+        assertEquals(3, store.getMedicineById(med.getId()).getStock(), "the restock is written even though the dispense is refused");
+        assertEquals(-1, writeBehind.getMedicineById(med.getId()).getStock(), "the acknowledged dispense is still owed");
+        assertEquals(1, writeBehind.getStats().skippedRows());
+        assertEquals(1, writeBehind.getStats().pending());
+        edit.setPrice(9.5);
+        writeBehind.updateMedicine(edit); // the other row was written in full: no conflict
+        assertThrows(InsufficientStockException.class, () -> writeBehind.dispense(med.getId(), 1));
+
+        writeBehind.restock(med.getId(), 5);
+        writeBehind.flush();
+        assertEquals(4, store.getMedicineById(med.getId()).getStock(), "the refused dispense is replayed once stock covers it");
+        assertEquals(0, writeBehind.getStats().pending());
+        assertEquals(1, writeBehind.getStats().skippedRows(), "reported once, not on every retry");
+        Medicine current = writeBehind.getMedicineById(med.getId());
+        current.setPrice(7.0);
+        writeBehind.updateMedicine(current);
+        assertEquals(7.0, store.getMedicineById(med.getId()).getPrice());
+    }
+
+    @Test
+    @DisplayName("Should drop buffered changes of a row deleted before the flush")
+    void testFlushDropsDeletedRows() throws DatabaseOperationException {
+        Medicine med = new Medicine("Digoxin", LocalDate.now().plusMonths(3), 6.0, 5);
+        writeBehind.addMedicine(med);
+        writeBehind.dispense(med.getId(), 2);
+        store.deleteMedicine(med.getId()); // deleted by another instance
+
+        writeBehind.flush();
+
+        assertEquals(0, writeBehind.getStats().pending());
+        assertEquals(1, writeBehind.getStats().skippedRows());
+    }
+
+    @Test
+    @DisplayName("Should keep deltas buffered when a flush fails and write them on the next one")
+    void testFailedFlushReplays() throws DatabaseOperationException {
+        Medicine a = new Medicine("Aspirin", LocalDate.now().plusMonths(3), 3.0, 10);
+        Medicine b = new Medicine("Ibuprofen", LocalDate.now().plusMonths(3), 4.0, 10);
+        writeBehind.addMedicine(a);
+        writeBehind.addMedicine(b);
+        writeBehind.dispense(a.getId(), 3);
+
+        backend.failFlushes = true;
+        assertThrows(DatabaseOperationException.class, () -> writeBehind.flush());
+        writeBehind.dispense(a.getId(), 2); // accepted while the database is unavailable
+        writeBehind.restock(b.getId(), 5);
+        assertEquals(5, writeBehind.getMedicineById(a.getId()).getStock());
+
+        backend.failFlushes = false;
+        writeBehind.flush();
+
+        assertEquals(5, store.getMedicineById(a.getId()).getStock());
+        assertEquals(15, store.getMedicineById(b.getId()).getStock());
+        assertEquals(1, writeBehind.getStats().failedFlushes());
+        assertEquals(0, writeBehind.getStats().pending());
+    }
+
+    @Test
+    @DisplayName("Should not replay a flush that committed but failed to notify listeners")
+    void testFailedReadBackAfterFlush() throws DatabaseOperationException {
+        ObservableMedicineDAO observed = new ObservableMedicineDAO(backend);
+        List<Integer> updated = new ArrayList<>();
+        observed.addListener(new MedicineChangeListener() {
+            public void medicineAdded(Medicine medicine) { }
+            public void medicineUpdated(Medicine medicine) { updated.add(medicine.getId()); }
+            public void medicineDeleted(int id) { }
+        });
+        Medicine med = new Medicine("Cetirizine", LocalDate.now().plusMonths(4), 2.0, 8);
+        try (WriteBehindMedicineDAO observedWriteBehind = WriteBehindMedicineDAO.start(observed, Duration.ofHours(1), 1_000)) {
+            observedWriteBehind.addMedicine(med);
+            observedWriteBehind.restock(med.getId(), 5);
+
+            backend.failBulkReads = true; // the listeners' read-back fails after the deltas are committed
+            observedWriteBehind.flush();
+            backend.failBulkReads = false;
+            observedWriteBehind.flush();
+
+            assertEquals(13, store.getMedicineById(med.getId()).getStock(), "a committed delta must not be buffered again");
+            assertEquals(0, observedWriteBehind.getStats().failedFlushes());
+        }
+        assertEquals(List.of(), updated, "no row to report when the read-back failed");
+    }
+
+    @Test
+    @DisplayName("Should flush before full updates, low-stock queries and on close")
+    void testFlushBarriers() throws DatabaseOperationException {
+        Medicine med = new Medicine("Vitamin D", LocalDate.now().plusMonths(9), 8.0, 10);
+        writeBehind.addMedicine(med);
+        writeBehind.dispense(med.getId(), 8);
+
+        List<Medicine> low = writeBehind.findLowStock(2);
+        assertEquals(1, low.size());
+        assertEquals(2, low.get(0).getStock());
+
+        writeBehind.restock(med.getId(), 10);
+        Medicine current = writeBehind.getMedicineById(med.getId());
+        current.setPrice(9.0);
+        writeBehind.updateMedicine(current);
+        assertEquals(12, store.getMedicineById(med.getId()).getStock());
+
+        writeBehind.dispense(med.getId(), 1);
+        writeBehind.close();
+        assertEquals(11, store.getMedicineById(med.getId()).getStock());
+        assertThrows(IllegalStateException.class, () -> writeBehind.dispense(med.getId(), 1));
+    }
+
+    @Test
+    @DisplayName("Should accept a full update of a row with buffered changes under optimistic locking")
+    void testUpdateWithOptimisticLocking() throws DatabaseOperationException {
+        ((MedicineDAOImpl) store).setOptimisticLocking(true);
+        Medicine med = new Medicine("Amoxicillin", LocalDate.now().plusMonths(6), 12.0, 20);
+        writeBehind.addMedicine(med);
+        writeBehind.dispense(med.getId(), 3);
+        writeBehind.dispense(med.getId(), 2);
+
+        Medicine edit = writeBehind.getMedicineById(med.getId());
+        edit.setPrice(13.0);
+        writeBehind.updateMedicine(edit); // the buffered dispenses are in edit's stock, not a conflict
+        assertEquals(15, store.getMedicineById(med.getId()).getStock());
+        assertEquals(13.0, store.getMedicineById(med.getId()).getPrice());
+        assertEquals(edit.getVersion(), writeBehind.getMedicineById(med.getId()).getVersion());
+
+        Medicine before = writeBehind.getMedicineById(med.getId());
+        writeBehind.restock(med.getId(), 4); // buffered after the read, so writing before's stock would lose it
+        before.setStock(before.getStock() + 1);
+        assertThrows(StaleMedicineException.class, () -> writeBehind.updateMedicine(before));
+        assertEquals(19, writeBehind.getMedicineById(med.getId()).getStock(), "the restock stays buffered");
+
+        Medicine current = writeBehind.getMedicineById(med.getId());
+        writeBehind.flush(); // writing what the caller already saw is no conflict either
+        current.setStock(30);
+        writeBehind.updateMedicine(current);
+        assertEquals(30, store.getMedicineById(med.getId()).getStock());
+        assertEquals(30, writeBehind.getMedicineById(med.getId()).getStock());
+    }
+
+    @Test
+    @DisplayName("Should flush on its own once the delay has passed")
+    void testTimedFlush() throws Exception {
+        try (WriteBehindMedicineDAO timed = WriteBehindMedicineDAO.start(backend, Duration.ofMillis(20), 1_000)) {
+            Medicine med = new Medicine("Saline", null, 1.0, 10);
+            timed.addMedicine(med);
+            timed.dispense(med.getId(), 4);
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (store.getMedicineById(med.getId()).getStock() != 6 && System.nanoTime() < deadline) Thread.sleep(10);
+            assertEquals(6, store.getMedicineById(med.getId()).getStock());
+        }
+    }
+}
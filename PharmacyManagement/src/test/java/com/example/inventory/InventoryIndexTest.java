@@ -0,0 +1,59 @@
+package com.example.inventory;
+
+import com.example.model.Medicine;
+
+import org.junit.jupiter.api.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("InventoryIndex Tests")
+class InventoryIndexTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 1, 15);
+    private InventoryIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new InventoryIndex();
+        index.medicineAdded(new Medicine(1, "Expired", TODAY.minusDays(1), 1.0, 9));
+        index.medicineAdded(new Medicine(2, "Later", TODAY.plusDays(30), 1.0, 2));
+        index.medicineAdded(new Medicine(3, "Soon", TODAY.plusDays(3), 1.0, 40));
+        index.medicineAdded(new Medicine(4, "Undated", null, 1.0, 5));
+    }
+
+    private static List<String> names(List<Medicine> meds) {
+        return meds.stream().map(Medicine::getName).toList();
+    }
+
+    @Test
+    @DisplayName("Should answer expiry and stock queries in order")
+    void testQueries() {
+        assertEquals(List.of("Soon", "Later"), names(index.nextToExpire(TODAY, 10)));
+        assertEquals(List.of("Soon"), names(index.nextToExpire(TODAY, 1)));
+        assertEquals(List.of("Expired"), names(index.expiredAsOf(TODAY)));
+        assertEquals(List.of("Later", "Undated"), names(index.lowStock(5)));
+    }
+
+    @Test
+    @DisplayName("Should move entries when expiry or stock change")
+    void testUpdateReindexes() {
+        index.medicineUpdated(new Medicine(3, "Soon", TODAY.plusDays(60), 1.0, 1));
+
+        assertEquals(List.of("Later", "Soon"), names(index.nextToExpire(TODAY, 10)));
+        assertEquals(List.of("Soon", "Later", "Undated"), names(index.lowStock(5)));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    @DisplayName("Should drop deleted entries from every view")
+    void testDelete() {
+        index.medicineDeleted(2);
+
+        assertTrue(index.get(2).isEmpty());
+        assertEquals(List.of("Soon"), names(index.nextToExpire(TODAY, 10)));
+        assertEquals(List.of("Undated"), names(index.lowStock(5)));
+    }
+}
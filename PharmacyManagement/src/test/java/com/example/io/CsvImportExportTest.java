@@ -0,0 +1,181 @@
+package com.example.io;
+
+import com.example.dao.ForwardingMedicineDAO;
+import com.example.dao.MedicineDAO;
+import com.example.dao.MedicineDAOImpl;
+import com.example.model.Medicine;
+import com.example.util.DBConnection;
+import com.example.exceptions.DatabaseOperationException;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("CSV Import/Export Tests")
+class CsvImportExportTest {
+
+    @TempDir
+    Path dir;
+
+    private MedicineDAO medDAO;
+
+    private static class FailingDAO extends ForwardingMedicineDAO { // simulates the database going away mid-import
+        int upserts;
+        final int failOn;
+
+        FailingDAO(MedicineDAO delegate, int failOn) {
+            super(delegate);
+            this.failOn = failOn;
+        }
+
+        @Override
+        public int upsertMedicines(Collection<Medicine> medicines) throws DatabaseOperationException {
+            if (++upserts == failOn) throw new DatabaseOperationException("connection lost");
+            return super.upsertMedicines(medicines);
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        medDAO = new MedicineDAOImpl();
+        try (Connection conn = DBConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM medicines");
+        }
+    }
+
+    @Test
+    @DisplayName("Should export every row and import it back by ID without duplicates")
+    void testRoundTrip() throws Exception {
+        medDAO.addMedicine(new Medicine("Amoxicillin, 500mg", LocalDate.now().plusMonths(6), 12.5, 40));
+        medDAO.addMedicine(new Medicine("Old \"Syrup\"", LocalDate.now().minusDays(3), 4.0, 2)); // expired rows are exported too
+        medDAO.addMedicine(new Medicine("Bandage", null, 1.0, 100));
+
+        Path csv = dir.resolve("catalog.csv");
+        assertEquals(3, new CsvMedicineExporter(medDAO).exportTo(csv));
+        assertEquals(MedicineCsv.HEADER, Files.readAllLines(csv).get(0));
+
+        try (Connection conn = DBConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("UPDATE medicines SET stock = 0"); // the import should restore the exported values
+        }
+        ImportResult result = new CsvMedicineImporter(medDAO, 2).importFile(csv, dir.resolve("rejects.csv"), null);
+
+        assertEquals(3, result.imported());
+        assertEquals(0, result.rejected());
+        try (Stream<Medicine> rows = medDAO.streamMedicines()) {
+            List<Medicine> all = rows.collect(Collectors.toList());
+            assertEquals(3, all.size());
+            assertEquals("Amoxicillin, 500mg", all.get(0).getName());
+            assertEquals(40, all.get(0).getStock());
+            assertEquals("Old \"Syrup\"", all.get(1).getName());
+            assertNull(all.get(2).getExpiryDate());
+        }
+    }
+
+    @Test
+    @DisplayName("Should round-trip names with line breaks in quoted fields")
+    void testMultiLineFields() throws Exception {
+        Medicine m = new Medicine("Cough Syrup\nSugar-free, \"Kids\"", null, 3.0, 5);
+        medDAO.addMedicine(m);
+        Path csv = dir.resolve("multi.csv");
+        new CsvMedicineExporter(medDAO).exportTo(csv);
+        Files.writeString(csv, ",\"Open,2030-01-01,1.0,1\n", StandardOpenOption.APPEND); // never closed: rejected at end of file
+        medDAO.deleteMedicine(m.getId());
+
+        Path rejects = dir.resolve("rejects.csv");
+        ImportResult result = new CsvMedicineImporter(medDAO, 10).importFile(csv, rejects, null);
+
+        assertEquals(1, result.imported());
+        assertEquals(1, result.rejected());
+        assertEquals(m.getName(), medDAO.getMedicineById(m.getId()).getName());
+        assertTrue(Files.readString(rejects).contains("\n4,"), "the reject carries the line the record started on");
+    }
+
+    @Test
+    @DisplayName("Should not leave a partial export behind when the stream fails")
+    void testExportFailure() throws Exception {
+        medDAO.addMedicine(new Medicine("Aspirin", null, 1.0, 1));
+        MedicineDAO failing = new ForwardingMedicineDAO(medDAO) {
+            @Override
+            public Stream<Medicine> streamMedicines() throws DatabaseOperationException {
+                return Stream.concat(super.streamMedicines(), Stream.generate(() -> { throw new IllegalStateException("disk gone"); }));
+            }
+        };
+        Path csv = dir.resolve("partial.csv");
+
+        assertThrows(IllegalStateException.class, () -> new CsvMedicineExporter(failing).exportTo(csv));
+        assertFalse(Files.exists(csv));
+        assertFalse(Files.exists(dir.resolve("partial.csv.tmp")));
+    }
+
+    @Test
+    @DisplayName("Should write malformed rows to the rejects file and import the rest")
+    void testRejects() throws Exception {
+        Path csv = dir.resolve("new.csv");
+        Files.writeString(csv, MedicineCsv.HEADER + "\n"
+                + ",Ibuprofen,2030-01-01,7.5,10\n"
+                + ",Broken,not-a-date,1.0,1\n"
+                + ",Short,2030-01-01\n"
+                + ",Cough Drops,,2.25,50\n");
+        Path rejects = dir.resolve("rejects.csv");
+
+        ImportResult result = new CsvMedicineImporter(medDAO, 10).importFile(csv, rejects, null);
+
+        assertEquals(2, result.imported());
+        assertEquals(2, result.rejected());
+        List<String> rejected = Files.readAllLines(rejects);
+        assertEquals(3, rejected.size(), "Header plus one line per rejected row");
+        assertTrue(rejected.get(1).startsWith("3,"), "Rejects should carry the source line number");
+        assertEquals(2, medDAO.getAllMedicines().size());
+        assertFalse(Files.exists(CsvMedicineImporter.checkpointFor(csv)));
+    }
+
+    @Test
+    @DisplayName("Should resume from the last committed batch after a failure")
+    void testResume() throws Exception {
+        Path csv = dir.resolve("big.csv");
+        StringBuilder sb = new StringBuilder(MedicineCsv.HEADER).append('\n');
+        for (int i = 0; i < 25; i++) sb.append(",Med ").append(i).append(",2031-01-01,1.0,").append(i).append('\n');
+        sb.append(",Bad,2031-01-01,x,1\n");
+        Files.writeString(csv, sb.toString());
+        Path rejects = dir.resolve("rejects.csv");
+
+        CsvMedicineImporter failing = new CsvMedicineImporter(new FailingDAO(medDAO, 2), 10);
+        assertThrows(DatabaseOperationException.class, () -> failing.importFile(csv, rejects, null));
+        assertEquals(10, medDAO.getAllMedicines().size(), "Only the first batch was committed");
+        assertTrue(Files.exists(CsvMedicineImporter.checkpointFor(csv)));
+
+        ImportResult result = new CsvMedicineImporter(medDAO, 10).importFile(csv, rejects, null);
+
+        assertTrue(result.resumed());
+        assertEquals(25, result.imported());
+        assertEquals(1, result.rejected());
+        assertEquals(25, medDAO.getAllMedicines().size(), "No row should be inserted twice");
+        assertEquals(2, Files.readAllLines(rejects).size());
+    }
+
+    @Test
+    @DisplayName("Should parse quoted fields and reject bad values")
+    void testParse() {
+        Medicine m = MedicineCsv.parse("7,\"Eye Drops, \"\"Kids\"\"\",2030-05-01,3.5,12");
+        assertEquals(7, m.getId());
+        assertEquals("Eye Drops, \"Kids\"", m.getName());
+        assertEquals(m.getName(), MedicineCsv.parse(MedicineCsv.format(m)).getName());
+        assertThrows(IllegalArgumentException.class, () -> MedicineCsv.parse(",Name,2030-01-01,-1,1"));
+        assertThrows(IllegalArgumentException.class, () -> MedicineCsv.parse(",\"Open,2030-01-01,1,1"));
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.load;
+
+import java.util.Properties;
+
+final class LoadConfig { // Knobs for LoadHarness; fromProperties reads "pharmacy.load.*" so a soak run needs only -D flags
+    private int counters = 8; // simulated pharmacy counters, one thread each
+    private long durationMillis = 3_000;
+    private long reportIntervalMillis = 1_000;
+    private int skus = 2_000; // seeded medicines the counters work on
+    private double zipfExponent = 1.0; // 0 = uniform, ~1 = a few best-sellers dominate
+    private LoadMix mix = LoadMix.parse(LoadMix.DEFAULT);
+    private int maxQuantity = 5; // units per dispense, restock or stock edit
+    private int initialStock = 200;
+    private long seed = 42;
+
+    static LoadConfig fromProperties(Properties props) { // missing keys keep the defaults
+        LoadConfig cfg = new LoadConfig();
+        String v;
+        if ((v = props.getProperty("pharmacy.load.counters")) != null) cfg.setCounters(Integer.parseInt(v));
+        if ((v = props.getProperty("pharmacy.load.seconds")) != null) cfg.setDurationMillis(Long.parseLong(v) * 1_000);
+        if ((v = props.getProperty("pharmacy.load.reportSeconds")) != null) cfg.setReportIntervalMillis(Long.parseLong(v) * 1_000);
+        if ((v = props.getProperty("pharmacy.load.skus")) != null) cfg.setSkus(Integer.parseInt(v));
+        if ((v = props.getProperty("pharmacy.load.zipf")) != null) cfg.setZipfExponent(Double.parseDouble(v));
+        if ((v = props.getProperty("pharmacy.load.mix")) != null) cfg.setMix(LoadMix.parse(v));
+        if ((v = props.getProperty("pharmacy.load.maxQuantity")) != null) cfg.setMaxQuantity(Integer.parseInt(v));
+        if ((v = props.getProperty("pharmacy.load.initialStock")) != null) cfg.setInitialStock(Integer.parseInt(v));
+        if ((v = props.getProperty("pharmacy.load.seed")) != null) cfg.setSeed(Long.parseLong(v));
+        return cfg;
+    }
+
+    int getCounters() { return counters; }
+    void setCounters(int counters) { this.counters = counters; }
+
+    long getDurationMillis() { return durationMillis; }
+    void setDurationMillis(long durationMillis) { this.durationMillis = durationMillis; }
+
+    long getReportIntervalMillis() { return reportIntervalMillis; }
+    void setReportIntervalMillis(long reportIntervalMillis) { this.reportIntervalMillis = reportIntervalMillis; }
+
+    int getSkus() { return skus; }
+    void setSkus(int skus) { this.skus = skus; }
+
+    double getZipfExponent() { return zipfExponent; }
+    void setZipfExponent(double zipfExponent) { this.zipfExponent = zipfExponent; }
+
+    LoadMix getMix() { return mix; }
+    void setMix(LoadMix mix) { this.mix = mix; }
+
+    int getMaxQuantity() { return maxQuantity; }
+    void setMaxQuantity(int maxQuantity) { this.maxQuantity = maxQuantity; }
+
+    int getInitialStock() { return initialStock; }
+    void setInitialStock(int initialStock) { this.initialStock = initialStock; }
+
+    long getSeed() { return seed; }
+    void setSeed(long seed) { this.seed = seed; }
+
+    @Override
+    public String toString() {
+        return "counters=" + counters + " duration=" + durationMillis + "ms skus=" + skus + " zipf=" + zipfExponent
+                + " mix=" + mix + " maxQuantity=" + maxQuantity;
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.load;
+
+import com.example.dao.MedicineDAO;
+import com.example.load.LoadMix.Operation;
+import com.example.metrics.HistogramSnapshot;
+import com.example.metrics.LatencyHistogram;
+import com.example.model.Medicine;
+import com.example.exceptions.DatabaseOperationException;
+import com.example.exceptions.InsufficientStockException;
+import com.example.exceptions.StaleMedicineException;
+
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+final class LoadHarness { // Drives a MedicineDAO from simulated counters, then checks stock against what the counters did
+    private static final int PAGE_SIZE = 20;
+    private static final int MAX_ERROR_SAMPLES = 10;
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private final MedicineDAO dao;
+    private final LoadConfig config;
+    private final PrintStream log; // one line per reporting interval; null = quiet
+
+    private final ZipfianGenerator zipf;
+    private int[] ids; // by popularity rank: ids[0] is the best-seller
+    private AtomicLongArray ledger; // net stock change each rank's counters saw succeed
+    private final ConcurrentLinkedQueue<Medicine> inserted = new ConcurrentLinkedQueue<>();
+    private final EnumMap<Operation, LatencyHistogram> total = new EnumMap<>(Operation.class);
+    private final EnumMap<Operation, LatencyHistogram> window = new EnumMap<>(Operation.class); // reset every interval
+    private final LongAdder rejected = new LongAdder(); // dispenses refused for lack of stock, a normal outcome
+    private final LongAdder conflicts = new LongAdder(); // updates refused by optimistic locking, likewise
+    private final LongAdder errors = new LongAdder(); // anything else
+    private final ConcurrentLinkedQueue<String> errorSamples = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger sampled = new AtomicInteger();
+
+    LoadHarness(MedicineDAO dao, LoadConfig config, PrintStream log) {
+        if (config.getCounters() < 1) throw new IllegalArgumentException("Need at least one counter: " + config.getCounters());
+        this.dao = dao;
+        this.config = config;
+        this.log = log;
+        this.zipf = new ZipfianGenerator(config.getSkus(), config.getZipfExponent());
+        for (Operation op : Operation.values()) {
+            total.put(op, new LatencyHistogram());
+            window.put(op, new LatencyHistogram());
+        }
+    }
+
+    LoadReport run() throws DatabaseOperationException, InterruptedException {
+        seed();
+        if (log != null) log.println("load: " + config);
+        Thread[] counters = new Thread[config.getCounters()];
+        long start = System.nanoTime();
+        long deadline = start + config.getDurationMillis() * 1_000_000;
+        for (int i = 0; i < counters.length; i++) {
+            SplittableRandom rnd = new SplittableRandom(config.getSeed() + i);
+            counters[i] = new Thread(() -> serve(rnd, deadline), "counter-" + (i + 1));
+            counters[i].start();
+        }
+        List<LoadReport.Interval> intervals = new ArrayList<>();
+        long windowStart = start;
+        for (Thread t : counters) {
+            while (t.isAlive()) {
+                long next = windowStart + config.getReportIntervalMillis() * 1_000_000;
+                t.join(Math.max(1, (next - System.nanoTime()) / 1_000_000));
+                long now = System.nanoTime();
+                if (now >= next) {
+                    intervals.add(closeWindow(start, windowStart, now));
+                    windowStart = now;
+                }
+            }
+        }
+        long end = System.nanoTime();
+        if (end - windowStart > 0) intervals.add(closeWindow(start, windowStart, end)); // the last partial window
+        Map<Operation, HistogramSnapshot> latency = new EnumMap<>(Operation.class);
+        total.forEach((op, h) -> latency.put(op, h.snapshot()));
+        return new LoadReport(end - start, latency, intervals, rejected.sum(), conflicts.sum(), errors.sum(),
+                List.copyOf(errorSamples), checkInvariants());
+    }
+
+    private void seed() throws DatabaseOperationException {
+        SplittableRandom rnd = new SplittableRandom(config.getSeed());
+        List<Medicine> rows = new ArrayList<>(config.getSkus());
+        for (int i = 0; i < config.getSkus(); i++) rows.add(newMedicine(rnd, "SKU " + i, config.getInitialStock()));
+        dao.addMedicines(rows);
+        ids = new int[rows.size()];
+        for (int i = 0; i < ids.length; i++) ids[i] = rows.get(i).getId();
+        ledger = new AtomicLongArray(ids.length);
+    }
+
+    private static Medicine newMedicine(SplittableRandom rnd, String name, int stock) {
+        LocalDate expiry = rnd.nextInt(10) == 0 ? null : TODAY.plusDays(rnd.nextInt(30, 730));
+        return new Medicine(name, expiry, 1 + rnd.nextInt(5_000) / 100.0, stock);
+    }
+
+    private void serve(SplittableRandom rnd, long deadline) { // one counter
+        LoadMix mix = config.getMix();
+        while (System.nanoTime() - deadline < 0) {
+            Operation op = mix.next(rnd);
+            long t0 = System.nanoTime();
+            try {
+                perform(op, rnd);
+            } catch (InsufficientStockException e) {
+                rejected.increment();
+            } catch (StaleMedicineException e) {
+                conflicts.increment();
+            } catch (Exception e) {
+                errors.increment();
+                if (sampled.getAndIncrement() < MAX_ERROR_SAMPLES) errorSamples.add(op + ": " + e);
+            }
+            long nanos = System.nanoTime() - t0;
+            total.get(op).record(nanos);
+            window.get(op).record(nanos);
+        }
+    }
+
+    private void perform(Operation op, SplittableRandom rnd) throws Exception {
+        int rank = zipf.next(rnd);
+        int id = ids[rank];
+        int qty = 1 + rnd.nextInt(config.getMaxQuantity());
+        switch (op) {
+            case LOOKUP -> dao.getMedicineById(id);
+            case DISPENSE -> {
+                dao.dispense(id, qty);
+                ledger.addAndGet(rank, -qty);
+            }
+            case RESTOCK -> {
+                dao.restock(id, qty);
+                ledger.addAndGet(rank, qty);
+            }
+            case LIST -> dao.getMedicinesPage(null, 0, PAGE_SIZE);
+            case INSERT -> {
+                Medicine m = newMedicine(rnd, "New line " + rnd.nextInt(1_000_000), qty);
+                dao.addMedicine(m);
+                inserted.add(new Medicine(m));
+            }
+            case UPDATE -> { // stock take: read, edit, write back every column
+                Medicine m = dao.getMedicineById(id);
+                int delta = rnd.nextBoolean() || m.getStock() < qty ? qty : -qty;
+                m.setStock(m.getStock() + delta);
+                dao.updateMedicine(m);
+                ledger.addAndGet(rank, delta);
+            }
+        }
+    }
+
+    private LoadReport.Interval closeWindow(long start, long windowStart, long now) {
+        Map<Operation, HistogramSnapshot> latency = new EnumMap<>(Operation.class);
+        window.forEach((op, h) -> {
+            latency.put(op, h.snapshot());
+            h.reset(); // a few records may straddle the reset; fine for a trend line
+        });
+        LoadReport.Interval interval = new LoadReport.Interval((now - start) / 1_000_000, now - windowStart, latency);
+        if (log != null) log.println(interval);
+        return interval;
+    }
+
+    private List<String> checkInvariants() throws DatabaseOperationException { // only exact if no errors left a write in doubt
+        List<String> violations = new ArrayList<>();
+        List<Integer> seeded = new ArrayList<>(ids.length);
+        for (int id : ids) seeded.add(id);
+        Map<Integer, Medicine> now = byId(dao.getMedicinesByIds(seeded));
+        for (int rank = 0; rank < ids.length; rank++) {
+            Medicine m = now.get(ids[rank]);
+            long expected = config.getInitialStock() + ledger.get(rank);
+            if (m == null) violations.add("Medicine " + ids[rank] + " is gone");
+            else if (m.getStock() < 0) violations.add("Medicine " + ids[rank] + " has negative stock " + m.getStock());
+            else if (m.getStock() != expected)
+                violations.add("Medicine " + ids[rank] + " has stock " + m.getStock() + ", expected " + expected + " (lost or phantom update)");
+        }
+        List<Integer> added = new ArrayList<>();
+        for (Medicine m : inserted) added.add(m.getId());
+        Map<Integer, Medicine> found = byId(dao.getMedicinesByIds(added)); // the counters never touch these again
+        for (Medicine m : inserted) {
+            Medicine row = found.get(m.getId());
+            if (row == null) violations.add("Inserted medicine " + m.getId() + " is missing");
+            else if (row.getStock() != m.getStock()) violations.add("Inserted medicine " + m.getId() + " has stock " + row.getStock() + ", expected " + m.getStock());
+        }
+        return violations;
+    }
+
+    private static Map<Integer, Medicine> byId(List<Medicine> meds) {
+        Map<Integer, Medicine> out = new HashMap<>(meds.size() * 2);
+        for (Medicine m : meds) out.put(m.getId(), m);
+        return out;
+    }
+}
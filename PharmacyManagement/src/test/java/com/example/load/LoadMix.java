@@ -0,0 +1,55 @@
+package com.example.load;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+final class LoadMix { // Relative weights of the operations a counter performs, e.g. "lookup=60,dispense=15,restock=10"
+    enum Operation { LOOKUP, DISPENSE, RESTOCK, LIST, INSERT, UPDATE }
+
+    static final String DEFAULT = "lookup=60,dispense=15,restock=8,list=5,insert=2,update=10";
+
+    private final Map<Operation, Integer> weights;
+    private final Operation[] table; // one slot per unit of weight, so picking is a single array read
+
+    LoadMix(Map<Operation, Integer> weights) {
+        this.weights = new EnumMap<>(weights);
+        int total = 0;
+        for (int w : this.weights.values()) {
+            if (w < 0) throw new IllegalArgumentException("Weights must not be negative: " + weights);
+            total += w;
+        }
+        if (total == 0) throw new IllegalArgumentException("Mix has no operations: " + weights);
+        table = new Operation[total];
+        int i = 0;
+        for (var e : this.weights.entrySet()) for (int n = 0; n < e.getValue(); n++) table[i++] = e.getKey();
+    }
+
+    static LoadMix parse(String spec) { // operations left out get weight 0
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split("=");
+            if (kv.length != 2) throw new IllegalArgumentException("Expected op=weight: " + part);
+            try {
+                weights.put(Operation.valueOf(kv[0].trim().toUpperCase(Locale.ROOT)), Integer.parseInt(kv[1].trim()));
+            } catch (IllegalArgumentException e) { // also covers NumberFormatException
+                throw new IllegalArgumentException("Bad mix entry: " + part, e);
+            }
+        }
+        return new LoadMix(weights);
+    }
+
+    Operation next(SplittableRandom rnd) {
+        return table[rnd.nextInt(table.length)];
+    }
+
+    int weight(Operation op) {
+        return weights.getOrDefault(op, 0);
+    }
+
+    @Override
+    public String toString() {
+        return weights.toString();
+    }
+}
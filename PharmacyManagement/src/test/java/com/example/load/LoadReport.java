@@ -0,0 +1,54 @@
+package com.example.load;
+
+import com.example.load.LoadMix.Operation;
+import com.example.metrics.HistogramSnapshot;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+record LoadReport(long elapsedNanos, Map<Operation, HistogramSnapshot> latency, List<Interval> intervals,
+                  long rejected, long conflicts, long errors, List<String> errorSamples, List<String> violations) { // Outcome of one LoadHarness run
+
+    record Interval(long endMillis, long elapsedNanos, Map<Operation, HistogramSnapshot> latency) { // one reporting window
+        long operations() {
+            return latency.values().stream().mapToLong(HistogramSnapshot::count).sum();
+        }
+
+        double throughput() {
+            return elapsedNanos == 0 ? 0 : operations() * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(String.format(Locale.ROOT, "[%6.1fs] %,9.0f ops/s", endMillis / 1e3, throughput()));
+            latency.forEach((op, h) -> {
+                if (h.count() > 0) sb.append(String.format(Locale.ROOT, "  %s p50=%.2f p99=%.2fms",
+                        op.name().toLowerCase(Locale.ROOT), h.p50Nanos() / 1e6, h.p99Nanos() / 1e6));
+            });
+            return sb.toString();
+        }
+    }
+
+    long operations() {
+        return latency.values().stream().mapToLong(HistogramSnapshot::count).sum();
+    }
+
+    double throughput() {
+        return elapsedNanos == 0 ? 0 : operations() * 1e9 / elapsedNanos;
+    }
+
+    String format() { // multi-line summary for the console
+        StringBuilder sb = new StringBuilder(String.format(Locale.ROOT, "%,d operations in %.1fs (%,.0f ops/s)%n",
+                operations(), elapsedNanos / 1e9, throughput()));
+        latency.forEach((op, h) -> {
+            if (h.count() > 0) sb.append(String.format(Locale.ROOT, "  %-8s %s%n", op.name().toLowerCase(Locale.ROOT), h));
+        });
+        sb.append(String.format("rejected dispenses: %d, update conflicts: %d, errors: %d%n", rejected, conflicts, errors));
+        errorSamples.forEach(e -> sb.append("  error: ").append(e).append(System.lineSeparator()));
+        if (violations.isEmpty()) sb.append("invariants hold").append(System.lineSeparator());
+        else violations.stream().limit(20).forEach(v -> sb.append("VIOLATION: ").append(v).append(System.lineSeparator()));
+        if (violations.size() > 20) sb.append("... ").append(violations.size() - 20).append(" more violations").append(System.lineSeparator());
+        return sb.toString();
+    }
+}
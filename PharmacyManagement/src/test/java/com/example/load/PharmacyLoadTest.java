@@ -0,0 +1,141 @@
+package com.example.load;
+
+import com.example.dao.CachingMedicineDAO;
+import com.example.dao.ForwardingMedicineDAO;
+import com.example.dao.MedicineDAO;
+import com.example.dao.MedicineDAOImpl;
+import com.example.dao.ObservableMedicineDAO;
+import com.example.dao.WriteBehindMedicineDAO;
+import com.example.metrics.DaoMetrics;
+import com.example.metrics.InstrumentedMedicineDAO;
+import com.example.util.ConnectionPool;
+import com.example.util.PoolConfig;
+import com.example.util.SchemaManager;
+import com.example.exceptions.DatabaseOperationException;
+import com.example.exceptions.MedicineNotFoundException;
+
+import org.junit.jupiter.api.*;
+
+import java.io.PrintStream;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Concurrent Load Tests")
+class PharmacyLoadTest { // A short run on every build; -Dpharmacy.load.seconds=600 (and friends, see LoadConfig) turns it into a soak
+
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    private ConnectionPool pool;
+    private MedicineDAOImpl dao;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        PoolConfig cfg = new PoolConfig("jdbc:h2:mem:load" + DATABASES.incrementAndGet() + ";MODE=Oracle;DB_CLOSE_DELAY=-1", "sa", "");
+        cfg.setMaxSize(Integer.getInteger("pharmacy.load.poolSize", 8)); // fewer than the counters exercises waiting for connections
+        pool = new ConnectionPool(cfg);
+        SchemaManager.ensureSchema(pool);
+        dao = new MedicineDAOImpl(pool);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    private LoadReport runLoad(MedicineDAO target) throws DatabaseOperationException, InterruptedException {
+        LoadConfig config = LoadConfig.fromProperties(System.getProperties());
+        if (System.getProperty("pharmacy.load.counters") == null) config.setCounters(12);
+        dao.setOptimisticLocking(true); // without it the read-modify-write updates lose concurrent stock changes
+        PrintStream out = System.getProperty("pharmacy.load.seconds") == null ? null : System.out; // only soaks report to the console
+
+        LoadReport report = new LoadHarness(target, config, out).run();
+
+        if (out != null) {
+            out.print(report.format());
+            out.println("pool: " + pool.getStats() + ", acquire " + pool.getAcquireLatency());
+        }
+        return report;
+    }
+
+    private static CachingMedicineDAO decorate(MedicineDAO backend) { // the chain PharmacyApp.startInteractive builds
+        return new CachingMedicineDAO(new ObservableMedicineDAO(new InstrumentedMedicineDAO(backend, new DaoMetrics())), 10_000, Duration.ofMinutes(5));
+    }
+
+    @Test
+    @DisplayName("Should keep stock exact with many counters dispensing, restocking and editing the same SKUs")
+    void testStockInvariantsUnderLoad() throws DatabaseOperationException, InterruptedException {
+        assertInvariantsHold(runLoad(dao));
+    }
+
+    @Test
+    @DisplayName("Should keep stock exact through the application's cache, listener and metrics decorators")
+    void testDecoratedStockInvariantsUnderLoad() throws DatabaseOperationException, InterruptedException {
+        assertInvariantsHold(runLoad(decorate(dao)));
+    }
+
+    @Test
+    @DisplayName("Should keep stock exact with stock changes buffered by write-behind")
+    void testWriteBehindStockInvariantsUnderLoad() throws DatabaseOperationException, InterruptedException {
+        try (WriteBehindMedicineDAO writeBehind = WriteBehindMedicineDAO.start(decorate(dao), Duration.ofMillis(50), 1_000)) {
+            assertInvariantsHold(runLoad(writeBehind));
+            writeBehind.flush();
+            assertEquals(0, writeBehind.getStats().failedFlushes());
+            assertEquals(0, writeBehind.getStats().skippedRows(), "no flushed delta should have been refused");
+        }
+    }
+
+    private static void assertInvariantsHold(LoadReport report) {
+        assertEquals(0, report.errors(), "unexpected errors: " + report.errorSamples());
+        assertEquals(List.of(), report.violations());
+        assertTrue(report.operations() > 0);
+        assertFalse(report.intervals().isEmpty());
+        assertTrue(report.latency().get(LoadMix.Operation.UPDATE).count() > 0, "the mix should include read-modify-write updates");
+    }
+
+    @Test
+    @DisplayName("Should report a lost update when the DAO drops a write")
+    void testDetectsLostUpdates() throws DatabaseOperationException, InterruptedException {
+        AtomicInteger restocks = new AtomicInteger();
+        MedicineDAO leaky = new ForwardingMedicineDAO(dao) { // acknowledges every fifth restock without doing it
+            @Override
+            public void restock(int id, int quantity) throws MedicineNotFoundException, DatabaseOperationException {
+                if (restocks.incrementAndGet() % 5 != 0) super.restock(id, quantity);
+            }
+        };
+        LoadConfig config = new LoadConfig();
+        config.setCounters(2);
+        config.setSkus(10);
+        config.setDurationMillis(200);
+        config.setMix(LoadMix.parse("restock=1"));
+
+        LoadReport report = new LoadHarness(leaky, config, null).run();
+
+        assertTrue(restocks.get() >= 5, "the run was too short to drop anything");
+        assertFalse(report.violations().isEmpty());
+        assertTrue(report.violations().get(0).contains("lost or phantom update"), report.violations().get(0));
+    }
+
+    @Test
+    @DisplayName("Should pick low ranks far more often, in Zipf proportions")
+    void testZipfianSkew() {
+        ZipfianGenerator zipf = new ZipfianGenerator(1_000, 1.0);
+        SplittableRandom rnd = new SplittableRandom(7);
+        int[] hits = new int[zipf.size()];
+        for (int i = 0; i < 200_000; i++) hits[zipf.next(rnd)]++;
+
+        double harmonic = 0;
+        for (int k = 1; k <= 1_000; k++) harmonic += 1.0 / k;
+        assertEquals(200_000 / harmonic, hits[0], 200_000 / harmonic * 0.05, "rank 0 share should be 1/H(n)");
+        assertEquals(hits[0] / 2.0, hits[1], hits[0] * 0.05, "rank 1 should come up half as often as rank 0");
+
+        int[] flat = new int[4];
+        ZipfianGenerator uniform = new ZipfianGenerator(flat.length, 0);
+        for (int i = 0; i < 40_000; i++) flat[uniform.next(rnd)]++;
+        for (int n : flat) assertEquals(10_000, n, 500, "exponent 0 should be uniform");
+    }
+}
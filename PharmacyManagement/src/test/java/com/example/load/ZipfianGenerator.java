@@ -0,0 +1,30 @@
+package com.example.load;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+final class ZipfianGenerator { // Ranks 0..n-1, rank k drawn with probability proportional to 1/(k+1)^exponent
+    private final double[] cdf;
+
+    ZipfianGenerator(int n, double exponent) {
+        if (n < 1) throw new IllegalArgumentException("Need at least one item: " + n);
+        if (exponent < 0) throw new IllegalArgumentException("Exponent must not be negative: " + exponent);
+        cdf = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += 1 / Math.pow(k + 1, exponent);
+            cdf[k] = sum;
+        }
+        for (int k = 0; k < n; k++) cdf[k] /= sum;
+        cdf[n - 1] = 1.0; // no rounding gap at the top
+    }
+
+    int next(SplittableRandom rnd) { // shared between threads; each caller brings its own random source
+        int i = Arrays.binarySearch(cdf, rnd.nextDouble());
+        return i >= 0 ? i : -i - 1;
+    }
+
+    int size() {
+        return cdf.length;
+    }
+}
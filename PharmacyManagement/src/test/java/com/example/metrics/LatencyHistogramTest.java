@@ -0,0 +1,54 @@
+package com.example.metrics;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("LatencyHistogram Tests")
+class LatencyHistogramTest {
+
+    @Test
+    @DisplayName("Should report percentiles within bucket precision")
+    void testPercentiles() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (long v = 1; v <= 100_000; v++) h.record(v * 1_000); // 1us .. 100ms, uniform
+
+        HistogramSnapshot s = h.snapshot();
+        assertEquals(100_000, s.count());
+        assertEquals(50_000_000, s.p50Nanos(), 50_000_000 * 0.04);
+        assertEquals(99_000_000, s.p99Nanos(), 99_000_000 * 0.04);
+        assertEquals(99_900_000, s.p999Nanos(), 99_900_000 * 0.04);
+        assertEquals(100_000_000, s.maxNanos());
+        assertEquals(95_000_000, h.percentileNanos(0.95), 95_000_000 * 0.04, "any quantile, not just the snapshot's");
+        assertEquals(100_000_000, h.percentileNanos(1));
+        assertThrows(IllegalArgumentException.class, () -> h.percentileNanos(0));
+    }
+
+    @Test
+    @DisplayName("Should map every value into a bucket whose upper bound covers it")
+    void testBucketBounds() {
+        long[] samples = {0, 1, 63, 64, 65, 1_000, 123_456_789, Long.MAX_VALUE};
+        for (long v : samples) {
+            int b = LatencyHistogram.bucketOf(v);
+            assertTrue(LatencyHistogram.upperBoundOf(b) >= v, "bucket too small for " + v);
+            if (b > 0) assertTrue(LatencyHistogram.upperBoundOf(b - 1) < v, "bucket too large for " + v);
+        }
+    }
+
+    @Test
+    @DisplayName("Should count errors by exception type")
+    void testDaoMetricsErrors() {
+        DaoMetrics metrics = new DaoMetrics();
+        metrics.recordError(new IllegalStateException());
+        metrics.recordError(new IllegalStateException());
+        metrics.record(DaoMetrics.Operation.GET_BY_ID, 2_000_000);
+
+        assertEquals(2L, metrics.getErrorCounts().get("IllegalStateException"));
+        assertEquals(1L, metrics.getCallCounts().get("GET_BY_ID"));
+        assertTrue(metrics.dump().startsWith("GET_BY_ID"));
+        for (int i = 0; i < 19; i++) metrics.record(DaoMetrics.Operation.GET_BY_ID, 1_000_000);
+        assertEquals(1.0, metrics.getPercentileMillis("GET_BY_ID", 95), 0.04, "19 of 20 calls took 1ms");
+        assertEquals(2.0, metrics.getPercentileMillis("GET_BY_ID", 96), 0.08);
+        assertThrows(IllegalArgumentException.class, () -> metrics.getPercentileMillis("GET_BY_ID", 150));
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.search;
+
+import com.example.model.Medicine;
+
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("MedicineSearchIndex Tests")
+class MedicineSearchIndexTest {
+
+    private MedicineSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new MedicineSearchIndex();
+        index.medicineAdded(new Medicine(1, "Amoxicillin 500mg Capsules", null, 1.0, 10));
+        index.medicineAdded(new Medicine(2, "Co-Amoxiclav 625mg", null, 1.0, 10));
+        index.medicineAdded(new Medicine(3, "Amoxicillin", null, 1.0, 10));
+        index.medicineAdded(new Medicine(4, "Vitamin D3 1000 IU", null, 1.0, 10));
+        index.medicineAdded(new Medicine(5, "Vitamin C", null, 1.0, 10));
+        index.medicineAdded(new Medicine(6, "Ibuprofen Gel", null, 1.0, 10));
+    }
+
+    private static List<Integer> ids(List<Medicine> meds) {
+        return meds.stream().map(Medicine::getId).toList();
+    }
+
+    @Test
+    @DisplayName("Should rank exact, prefix, word-prefix and substring matches in that order")
+    void testRanking() {
+        assertEquals(List.of(3, 1), ids(index.searchByName("amoxicillin", 10)));
+        assertEquals(List.of(3, 1, 2), ids(index.searchByName("Amox", 10)));
+        assertEquals(2, index.searchByName("moxiclav", 10).get(0).getId());
+        assertEquals(List.of(4, 5), ids(index.searchByName("vitamin d", 10)), "Close names follow the real match");
+        assertEquals(List.of(6), ids(index.searchByName("gel", 10)));
+    }
+
+    @Test
+    @DisplayName("Should list a name once even when several of its words match")
+    void testMultiWordMatch() {
+        index.medicineAdded(new Medicine(7, "Tab Amlodipine Amiloride", null, 1.0, 10));
+        index.medicineAdded(new Medicine(8, "Aspirin Aspirin Forte", null, 1.0, 10));
+
+        assertEquals(List.of(3, 1, 2, 7), ids(index.searchByName("am", 10)));
+        assertEquals(List.of(8), ids(index.searchByName("aspirin", 10)));
+        assertEquals(List.of(8), ids(index.searchByName("forte", 10)));
+    }
+
+    @Test
+    @DisplayName("Should tolerate typos, accents and punctuation")
+    void testFuzzy() {
+        assertEquals(3, index.searchByName("amoxicilin", 10).get(0).getId());
+        assertEquals(6, index.searchByName("ibuprofin", 10).get(0).getId());
+        assertEquals(2, index.searchByName("CO AMOXÍCLAV", 10).get(0).getId());
+        assertTrue(index.searchByName("zzzz", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should return at most limit results")
+    void testLimit() {
+        assertEquals(List.of(3), ids(index.searchByName("amox", 1)));
+        assertEquals(2, index.searchByName("vit", 2).size());
+    }
+
+    @Test
+    @DisplayName("Should follow renames and deletes")
+    void testKeptInSync() {
+        index.medicineUpdated(new Medicine(5, "Ascorbic Acid", null, 1.0, 3));
+        assertTrue(index.searchByName("vitamin c", 10).stream().noneMatch(m -> m.getId() == 5));
+        assertEquals(List.of(5), ids(index.searchByName("ascorbic", 10)));
+        assertEquals(3, index.searchByName("ascorbic", 10).get(0).getStock());
+
+        index.medicineDeleted(3);
+        assertEquals(List.of(1, 2), ids(index.searchByName("amox", 10)));
+        assertEquals(5, index.size());
+    }
+}
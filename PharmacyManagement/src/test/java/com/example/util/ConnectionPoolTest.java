@@ -0,0 +1,149 @@
+package com.example.util;
+
+import org.junit.jupiter.api.*;
+
+import java.sql.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ConnectionPool Tests")
+class ConnectionPoolTest {
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        PoolConfig cfg = new PoolConfig("jdbc:h2:mem:pooltest;MODE=Oracle;DB_CLOSE_DELAY=-1", "sa", "");
+        cfg.setMinSize(1);
+        cfg.setMaxSize(2);
+        cfg.setAcquireTimeoutMillis(200);
+        pool = new ConnectionPool(cfg);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    @DisplayName("Should reuse the same physical connection after close")
+    void testConnectionReuse() throws SQLException {
+        Connection physical;
+        try (Connection conn = pool.getConnection()) {
+            physical = conn.unwrap(Connection.class);
+        }
+        try (Connection conn = pool.getConnection()) {
+            assertSame(physical, conn.unwrap(Connection.class), "Returned connection should be handed out again");
+        }
+        PoolStats stats = pool.getStats();
+        assertEquals(0, stats.active());
+        assertEquals(2, stats.acquired());
+    }
+
+    @Test
+    @DisplayName("Should time out when the pool is exhausted")
+    void testAcquireTimeout() throws SQLException {
+        Connection c1 = pool.getConnection();
+        Connection c2 = pool.getConnection();
+        try {
+            assertEquals(2, pool.getStats().active());
+            assertThrows(SQLTimeoutException.class, () -> pool.getConnection());
+        } finally {
+            c1.close();
+            c2.close();
+        }
+        assertEquals(1, pool.getStats().timeouts());
+    }
+
+    @Test
+    @DisplayName("Should hand a waiting caller the next returned connection")
+    void testWaiterIsServed() throws Exception {
+        Connection c1 = pool.getConnection();
+        Connection c2 = pool.getConnection();
+        ExecutorService ex = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> waiter = ex.submit(() -> {
+                try (Connection c3 = pool.getConnection()) { return c3.isValid(1); }
+            });
+            Thread.sleep(50);
+            c1.close();
+            assertTrue(waiter.get(1, TimeUnit.SECONDS));
+        } finally {
+            c2.close();
+            ex.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should cache prepared statements per connection")
+    void testStatementCache() throws SQLException {
+        Statement first;
+        try (Connection conn = pool.getConnection(); PreparedStatement ps = conn.prepareStatement("SELECT ? FROM DUAL")) {
+            first = ps.unwrap(PreparedStatement.class);
+        }
+        try (Connection conn = pool.getConnection(); PreparedStatement ps = conn.prepareStatement("SELECT ? FROM DUAL")) {
+            assertSame(first, ps.unwrap(PreparedStatement.class));
+            ps.setInt(1, 7);
+            try (ResultSet rs = ps.executeQuery()) {
+                assertTrue(rs.next());
+                assertEquals(7, rs.getInt(1));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should reset fetch size, row limit, timeout and direction before reusing a statement")
+    void testStatementSettingsReset() throws SQLException {
+        Statement first;
+        int fetchSize, maxRows, queryTimeout, fetchDirection;
+        try (Connection conn = pool.getConnection(); PreparedStatement ps = conn.prepareStatement("SELECT ? FROM DUAL")) {
+            first = ps.unwrap(PreparedStatement.class);
+            fetchSize = ps.getFetchSize();
+            maxRows = ps.getMaxRows();
+            queryTimeout = ps.getQueryTimeout();
+            fetchDirection = ps.getFetchDirection();
+            ps.setFetchSize(fetchSize + 7);
+            ps.setMaxRows(maxRows + 3);
+            ps.setQueryTimeout(queryTimeout + 5);
+            ps.setFetchDirection(ResultSet.FETCH_REVERSE);
+        }
+        try (Connection conn = pool.getConnection(); PreparedStatement ps = conn.prepareStatement("SELECT ? FROM DUAL")) {
+            assertSame(first, ps.unwrap(PreparedStatement.class), "the statement is reset, not prepared again");
+            assertEquals(fetchSize, ps.getFetchSize());
+            assertEquals(maxRows, ps.getMaxRows());
+            assertEquals(queryTimeout, ps.getQueryTimeout());
+            assertEquals(fetchDirection, ps.getFetchDirection());
+        }
+    }
+
+    @Test
+    @DisplayName("Should fail fast when no JDBC driver is available for the URL")
+    void testMissingDriver() {
+        PoolConfig h2 = new PoolConfig("jdbc:h2:mem:pooltest;MODE=Oracle;DB_CLOSE_DELAY=-1", "sa", "");
+        h2.setDriverClassName("com.example.NoSuchDriver");
+        new ConnectionPool(h2).close(); // the H2 driver registered itself
+        PoolConfig unknown = new PoolConfig("jdbc:nosuchdb:test", "sa", "");
+        unknown.setDriverClassName("com.example.NoSuchDriver");
+        assertThrows(IllegalStateException.class, () -> new ConnectionPool(unknown));
+    }
+
+    @Test
+    @DisplayName("Should roll back uncommitted work when a connection is returned")
+    void testRollbackOnRelease() throws SQLException {
+        try (Connection conn = pool.getConnection(); Statement st = conn.createStatement()) {
+            st.execute("CREATE TABLE IF NOT EXISTS pool_t (x INT)");
+            st.execute("DELETE FROM pool_t");
+        }
+        try (Connection conn = pool.getConnection(); Statement st = conn.createStatement()) {
+            conn.setAutoCommit(false);
+            st.execute("INSERT INTO pool_t VALUES (1)");
+        }
+        try (Connection conn = pool.getConnection(); Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM pool_t")) {
+            assertTrue(conn.getAutoCommit());
+            rs.next();
+            assertEquals(0, rs.getInt(1));
+        }
+    }
+}